@@ -0,0 +1,113 @@
+package it.isw2.prediction.benchmark;
+
+import it.isw2.prediction.model.Commit;
+import it.isw2.prediction.model.Method;
+import it.isw2.prediction.model.Version;
+import it.isw2.prediction.model.metric.BuiltinMetrics;
+import it.isw2.prediction.model.metric.MetricFeature;
+import it.isw2.prediction.model.metric.MetricRegistry;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lettura delle feature di un metodo per ogni versione, come nella creazione del dataset.
+ * Nel caso "cold" le aggregazioni per versione vengono invalidate prima di ogni invocazione,
+ * nel caso "warm" sono già calcolate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    @Param({"200"})
+    public int commits;
+
+    @Param({"10"})
+    public int versions;
+
+    private SyntheticRepository repository;
+    private Method method;
+    private Map<Commit, Integer> churnPerCommit;
+    private List<MetricFeature> features;
+
+    @Setup
+    public void setup() throws IOException, GitAPIException {
+        repository = new SyntheticRepository(BenchmarkFixtures.BOOKIE_SERVER, commits, versions);
+
+        Random random = new Random(42);
+        Map<Commit, Integer> loc = new HashMap<>();
+        Map<Commit, Integer> complexity = new HashMap<>();
+        Map<Commit, Integer> added = new HashMap<>();
+        Map<Commit, Integer> deleted = new HashMap<>();
+        churnPerCommit = new HashMap<>();
+        for (Commit commit : repository.getCommits()) {
+            loc.put(commit, 10 + random.nextInt(200));
+            complexity.put(commit, 1 + random.nextInt(30));
+            int addedLines = random.nextInt(20);
+            int deletedLines = random.nextInt(20);
+            added.put(commit, addedLines);
+            deleted.put(commit, deletedLines);
+            churnPerCommit.put(commit, addedLines + deletedLines);
+        }
+
+        method = new Method("BookieServer", "org.apache.bookkeeper.proto", "processPacket");
+        // Le versioni sono aggiunte direttamente, senza risolvere quelle intermedie dal repository delle versioni
+        method.getVersions().addAll(repository.getVersions());
+        method.setMetricPerCommit(BuiltinMetrics.LOC, loc);
+        method.setMetricPerCommit(BuiltinMetrics.STATEMENT, loc);
+        method.setMetricPerCommit(BuiltinMetrics.CYCLOMATIC_COMPLEXITY, complexity);
+        method.setMetricPerCommit(BuiltinMetrics.COGNITIVE_COMPLEXITY, complexity);
+        method.setMetricPerCommit(BuiltinMetrics.BRANCH_POINTS, complexity);
+        method.setMetricPerCommit(BuiltinMetrics.NESTING_DEPTH, complexity);
+        method.setMetricPerCommit(BuiltinMetrics.PARAMETERS_COUNT, complexity);
+        method.setMetricPerCommit(BuiltinMetrics.ADDED_LINES, added);
+        method.setMetricPerCommit(BuiltinMetrics.DELETED_LINES, deleted);
+        method.setMetricPerCommit(BuiltinMetrics.CHURN, churnPerCommit);
+        features = MetricRegistry.getInstance().getFeatures();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    /**
+     * Invalida le aggregazioni del metodo prima di ogni invocazione, fuori dalla misura.
+     */
+    @State(Scope.Thread)
+    public static class Invalidated {
+        @Setup(Level.Invocation)
+        public void invalidate(AggregationBenchmark benchmark) {
+            benchmark.method.setMetricPerCommit(BuiltinMetrics.CHURN, benchmark.churnPerCommit);
+        }
+    }
+
+    @Benchmark
+    public void datasetRowsCold(Invalidated invalidated, Blackhole blackhole) {
+        readRows(blackhole);
+    }
+
+    @Benchmark
+    public void datasetRowsWarm(Blackhole blackhole) {
+        readRows(blackhole);
+    }
+
+    private void readRows(Blackhole blackhole) {
+        for (Version version : repository.getVersions()) {
+            for (MetricFeature feature : features) blackhole.consume(feature.value(method, version));
+            blackhole.consume(method.isBuggy(version));
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+package it.isw2.prediction.benchmark;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Input comuni dei benchmark.
+ * I sorgenti di riferimento sono i due metodi candidati al refactoring nella cartella refactor:
+ * BookieServer (BookKeeper) e JPQLExpressionBuilder (OpenJPA), rispettivamente con molta complessità
+ * ciclomatica e con molti statement.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String BOOKIE_SERVER = "BookieServer.java";
+    public static final String JPQL_EXPRESSION_BUILDER = "JPQLExpressionBuilder.java";
+
+    private static final Path FIXTURE_DIR = Paths.get("refactor");
+
+    // Riferimento mantenuto per evitare che il logger venga raccolto e perda il livello impostato
+    private static final Logger APPLICATION_LOGGER = Logger.getLogger("it.isw2.prediction");
+
+    private BenchmarkFixtures() {}
+
+    /**
+     * Legge il sorgente di riferimento.
+     *
+     * @param fixture il nome del file nella cartella refactor
+     * @return il contenuto del file
+     * @throws IOException se il file non è leggibile
+     */
+    public static String readSource(String fixture) throws IOException {
+        return Files.readString(FIXTURE_DIR.resolve(fixture), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Analizza il sorgente come durante l'analisi dei commit.
+     *
+     * @param source il codice sorgente
+     * @return il CompilationUnit risultante
+     */
+    public static CompilationUnit parse(String source) {
+        return new JavaParser().parse(source).getResult()
+                .orElseThrow(() -> new IllegalStateException("Sorgente di riferimento non analizzabile"));
+    }
+
+    /**
+     * Restituisce le dichiarazioni di metodo del sorgente di riferimento.
+     *
+     * @param fixture il nome del file nella cartella refactor
+     * @return le dichiarazioni di metodo, nell'ordine del sorgente
+     * @throws IOException se il file non è leggibile
+     */
+    public static List<MethodDeclaration> parseMethods(String fixture) throws IOException {
+        return parse(readSource(fixture)).findAll(MethodDeclaration.class);
+    }
+
+    /**
+     * Riduce i log dell'applicazione agli avvisi, per non misurare la scrittura dei messaggi informativi.
+     */
+    public static void quietLogging() {
+        APPLICATION_LOGGER.setLevel(Level.WARNING);
+    }
+
+}
@@ -0,0 +1,116 @@
+package it.isw2.prediction.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.controller.CsvRowWriter;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Esegue i benchmark JMH e pubblica i risultati in formato JSON nella cartella output/benchmark.
+ * I risultati vengono confrontati con quelli della baseline (jmh-baseline.json nella stessa cartella):
+ * il confronto viene scritto in jmh-comparison.csv e le regressioni oltre la soglia vengono segnalate nei log.
+ * Se la baseline non esiste, i risultati dell'esecuzione diventano la baseline.
+ * <p>
+ * Gli argomenti sono quelli della riga di comando di JMH; senza espressioni di selezione vengono eseguiti tutti i benchmark.
+ */
+public class BenchmarkRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(BenchmarkRunner.class.getName());
+
+    private static final String BENCHMARK_PATTERN = "it\\.isw2\\.prediction\\..*Benchmark";
+    private static final String RESULT_FILE = "jmh-result.json";
+    private static final String BASELINE_FILE = "jmh-baseline.json";
+    private static final String COMPARISON_FILE = "jmh-comparison.csv";
+    // Peggioramento oltre il quale un benchmark viene segnalato come regressione
+    private static final double REGRESSION_THRESHOLD = 0.10;
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        Path outputDir = Paths.get(new ApplicationConfig().getOutputPath(), "benchmark");
+        Files.createDirectories(outputDir);
+        Path resultPath = outputDir.resolve(RESULT_FILE);
+
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(commandLine);
+        options.resultFormat(ResultFormatType.JSON);
+        options.result(resultPath.toString());
+        if (commandLine.getIncludes().isEmpty()) options.include(BENCHMARK_PATTERN);
+
+        Collection<RunResult> results = new Runner(options.build()).run();
+        LOGGER.log(Level.INFO, "Risultati dei benchmark scritti in {0}", resultPath);
+
+        Path baselinePath = outputDir.resolve(BASELINE_FILE);
+        if (!Files.exists(baselinePath)) {
+            Files.copy(resultPath, baselinePath, StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.log(Level.INFO, "Baseline assente: i risultati correnti sono stati salvati come baseline in {0}", baselinePath);
+            return;
+        }
+        compareWithBaseline(results, baselinePath, outputDir.resolve(COMPARISON_FILE));
+    }
+
+    /**
+     * Confronta il punteggio di ogni benchmark con quello della baseline con gli stessi parametri.
+     */
+    private static void compareWithBaseline(Collection<RunResult> results, Path baselinePath, Path comparisonPath) throws Exception {
+        Map<String, JsonNode> baseline = new HashMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(baselinePath.toFile())) {
+            Map<String, String> params = new TreeMap<>();
+            node.path("params").fields().forEachRemaining(e -> params.put(e.getKey(), e.getValue().asText()));
+            baseline.put(resultKey(node.path("benchmark").asText(), node.path("mode").asText(), params), node.path("primaryMetric"));
+        }
+
+        int regressions = 0;
+        try (CsvRowWriter csvWriter = new CsvRowWriter(comparisonPath, ";")) {
+            csvWriter.writeLine("Benchmark;Modalita;Parametri;Baseline;Attuale;Unita;Variazione %;Regressione");
+            for (RunResult result : results) {
+                String benchmark = result.getParams().getBenchmark();
+                String mode = result.getParams().getMode().shortLabel();
+                Map<String, String> params = new TreeMap<>();
+                for (String key : result.getParams().getParamsKeys()) params.put(key, result.getParams().getParam(key));
+
+                JsonNode reference = baseline.get(resultKey(benchmark, mode, params));
+                if (reference == null) continue;
+                double baselineScore = reference.path("score").asDouble();
+                double score = result.getPrimaryResult().getScore();
+
+                // Per il throughput un valore più alto è migliore, per le altre modalità un valore più basso
+                double change = baselineScore == 0 ? 0 : (score - baselineScore) / baselineScore;
+                double worsening = "thrpt".equals(mode) ? -change : change;
+                boolean regression = worsening > REGRESSION_THRESHOLD;
+                if (regression) {
+                    regressions++;
+                    LOGGER.log(Level.WARNING, "Regressione in {0} {1}: {2} -> {3} {4}", new Object[]{
+                            benchmark, params, baselineScore, score, result.getPrimaryResult().getScoreUnit()});
+                }
+
+                csvWriter.field(benchmark).field(mode).field(params.toString())
+                        .field(baselineScore, 3).field(score, 3).field(result.getPrimaryResult().getScoreUnit())
+                        .field(change * 100, 1).field(regression).endRow();
+            }
+        }
+        LOGGER.log(Level.INFO, "Confronto con la baseline scritto in {0}: {1} regressioni", new Object[]{comparisonPath, regressions});
+    }
+
+    private static String resultKey(String benchmark, String mode, Map<String, String> params) {
+        return benchmark + "|" + mode + "|" + params;
+    }
+
+}
@@ -0,0 +1,76 @@
+package it.isw2.prediction.benchmark;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import it.isw2.prediction.model.Commit;
+import it.isw2.prediction.model.Method;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcolo del churn di un metodo su tutti i commit del repository sintetico:
+ * a partire dal DiffEntry, che rilegge i blob e ricalcola le modifiche a ogni chiamata,
+ * e a partire dalla lista delle modifiche già calcolata per il file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChurnBenchmark {
+
+    @Param({"200"})
+    public int commits;
+
+    private SyntheticRepository repository;
+    private Method method;
+
+    @Setup
+    public void setup() throws IOException, GitAPIException {
+        BenchmarkFixtures.quietLogging();
+        repository = new SyntheticRepository(BenchmarkFixtures.BOOKIE_SERVER, commits, 10);
+
+        // Il metodo più lungo del sorgente, con le stesse linee in tutti i commit
+        MethodDeclaration longest = BenchmarkFixtures.parseMethods(BenchmarkFixtures.BOOKIE_SERVER).stream()
+                .filter(m -> m.getBegin().isPresent() && m.getEnd().isPresent())
+                .max(Comparator.comparingInt(m -> m.getEnd().get().line - m.getBegin().get().line))
+                .orElseThrow();
+        Method.MethodInfo methodInfo = new Method.MethodInfo(longest.getBegin().get().line, longest.getEnd().get().line);
+
+        method = new Method("BookieServer", "org.apache.bookkeeper.proto", longest.getNameAsString());
+        Map<Commit, Method.MethodInfo> methodInfoPerCommit = new HashMap<>();
+        for (Commit commit : repository.getCommits()) methodInfoPerCommit.put(commit, methodInfo);
+        method.setMethodInfoPerCommit(methodInfoPerCommit);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public Method churnFromDiffEntry() {
+        List<Commit> commitList = repository.getCommits();
+        for (int i = 1; i < commitList.size(); i++) {
+            method.computeChurn(repository.getRepository(), commitList.get(i), repository.getDiffEntries().get(i));
+        }
+        return method;
+    }
+
+    @Benchmark
+    public Method churnFromEditList() {
+        List<Commit> commitList = repository.getCommits();
+        for (int i = 1; i < commitList.size(); i++) {
+            method.computeChurn(commitList.get(i), repository.getEditLists().get(i));
+        }
+        return method;
+    }
+
+}
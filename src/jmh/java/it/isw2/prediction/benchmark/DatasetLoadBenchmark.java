@@ -0,0 +1,75 @@
+package it.isw2.prediction.benchmark;
+
+import it.isw2.prediction.controller.ColumnarDatasetLoader;
+import it.isw2.prediction.controller.ColumnarDatasetWriter;
+import it.isw2.prediction.controller.CsvController;
+import org.openjdk.jmh.annotations.*;
+import weka.core.Instances;
+import weka.core.converters.CSVLoader;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.StringToNominal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caricamento del dataset filtrato: lettura testuale del CSV, caricamento in Instances
+ * con CSVLoader e StringToNominal e caricamento del formato binario colonnare equivalente.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatasetLoadBenchmark {
+
+    private static final String SEPARATOR = ";";
+
+    @Param({"data/BOOKKEEPER_filtered.csv"})
+    public String dataset;
+
+    private final CsvController csvController = new CsvController() {};
+    private Path binaryDataset;
+
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        List<String[]> lines = csvController.readCsvFile(dataset, SEPARATOR);
+        binaryDataset = Files.createTempFile("isw2-benchmark-", ".bin");
+        ColumnarDatasetWriter.write(binaryDataset, lines.getFirst(), lines.subList(1, lines.size()));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binaryDataset);
+    }
+
+    @Benchmark
+    public List<String[]> readCsv() throws IOException {
+        return csvController.readCsvFile(dataset, SEPARATOR);
+    }
+
+    @Benchmark
+    public Instances csvLoader() throws Exception {
+        CSVLoader loader = new CSVLoader();
+        loader.setSource(new File(dataset));
+        loader.setFieldSeparator(SEPARATOR);
+        Instances data = loader.getDataSet();
+
+        StringToNominal filter = new StringToNominal();
+        filter.setAttributeRange("first-last");
+        filter.setInputFormat(data);
+        return Filter.useFilter(data, filter);
+    }
+
+    @Benchmark
+    public Instances columnarLoader() throws IOException {
+        return ColumnarDatasetLoader.load(binaryDataset, "benchmark");
+    }
+
+}
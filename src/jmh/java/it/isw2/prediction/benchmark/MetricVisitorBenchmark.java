@@ -0,0 +1,50 @@
+package it.isw2.prediction.benchmark;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import it.isw2.prediction.model.MethodSnapshot;
+import it.isw2.prediction.model.metric.BuiltinMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcolo delle metriche strutturali su tutti i metodi di un sorgente già analizzato:
+ * l'istantanea delle metriche abilitate, ottenuta con un'unica visita dell'AST, e il solo conteggio delle linee di codice dai token.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricVisitorBenchmark {
+
+    @Param({BenchmarkFixtures.BOOKIE_SERVER, BenchmarkFixtures.JPQL_EXPRESSION_BUILDER})
+    public String fixture;
+
+    private List<MethodDeclaration> methods;
+
+    @Setup
+    public void setup() throws IOException {
+        methods = BenchmarkFixtures.parseMethods(fixture);
+    }
+
+    @Benchmark
+    public int loc() {
+        int total = 0;
+        for (MethodDeclaration methodDeclaration : methods) {
+            if (methodDeclaration.getBody().isPresent()) total += BuiltinMetrics.countCodeLines(methodDeclaration.getBody().get());
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int snapshot() {
+        int total = 0;
+        for (MethodDeclaration methodDeclaration : methods) total += MethodSnapshot.of(methodDeclaration).value(BuiltinMetrics.LOC);
+        return total;
+    }
+
+}
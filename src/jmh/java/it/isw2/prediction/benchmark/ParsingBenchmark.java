@@ -0,0 +1,59 @@
+package it.isw2.prediction.benchmark;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import it.isw2.prediction.dao.BlobParser;
+import it.isw2.prediction.model.MethodSnapshot;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analisi sintattica di un sorgente con JavaParser, da sola e seguita dal calcolo
+ * delle metriche di tutti i metodi, come avviene per ogni blob durante l'analisi dei commit.
+ * Il parsing viene misurato sia a partire dalla stringa del file sia dai byte del blob
+ * con il parser riutilizzato dal thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+
+    @Param({BenchmarkFixtures.BOOKIE_SERVER, BenchmarkFixtures.JPQL_EXPRESSION_BUILDER})
+    public String fixture;
+
+    private String source;
+    private ObjectLoader blob;
+
+    @Setup
+    public void setup() throws IOException {
+        source = BenchmarkFixtures.readSource(fixture);
+        blob = new ObjectLoader.SmallObject(Constants.OBJ_BLOB, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public CompilationUnit parse() {
+        return BenchmarkFixtures.parse(source);
+    }
+
+    @Benchmark
+    public CompilationUnit parseBlob() throws IOException {
+        return BlobParser.forCurrentThread().parse(blob);
+    }
+
+    @Benchmark
+    public void parseAndSnapshot(Blackhole blackhole) {
+        for (MethodDeclaration methodDeclaration : BenchmarkFixtures.parse(source).findAll(MethodDeclaration.class)) {
+            blackhole.consume(MethodSnapshot.of(methodDeclaration));
+        }
+    }
+
+}
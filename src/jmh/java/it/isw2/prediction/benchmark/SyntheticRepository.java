@@ -0,0 +1,198 @@
+package it.isw2.prediction.benchmark;
+
+import it.isw2.prediction.model.Commit;
+import it.isw2.prediction.model.Version;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.EditList;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Repository Git locale generato per i benchmark, con una storia deterministica di modifiche a un sorgente di riferimento.
+ * Ogni commit inserisce o rimuove poche righe di commento in posizioni casuali (seed fisso), con un commit al giorno;
+ * i messaggi citano zero, una o due chiavi di ticket nel formato PROGETTO-NNN.
+ * I commit sono divisi in versioni di uguale lunghezza, rilasciate dopo l'ultimo commit di ciascuna.
+ */
+public class SyntheticRepository implements Closeable {
+
+    public static final String PROJECT_KEY = "BOOKKEEPER";
+
+    private static final Instant FIRST_COMMIT_TIME = Instant.parse("2020-01-01T10:00:00Z");
+    private static final String INSERTED_LINE = "        // modifica ";
+    private static final int SEED = 42;
+
+    private final Path directory;
+    private final Git git;
+    private final Repository repository;
+    private final String filePath;
+    private final int numTickets;
+
+    private final List<Commit> commits = new ArrayList<>();
+    private final List<Version> versions = new ArrayList<>();
+    // Modifiche al file di ogni commit rispetto al precedente; null per il primo commit
+    private final List<DiffEntry> diffEntries = new ArrayList<>();
+    private final List<EditList> editLists = new ArrayList<>();
+
+    /**
+     * Crea il repository in una cartella temporanea.
+     *
+     * @param fixture     il sorgente di riferimento da modificare
+     * @param numCommits  il numero di commit
+     * @param numVersions il numero di versioni in cui dividere i commit
+     * @throws IOException     se non è possibile scrivere il repository
+     * @throws GitAPIException se un'operazione Git fallisce
+     */
+    public SyntheticRepository(String fixture, int numCommits, int numVersions) throws IOException, GitAPIException {
+        this.directory = Files.createTempDirectory("isw2-benchmark-");
+        this.filePath = "src/main/java/" + fixture;
+        this.numTickets = Math.max(1, numCommits / 2);
+
+        this.git = Git.init().setDirectory(directory.toFile()).setInitialBranch("master").call();
+        this.repository = git.getRepository();
+        Path file = directory.resolve(filePath);
+        Files.createDirectories(file.getParent());
+
+        List<RevCommit> revCommits = new ArrayList<>(numCommits);
+        List<String> lines = new ArrayList<>(Arrays.asList(BenchmarkFixtures.readSource(fixture).split("\\R", -1)));
+        Random random = new Random(SEED);
+        for (int i = 0; i < numCommits; i++) {
+            if (i > 0) mutate(lines, random, i);
+            Files.writeString(file, String.join("\n", lines), StandardCharsets.UTF_8);
+
+            PersonIdent ident = new PersonIdent("Benchmark", "benchmark@example.org",
+                    FIRST_COMMIT_TIME.plus(Duration.ofDays(i)), ZoneOffset.UTC);
+            git.add().addFilepattern(filePath).call();
+            revCommits.add(git.commit().setMessage(message(i)).setAuthor(ident).setCommitter(ident).call());
+        }
+
+        createVersions(revCommits, numVersions);
+        computeDiffs(revCommits);
+    }
+
+    /**
+     * Inserisce o rimuove da una a tre righe di commento.
+     */
+    private static void mutate(List<String> lines, Random random, int commitIndex) {
+        int edits = 1 + random.nextInt(3);
+        for (int e = 0; e < edits; e++) {
+            int position = random.nextInt(lines.size());
+            if (lines.get(position).startsWith(INSERTED_LINE) && random.nextBoolean()) lines.remove(position);
+            else lines.add(position, INSERTED_LINE + commitIndex);
+        }
+    }
+
+    private String message(int commitIndex) {
+        int firstKey = 1 + commitIndex % numTickets;
+        int secondKey = 1 + (commitIndex * 7) % numTickets;
+        return switch (commitIndex % 4) {
+            case 0 -> "Modifica " + commitIndex + " senza ticket";
+            case 1 -> PROJECT_KEY + "-" + firstKey + ": modifica " + commitIndex;
+            default -> PROJECT_KEY + "-" + firstKey + ": modifica " + commitIndex
+                    + "\n\nCorregge anche " + PROJECT_KEY + "-" + secondKey;
+        };
+    }
+
+    private void createVersions(List<RevCommit> revCommits, int numVersions) throws IOException {
+        int commitsPerVersion = Math.max(1, (revCommits.size() + numVersions - 1) / numVersions);
+        try (RevWalk walk = new RevWalk(repository)) {
+            for (int i = 0; i < revCommits.size(); i++) {
+                int versionIndex = i / commitsPerVersion;
+                if (versionIndex == versions.size()) {
+                    int lastCommit = Math.min(revCommits.size(), (versionIndex + 1) * commitsPerVersion) - 1;
+                    Instant releaseTime = FIRST_COMMIT_TIME.plus(Duration.ofDays(lastCommit)).plus(Duration.ofHours(1));
+                    versions.add(new Version(versionIndex + 1, "1." + versionIndex + ".0", Date.from(releaseTime)));
+                }
+                Commit commit = new Commit(walk.parseCommit(revCommits.get(i)));
+                commit.setVersion(versions.get(versionIndex));
+                commits.add(commit);
+            }
+        }
+    }
+
+    private void computeDiffs(List<RevCommit> revCommits) throws IOException {
+        try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setRepository(repository);
+            diffFormatter.setContext(0);
+            for (int i = 0; i < revCommits.size(); i++) {
+                if (i == 0) {
+                    diffEntries.add(null);
+                    editLists.add(null);
+                    continue;
+                }
+                DiffEntry entry = diffFormatter.scan(revCommits.get(i - 1).getTree(), revCommits.get(i).getTree()).getFirst();
+                diffEntries.add(entry);
+                editLists.add(diffFormatter.toFileHeader(entry).toEditList());
+            }
+        }
+    }
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Restituisce i commit in ordine cronologico, con la versione impostata.
+     */
+    public List<Commit> getCommits() {
+        return commits;
+    }
+
+    /**
+     * Restituisce le versioni in ordine di rilascio.
+     */
+    public List<Version> getVersions() {
+        return versions;
+    }
+
+    public List<DiffEntry> getDiffEntries() {
+        return diffEntries;
+    }
+
+    public List<EditList> getEditLists() {
+        return editLists;
+    }
+
+    /**
+     * Restituisce le chiavi dei ticket che possono essere citate nei commit.
+     */
+    public List<String> getTicketKeys() {
+        List<String> keys = new ArrayList<>(numTickets);
+        for (int k = 1; k <= numTickets; k++) keys.add(PROJECT_KEY + "-" + k);
+        return keys;
+    }
+
+    @Override
+    public void close() throws IOException {
+        git.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(path);
+        }
+    }
+
+}
@@ -0,0 +1,134 @@
+package it.isw2.prediction.benchmark;
+
+import it.isw2.prediction.exception.ticket.TicketRetrievalException;
+import it.isw2.prediction.model.Commit;
+import it.isw2.prediction.model.Ticket;
+import it.isw2.prediction.repository.CommitRepository;
+import it.isw2.prediction.repository.TicketCommitIndex;
+import it.isw2.prediction.repository.TicketRepository;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collegamento tra commit e ticket con l'indice condiviso, su un indice nuovo a ogni invocazione:
+ * dai commit ai ticket citati nel messaggio e dai ticket ai commit che li citano nel titolo.
+ * I commit sono quelli del repository sintetico, i ticket sono tenuti in memoria.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TicketLinkingBenchmark {
+
+    @Param({"500"})
+    public int commits;
+
+    private SyntheticRepository repository;
+    private CommitRepository commitRepository;
+    private TicketRepository ticketRepository;
+
+    @Setup
+    public void setup() throws IOException, GitAPIException {
+        BenchmarkFixtures.quietLogging();
+        repository = new SyntheticRepository(BenchmarkFixtures.BOOKIE_SERVER, commits, 10);
+        commitRepository = new InMemoryCommitRepository(repository.getCommits());
+
+        List<Ticket> tickets = new ArrayList<>();
+        Date date = new Date(0);
+        List<String> keys = repository.getTicketKeys();
+        for (int t = 0; t < keys.size(); t++) tickets.add(new Ticket(t + 1, keys.get(t), date, date, date));
+        ticketRepository = new InMemoryTicketRepository(tickets);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        repository.close();
+    }
+
+    @Benchmark
+    public void ticketsByCommit(Blackhole blackhole) throws TicketRetrievalException {
+        TicketCommitIndex index = new TicketCommitIndex(commitRepository, ticketRepository);
+        for (Commit commit : repository.getCommits()) blackhole.consume(index.retrieveTicketsByCommit(commit));
+    }
+
+    @Benchmark
+    public void commitsByTicketKey(Blackhole blackhole) {
+        TicketCommitIndex index = new TicketCommitIndex(commitRepository, ticketRepository);
+        for (String key : repository.getTicketKeys()) blackhole.consume(index.retrieveCommitsByTicketKey(key));
+    }
+
+    private static class InMemoryCommitRepository implements CommitRepository {
+
+        private final List<Commit> commits;
+        private final Map<String, Commit> commitsById = new HashMap<>();
+
+        private InMemoryCommitRepository(List<Commit> commits) {
+            this.commits = commits;
+            for (Commit commit : commits) commitsById.put(commit.getId(), commit);
+        }
+
+        @Override
+        public List<Commit> retrieveCommits() {
+            return commits;
+        }
+
+        @Override
+        public Commit retrieveCommitById(String commitId) {
+            return commitsById.get(commitId);
+        }
+
+        @Override
+        public List<Commit> retrieveCommitsBetween(String fromCommitId, String toCommitId) {
+            return commits;
+        }
+
+        @Override
+        public Commit retriveLastCommitOfBranch(String branchName) {
+            return commits.getLast();
+        }
+
+    }
+
+    private static class InMemoryTicketRepository implements TicketRepository {
+
+        private final List<Ticket> tickets;
+        private final Map<Integer, Ticket> ticketsById = new HashMap<>();
+        private final Map<String, Ticket> ticketsByKey = new HashMap<>();
+
+        private InMemoryTicketRepository(List<Ticket> tickets) {
+            this.tickets = tickets;
+            for (Ticket ticket : tickets) {
+                ticketsById.put(ticket.getId(), ticket);
+                ticketsByKey.put(ticket.getKey(), ticket);
+            }
+        }
+
+        @Override
+        public List<Ticket> retrieveTickets() {
+            return tickets;
+        }
+
+        @Override
+        public Ticket retrieveTicketById(int ticketId) {
+            return ticketsById.get(ticketId);
+        }
+
+        @Override
+        public Ticket retrieveTicketByKey(String key) {
+            return ticketsByKey.get(key);
+        }
+
+    }
+
+}
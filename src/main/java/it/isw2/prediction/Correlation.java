@@ -1,6 +1,7 @@
 package it.isw2.prediction;
 
 import it.isw2.prediction.controller.PredictionController;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,6 +15,7 @@ public class Correlation {
 
             PredictionController controller = new PredictionController();
             controller.computeCorrelation();
+            PipelineMetrics.getInstance().exportSummary("Correlation");
 
         } catch(Exception e) {
             logger.log(Level.SEVERE, "Errore durante la predizione", e);
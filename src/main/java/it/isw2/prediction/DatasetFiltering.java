@@ -1,6 +1,7 @@
 package it.isw2.prediction;
 
 import it.isw2.prediction.controller.DatasetController;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,6 +15,7 @@ public class DatasetFiltering {
 
             DatasetController controller = new DatasetController();
             controller.filterDataset();
+            PipelineMetrics.getInstance().exportSummary("DatasetFiltering");
 
         } catch(Exception e) {
             logger.log(Level.SEVERE, "Errore durante la creazione del dataset", e);
@@ -1,6 +1,7 @@
 package it.isw2.prediction;
 
 import it.isw2.prediction.controller.PredictionController;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -14,6 +15,7 @@ public class Prediction {
 
             PredictionController controller = new PredictionController();
             controller.runPrediction();
+            PipelineMetrics.getInstance().exportSummary("Prediction");
 
         } catch(Exception e) {
             logger.log(Level.SEVERE, "Errore durante la predizione", e);
@@ -4,6 +4,10 @@ import it.isw2.prediction.config.ApplicationConfig;
 import it.isw2.prediction.dao.MethodDaoJgit;
 import it.isw2.prediction.model.Method;
 import it.isw2.prediction.model.Version;
+import it.isw2.prediction.model.metric.MetricFeature;
+import it.isw2.prediction.model.metric.MetricRegistry;
+import it.isw2.prediction.monitoring.PipelineMetrics;
+import it.isw2.prediction.utils.DecimalFormatter;
 
 import java.util.List;
 import java.util.logging.Level;
@@ -21,37 +25,29 @@ public class RefactorEvaluation {
             List<Method> methods = dao.retrieveMethods(true);
 
             String projectName = new ApplicationConfig().getSelectedProject().getKey();
+            List<MetricFeature> features = MetricRegistry.getInstance().getFeatures();
 
             for (Method method : methods) {
                 List<Version> versions = method.getVersions();
                 for (Version version : versions) {
-                    String line = projectName + SEPARATOR +
-                            method.getPackageName() + SEPARATOR +
-                            method.getClassName() + SEPARATOR +
-                            method.getMethodName() + SEPARATOR +
-                            version.getName() + SEPARATOR +
-                            method.getLOC(version) + SEPARATOR +
-                            method.getStatement(version) + SEPARATOR +
-                            method.getCyclomaticComplexity(version) + SEPARATOR +
-                            method.getCognitiveComplexity(version) + SEPARATOR +
-                            method.getMethodHistories(version) + SEPARATOR +
-                            method.getAddedLines(version) + SEPARATOR +
-                            method.getMaxAddedLines(version) + SEPARATOR +
-                            String.format("%.2f", method.getAvgAddedLines(version)) + SEPARATOR +
-                            method.getDeletedLines(version) + SEPARATOR +
-                            method.getMaxDeletedLines(version) + SEPARATOR +
-                            String.format("%.2f", method.getAvgDeletedLines(version)) + SEPARATOR +
-                            method.getChurn(version) + SEPARATOR +
-                            method.getMaxChurn(version) + SEPARATOR +
-                            String.format("%.2f", method.getAvgChurn(version)) + SEPARATOR +
-                            method.getBranchPoints(version) + SEPARATOR +
-                            method.getNestingDepth(version) + SEPARATOR +
-                            method.getParametersCount(version) + SEPARATOR +
-                            method.isBuggy(version);
-                    LOGGER.info(line);
+                    StringBuilder line = new StringBuilder()
+                            .append(projectName).append(SEPARATOR)
+                            .append(method.getPackageName()).append(SEPARATOR)
+                            .append(method.getClassName()).append(SEPARATOR)
+                            .append(method.getMethodName()).append(SEPARATOR)
+                            .append(version.getName()).append(SEPARATOR);
+                    for (MetricFeature feature : features) {
+                        // Stessa formattazione delle righe del dataset
+                        DecimalFormatter.append(line, feature.value(method, version), feature.getDecimals());
+                        line.append(SEPARATOR);
+                    }
+                    line.append(method.isBuggy(version));
+                    LOGGER.info(line.toString());
                 }
             }
 
+            PipelineMetrics.getInstance().exportSummary("RefactorEvaluation");
+
         } catch(Exception e) {
             LOGGER.log(Level.SEVERE, "Errore durante il calcolo delle metriche dopo il refactoring", e);
             System.exit(1);
@@ -140,8 +140,8 @@ public class TicketBuilder {
 
         if (versions.isEmpty()) return openingVersion;
 
-        int fixedIndex = versions.indexOf(fixedVersion);
-        int openingIndex = versions.indexOf(openingVersion);
+        int fixedIndex = versionRepository.retrieveVersionOrdinal(fixedVersion);
+        int openingIndex = versionRepository.retrieveVersionOrdinal(openingVersion);
 
         // Calcola l'indice proporzionale
         int proportionalIndex = (int) (fixedIndex - (fixedIndex - openingIndex) * proportionValue);
@@ -153,13 +153,10 @@ public class TicketBuilder {
      */
     public void updateProportionValue() {
 
-        // Se non è stata usata la proporzione, memorizza il risultato effettivo
-        List<Version> versions = versionRepository.retrieveVersions();
-
         // Calcola la proporzione effettiva
-        int fixedIndex = versions.indexOf(fixedVersion);
-        int openingIndex = versions.indexOf(openingVersion);
-        int injectedIndex = versions.indexOf(affectedVersion);
+        int fixedIndex = versionRepository.retrieveVersionOrdinal(fixedVersion);
+        int openingIndex = versionRepository.retrieveVersionOrdinal(openingVersion);
+        int injectedIndex = versionRepository.retrieveVersionOrdinal(affectedVersion);
 
         double actualProportion = fixedIndex - openingIndex > 0 ? (double) (fixedIndex - injectedIndex) / (fixedIndex - openingIndex) : 0;
 
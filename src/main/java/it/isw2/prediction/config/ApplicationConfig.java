@@ -52,6 +52,44 @@ public class ApplicationConfig {
     public boolean isMethodAllVersionEnabled() {
         return Boolean.parseBoolean(this.get("method.allVersion"));
     }
+    public int getMethodMiningThreads() {
+        int threads = Integer.parseInt(this.get("method.mining.threads"));
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+    public boolean isMethodIncrementalEnabled() {
+        return Boolean.parseBoolean(this.get("method.incremental"));
+    }
+    public boolean isMethodBlobStoreEnabled() {
+        return Boolean.parseBoolean(this.get("method.blob.store"));
+    }
+    public int getMethodParseCacheSize() {
+        return Math.max(1, Integer.parseInt(this.get("method.parse.cache.size")));
+    }
+    public List<String> getMethodMetrics() {
+        String value = this.get("method.metrics");
+        return Arrays.stream(value.split(";"))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    public int getGitWindowSize() {
+        // JGit richiede che la dimensione delle finestre sia una potenza di due
+        int size = Math.max(4096, Integer.parseInt(this.get("git.window.size")));
+        return Integer.highestOneBit(size);
+    }
+    public long getGitWindowCacheLimit() {
+        return Math.max(getGitWindowSize(), Long.parseLong(this.get("git.window.limit")));
+    }
+    public int getGitDeltaBaseCacheLimit() {
+        return Math.max(0, Integer.parseInt(this.get("git.delta.cache.limit")));
+    }
+    public int getGitStreamFileThreshold() {
+        return Math.max(0, Integer.parseInt(this.get("git.stream.threshold")));
+    }
+    public boolean isGitMmapEnabled() {
+        return Boolean.parseBoolean(this.get("git.mmap"));
+    }
 
     public double getProportionWindowSize() {
         double size = Double.parseDouble(this.get("ticket.proportion.window.size"));
@@ -87,6 +125,16 @@ public class ApplicationConfig {
         return Integer.parseInt(this.get("prediction.validation.feature.info-gain.features"));
     }
 
+    public int getValidationParallelism() {
+        int parallelism = Integer.parseInt(this.get("prediction.validation.parallelism"));
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+    public boolean isValidationIncrementalEnabled() {
+        return Boolean.parseBoolean(this.get("prediction.validation.incremental"));
+    }
+    public boolean isFeatureSelectionCacheEnabled() {
+        return Boolean.parseBoolean(this.get("prediction.feature.selection.cache"));
+    }
     public FeatureSelection getInferenceFeatureSelectionMethod() {
         return FeatureSelection.getByConfig(this.get("prediction.inference.feature.selection.method"));
     }
@@ -96,5 +144,26 @@ public class ApplicationConfig {
     public String getInferenceActionableFeature() {
         return this.get("prediction.inference.actionable.feature");
     }
+    public int getInferenceParallelism() {
+        int parallelism = Integer.parseInt(this.get("prediction.inference.parallelism"));
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+    public String getInferenceWhatIfScenarios() {
+        return this.get("prediction.inference.whatif.scenarios");
+    }
+    public int getInferenceBlockSize() {
+        return Math.max(1, Integer.parseInt(this.get("prediction.inference.block.size")));
+    }
+
+    public boolean isCorrelationKendallEnabled() {
+        return Boolean.parseBoolean(this.get("prediction.correlation.kendall"));
+    }
+    public boolean isCorrelationMatrixEnabled() {
+        return Boolean.parseBoolean(this.get("prediction.correlation.matrix"));
+    }
+
+    public boolean isMetricsEnabled() {
+        return Boolean.parseBoolean(this.get("metrics.enabled"));
+    }
 
 }
@@ -0,0 +1,239 @@
+package it.isw2.prediction.controller;
+
+import it.isw2.prediction.monitoring.PipelineMetrics;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Predizione a blocchi di un dataset con un classificatore già addestrato.
+ * Le istanze sono divise in blocchi contigui classificati in parallelo; ogni blocco usa una copia
+ * del modello presa in prestito da un insieme condiviso, per cui nessuna copia è usata da due thread
+ * contemporaneamente. I risultati vengono consegnati al consumatore nell'ordine delle istanze
+ * man mano che i blocchi terminano, con al più un numero limitato di blocchi in attesa.
+ * <p>
+ * Lo stesso predittore può servire più dataset contemporaneamente.
+ */
+public class BatchPredictor implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchPredictor.class.getName());
+
+    // Blocchi in esecuzione o in attesa di essere consegnati, per thread del pool
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private final Classifier model;
+    private final int blockSize;
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final ConcurrentLinkedQueue<Classifier> modelCopies = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Consumatore delle predizioni di un blocco, invocato in ordine e da un solo thread alla volta.
+     */
+    @FunctionalInterface
+    public interface BlockConsumer {
+        /**
+         * @param firstInstance l'indice della prima istanza del blocco nel dataset
+         * @param predictions   le classi predette per le istanze del blocco
+         */
+        void accept(int firstInstance, double[] predictions) throws Exception;
+    }
+
+    /**
+     * Consumatore delle predizioni di un blocco negli scenari, invocato in ordine e da un solo thread alla volta.
+     */
+    @FunctionalInterface
+    public interface ScenarioConsumer {
+        /**
+         * @param firstInstance l'indice della prima istanza del blocco nel dataset
+         * @param predictions   le classi predette: in posizione 0 quelle di base, in posizione s + 1 quelle dello scenario s
+         * @param changed       per ogni scenario, se l'istanza è stata modificata dallo scenario
+         */
+        void accept(int firstInstance, double[][] predictions, boolean[][] changed) throws Exception;
+    }
+
+    /**
+     * @param model       il classificatore addestrato, che non viene usato direttamente per la predizione
+     * @param parallelism il numero di thread
+     * @param blockSize   il numero di istanze di ciascun blocco
+     */
+    public BatchPredictor(Classifier model, int parallelism, int blockSize) {
+        this.model = model;
+        this.parallelism = parallelism;
+        this.blockSize = Math.max(1, blockSize);
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Classifica tutte le istanze della vista e consegna le predizioni in ordine, blocco per blocco.
+     * Gli indici passati al consumatore sono quelli delle istanze nella vista.
+     *
+     * @param data     la vista da classificare, su un dataset con l'indice di classe impostato
+     * @param name     il nome del dataset, usato nei log
+     * @param consumer il consumatore delle predizioni
+     * @throws Exception se la classificazione o il consumatore falliscono
+     */
+    public void predict(InstancesView data, String name, BlockConsumer consumer) throws Exception {
+        runBlocks(data.size(), name, (copy, from, to, latencies) -> {
+            double[] predictions = new double[to - from];
+            for (int i = from; i < to; i++) {
+                long instanceStart = System.nanoTime();
+                predictions[i - from] = copy.classifyInstance(data.instance(i));
+                latencies[i - from] = System.nanoTime() - instanceStart;
+            }
+            return predictions;
+        }, consumer::accept);
+    }
+
+    /**
+     * Classifica le istanze del dataset in ciascuno scenario con una sola passata:
+     * per ogni istanza calcola la predizione di base e quella di ogni scenario, riusando la predizione
+     * di base quando lo scenario non modifica l'istanza.
+     *
+     * @param data      il dataset da classificare, con l'indice di classe impostato
+     * @param scenarios gli scenari da valutare, risolti sugli attributi del dataset
+     * @param name      il nome del dataset, usato nei log
+     * @param consumer  il consumatore delle predizioni
+     * @throws Exception se la classificazione o il consumatore falliscono
+     */
+    public void predictScenarios(Instances data, List<WhatIfScenario> scenarios, String name, ScenarioConsumer consumer) throws Exception {
+        runBlocks(data.numInstances(), name, (copy, from, to, latencies) -> {
+            // predictions[0] contiene le predizioni di base, predictions[s + 1] quelle dello scenario s
+            double[][] predictions = new double[scenarios.size() + 1][to - from];
+            boolean[][] changed = new boolean[scenarios.size()][to - from];
+            double[] values = new double[data.numAttributes()];
+            for (int i = from; i < to; i++) {
+                long instanceStart = System.nanoTime();
+                Instance instance = data.instance(i);
+                double baseline = copy.classifyInstance(instance);
+                predictions[0][i - from] = baseline;
+                double[] baseValues = instance.toDoubleArray();
+
+                for (int s = 0; s < scenarios.size(); s++) {
+                    System.arraycopy(baseValues, 0, values, 0, values.length);
+                    boolean modified = scenarios.get(s).apply(values);
+                    changed[s][i - from] = modified;
+                    if (!modified) {
+                        predictions[s + 1][i - from] = baseline;
+                        continue;
+                    }
+                    // DenseInstance usa direttamente l'array, che viene riscritto per lo scenario successivo
+                    Instance scenarioInstance = new DenseInstance(instance.weight(), values);
+                    scenarioInstance.setDataset(data);
+                    predictions[s + 1][i - from] = copy.classifyInstance(scenarioInstance);
+                }
+                latencies[i - from] = System.nanoTime() - instanceStart;
+            }
+            return new ScenarioBlock(predictions, changed);
+        }, (firstInstance, block) -> consumer.accept(firstInstance, block.predictions(), block.changed()));
+    }
+
+    /**
+     * Divide le istanze in blocchi, li esegue sul pool e ne consegna i risultati in ordine.
+     */
+    private <T> void runBlocks(int numInstances, String name, BlockTask<T> task, BlockSink<T> sink) throws Exception {
+        int numBlocks = (numInstances + blockSize - 1) / blockSize;
+        long[] allLatencies = new long[numInstances];
+        long start = System.nanoTime();
+        PipelineMetrics metrics = PipelineMetrics.getInstance();
+
+        try (var _ = metrics.stage("inference.scoring")) {
+            Deque<ForkJoinTask<BlockResult<T>>> inFlight = new ArrayDeque<>();
+            int nextBlock = 0;
+            int deliveredBlocks = 0;
+            while (deliveredBlocks < numBlocks) {
+                while (nextBlock < numBlocks && inFlight.size() < parallelism * BLOCKS_IN_FLIGHT_PER_THREAD) {
+                    int from = nextBlock * blockSize;
+                    int to = Math.min(from + blockSize, numInstances);
+                    inFlight.addLast(pool.submit(() -> runBlock(task, from, to)));
+                    nextBlock++;
+                }
+
+                BlockResult<T> result = await(inFlight.removeFirst());
+                int from = deliveredBlocks * blockSize;
+                sink.accept(from, result.value());
+                System.arraycopy(result.latencies(), 0, allLatencies, from, result.latencies().length);
+                deliveredBlocks++;
+
+                long[] latencies = result.latencies().clone();
+                Arrays.sort(latencies);
+                LOGGER.log(Level.INFO, "Predizione {0}, blocco {1}/{2}: latenza p50 {3} us, p90 {4} us, p99 {5} us", new Object[]{
+                        name, deliveredBlocks, numBlocks,
+                        percentileMicros(latencies, 0.50), percentileMicros(latencies, 0.90), percentileMicros(latencies, 0.99)});
+            }
+        }
+        metrics.count("inference.instances", numInstances);
+        metrics.count("inference.blocks", numBlocks);
+
+        Arrays.sort(allLatencies);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        LOGGER.log(Level.INFO, "Predizione {0}: {1} istanze in {2} blocchi, {3} ms, latenza p50 {4} us, p90 {5} us, p99 {6} us, max {7} us", new Object[]{
+                name, numInstances, numBlocks, elapsedMillis,
+                percentileMicros(allLatencies, 0.50), percentileMicros(allLatencies, 0.90),
+                percentileMicros(allLatencies, 0.99), percentileMicros(allLatencies, 1.0)});
+    }
+
+    private <T> BlockResult<T> runBlock(BlockTask<T> task, int from, int to) throws Exception {
+        Classifier copy = modelCopies.poll();
+        if (copy == null) copy = AbstractClassifier.makeCopy(model);
+        try {
+            long[] latencies = new long[to - from];
+            return new BlockResult<>(task.run(copy, from, to, latencies), latencies);
+        } finally {
+            modelCopies.add(copy);
+        }
+    }
+
+    private static <T> BlockResult<T> await(ForkJoinTask<BlockResult<T>> task) throws Exception {
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Restituisce il percentile (nearest-rank) delle latenze ordinate, in microsecondi.
+     */
+    private static long percentileMicros(long[] sortedLatencies, double percentile) {
+        if (sortedLatencies.length == 0) return 0;
+        int rank = (int) Math.ceil(percentile * sortedLatencies.length);
+        return sortedLatencies[Math.clamp(rank - 1, 0, sortedLatencies.length - 1)] / 1_000;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    // Lavoro su un blocco di istanze [from, to) con una copia del modello, che registra la latenza di ogni istanza
+    @FunctionalInterface
+    private interface BlockTask<T> {
+        T run(Classifier copy, int from, int to, long[] latencies) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface BlockSink<T> {
+        void accept(int firstInstance, T value) throws Exception;
+    }
+
+    private record BlockResult<T>(T value, long[] latencies) {}
+
+    private record ScenarioBlock(double[][] predictions, boolean[][] changed) {}
+
+}
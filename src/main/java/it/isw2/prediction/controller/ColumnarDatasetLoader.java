@@ -0,0 +1,103 @@
+package it.isw2.prediction.controller;
+
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Carica in Instances un dataset scritto da {@link ColumnarDatasetWriter}.
+ * Il file viene mappato in memoria e le colonne lette direttamente dal buffer,
+ * senza tokenizzare testo né applicare il filtro StringToNominal.
+ */
+public class ColumnarDatasetLoader {
+
+    private static final Logger LOGGER = Logger.getLogger(ColumnarDatasetLoader.class.getName());
+
+    private ColumnarDatasetLoader() {}
+
+    /**
+     * Carica il dataset binario.
+     *
+     * @param path         il percorso del file binario
+     * @param relationName il nome della relazione delle Instances
+     * @return le Instances del dataset, senza indice di classe impostato
+     * @throws IOException se il file non è leggibile o non è nel formato atteso
+     */
+    public static Instances load(Path path, String relationName) throws IOException {
+        long start = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != ColumnarDatasetWriter.MAGIC) throw new IOException("File non riconosciuto: " + path);
+            int version = buffer.getInt();
+            if (version != ColumnarDatasetWriter.FORMAT_VERSION) throw new IOException("Versione del formato non supportata: " + version);
+            int numRows = buffer.getInt();
+            int numColumns = buffer.getInt();
+
+            ArrayList<Attribute> attributes = new ArrayList<>(numColumns);
+            boolean[] nominal = new boolean[numColumns];
+            for (int c = 0; c < numColumns; c++) {
+                String name = readString(buffer);
+                nominal[c] = buffer.get() == ColumnarDatasetWriter.NOMINAL;
+                if (!nominal[c]) {
+                    attributes.add(new Attribute(name));
+                    continue;
+                }
+                int dictionarySize = buffer.getInt();
+                List<String> values = new ArrayList<>(dictionarySize);
+                for (int i = 0; i < dictionarySize; i++) values.add(readString(buffer));
+                attributes.add(new Attribute(name, values));
+            }
+
+            // Le colonne sono memorizzate una dopo l'altra: ricavo l'offset di ciascuna
+            int[] offsets = new int[numColumns];
+            int offset = buffer.position();
+            for (int c = 0; c < numColumns; c++) {
+                offsets[c] = offset;
+                offset += numRows * (nominal[c] ? Integer.BYTES : Double.BYTES);
+            }
+
+            Instances data = new Instances(relationName, attributes, numRows);
+            for (int r = 0; r < numRows; r++) {
+                double[] values = new double[numColumns];
+                for (int c = 0; c < numColumns; c++) {
+                    if (nominal[c]) {
+                        int code = buffer.getInt(offsets[c] + r * Integer.BYTES);
+                        values[c] = code < 0 ? Utils.missingValue() : code;
+                    } else {
+                        values[c] = buffer.getDouble(offsets[c] + r * Double.BYTES);
+                    }
+                }
+                data.add(new DenseInstance(1.0, values));
+            }
+
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            LOGGER.log(Level.INFO, "Dataset binario caricato: {0} ({1} righe, {2} ms)", new Object[]{path, numRows, elapsedMillis});
+            return data;
+        }
+    }
+
+    /**
+     * Legge una stringa scritta come lunghezza in byte seguita dalla codifica UTF-8.
+     */
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,135 @@
+package it.isw2.prediction.controller;
+
+import it.isw2.prediction.utils.AtomicFiles;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Scrive il dataset in un formato binario colonnare, affiancato al CSV.
+ * Le colonne numeriche sono salvate come double primitivi, le altre (progetto, package, classe,
+ * metodo, versione, buggy) con un dizionario dei valori e un codice intero per riga.
+ * Il tipo delle colonne e l'ordine dei valori nominali seguono le regole del CSVLoader di Weka
+ * (numerica se tutti i valori sono numeri, valori nominali in ordine di prima occorrenza),
+ * così il file caricato con {@link ColumnarDatasetLoader} produce le stesse Instances del CSV.
+ * <p>
+ * Struttura del file: intestazione (magic, versione, righe, colonne), per ogni colonna
+ * nome, tipo ed eventuale dizionario, quindi i dati colonna per colonna.
+ */
+public class ColumnarDatasetWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(ColumnarDatasetWriter.class.getName());
+
+    static final int MAGIC = 0x49535744; // "ISWD"
+    static final int FORMAT_VERSION = 1;
+    static final byte NUMERIC = 0;
+    static final byte NOMINAL = 1;
+    static final String MISSING_VALUE = "?";
+
+    private ColumnarDatasetWriter() {}
+
+    /**
+     * Scrive il dataset nel formato binario colonnare.
+     *
+     * @param path   il percorso del file binario
+     * @param header i nomi delle colonne
+     * @param rows   le righe del dataset, con i valori in formato testuale come nel CSV
+     * @throws IOException se non è possibile scrivere il file
+     */
+    public static void write(Path path, String[] header, List<String[]> rows) throws IOException {
+        long start = System.nanoTime();
+        AtomicFiles.write(path, tmpFile -> writeContent(tmpFile, header, rows));
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        LOGGER.log(Level.INFO, "Dataset binario creato: {0} ({1} righe, {2} colonne, {3} ms)",
+                new Object[]{path, rows.size(), header.length, elapsedMillis});
+    }
+
+    private static void writeContent(Path tmpFile, String[] header, List<String[]> rows) throws IOException {
+        int numColumns = header.length;
+        int numRows = rows.size();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(numRows);
+            out.writeInt(numColumns);
+
+            // Per ogni colonna determino il tipo e, se nominale, il dizionario dei valori
+            List<double[]> numericColumns = new ArrayList<>(numColumns);
+            List<int[]> nominalColumns = new ArrayList<>(numColumns);
+            for (int c = 0; c < numColumns; c++) {
+                double[] numeric = parseNumericColumn(rows, c);
+                numericColumns.add(numeric);
+                nominalColumns.add(null);
+
+                writeString(out, header[c]);
+                if (numeric != null) {
+                    out.writeByte(NUMERIC);
+                    continue;
+                }
+
+                Map<String, Integer> dictionary = new LinkedHashMap<>();
+                int[] codes = new int[numRows];
+                for (int r = 0; r < numRows; r++) {
+                    String value = rows.get(r)[c];
+                    codes[r] = MISSING_VALUE.equals(value) ? -1 : dictionary.computeIfAbsent(value, _ -> dictionary.size());
+                }
+                nominalColumns.set(c, codes);
+
+                out.writeByte(NOMINAL);
+                out.writeInt(dictionary.size());
+                for (String value : dictionary.keySet()) writeString(out, value);
+            }
+
+            // Dati colonna per colonna
+            for (int c = 0; c < numColumns; c++) {
+                if (numericColumns.get(c) != null) {
+                    for (double value : numericColumns.get(c)) out.writeDouble(value);
+                } else {
+                    for (int code : nominalColumns.get(c)) out.writeInt(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scrive una stringa come lunghezza in byte seguita dalla codifica UTF-8.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Converte la colonna in double, o restituisce null se almeno un valore non è numerico.
+     */
+    private static double[] parseNumericColumn(List<String[]> rows, int column) {
+        double[] values = new double[rows.size()];
+        for (int r = 0; r < rows.size(); r++) {
+            String value = rows.get(r)[column];
+            if (MISSING_VALUE.equals(value)) {
+                values[r] = Double.NaN;
+                continue;
+            }
+            try {
+                values[r] = Double.parseDouble(value);
+            } catch (NumberFormatException _) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,241 @@
+package it.isw2.prediction.controller;
+
+import org.apache.commons.math3.stat.correlation.KendallsCorrelation;
+import org.apache.commons.math3.stat.ranking.NaturalRanking;
+import org.apache.commons.math3.stat.ranking.TiesStrategy;
+import weka.core.Attribute;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.stream.IntStream;
+
+/**
+ * Calcolo delle correlazioni tra gli attributi di un dataset e la classe, o tra coppie di attributi.
+ * Il dataset viene copiato una sola volta in una matrice di double per colonne; per ogni colonna
+ * vengono calcolati una sola volta i valori centrati, i ranghi e le relative norme, per cui ogni
+ * correlazione si riduce a un prodotto scalare. Le correlazioni dei diversi attributi sono calcolate in parallelo.
+ * <p>
+ * La correlazione di Pearson con la classe segue la definizione di CorrelationAttributeEval di Weka:
+ * con classe nominale è la media, pesata sulle frequenze delle classi, del valore assoluto della correlazione
+ * con l'indicatore di ciascuna classe; gli attributi nominali sono trattati allo stesso modo, valore per valore.
+ * I valori mancanti sono sostituiti dalla media (attributi numerici) o dalla moda (attributi nominali).
+ * La correlazione di Spearman è quella di Pearson sui ranghi, con ranghi medi in caso di pari merito,
+ * calcolata sui valori grezzi degli attributi (l'indice del valore per gli attributi nominali).
+ */
+public class CorrelationEngine {
+
+    private final Instances data;
+    private final int numInstances;
+    private final int classIndex;
+
+    // Matrice per colonne: columns[a][i] è il valore dell'attributo a nell'istanza i
+    private final double[][] columns;
+    private final double[][] centered;
+    private final double[] norms;
+    private final double[][] centeredRanks;
+    private final double[] rankNorms;
+
+    /**
+     * Copia il dataset in colonne e prepara valori centrati e ranghi.
+     *
+     * @param data il dataset, con l'indice di classe impostato
+     */
+    public CorrelationEngine(Instances data) {
+        this.data = data;
+        this.numInstances = data.numInstances();
+        this.classIndex = data.classIndex();
+        int numAttributes = data.numAttributes();
+
+        columns = new double[numAttributes][numInstances];
+        for (int i = 0; i < numInstances; i++) {
+            Instance instance = data.instance(i);
+            for (int a = 0; a < numAttributes; a++) columns[a][i] = instance.value(a);
+        }
+        IntStream.range(0, numAttributes).parallel().forEach(this::replaceMissingValues);
+
+        centered = new double[numAttributes][];
+        norms = new double[numAttributes];
+        centeredRanks = new double[numAttributes][];
+        rankNorms = new double[numAttributes];
+        IntStream.range(0, numAttributes).parallel().forEach(a -> {
+            centered[a] = center(columns[a]);
+            norms[a] = norm(centered[a]);
+            centeredRanks[a] = center(new NaturalRanking(TiesStrategy.AVERAGE).rank(columns[a]));
+            rankNorms[a] = norm(centeredRanks[a]);
+        });
+    }
+
+    /**
+     * Restituisce la correlazione di Pearson di ogni attributo con la classe, come CorrelationAttributeEval.
+     * L'elemento della classe vale NaN.
+     */
+    public double[] pearsonWithClass() {
+        Attribute classAttribute = data.classAttribute();
+
+        // Colonne bersaglio: la classe se numerica, altrimenti l'indicatore di ciascuna classe pesato per la sua frequenza
+        double[][] targets;
+        double[] targetWeights;
+        if (classAttribute.isNominal()) {
+            int numClasses = classAttribute.numValues();
+            targets = new double[numClasses][numInstances];
+            targetWeights = new double[numClasses];
+            for (int i = 0; i < numInstances; i++) {
+                int classValue = (int) columns[classIndex][i];
+                targets[classValue][i] = 1;
+                targetWeights[classValue]++;
+            }
+            for (int c = 0; c < numClasses; c++) {
+                targetWeights[c] /= numInstances;
+                targets[c] = center(targets[c]);
+            }
+        } else {
+            targets = new double[][]{centered[classIndex]};
+            targetWeights = new double[]{1};
+        }
+        double[] targetNorms = new double[targets.length];
+        for (int t = 0; t < targets.length; t++) targetNorms[t] = norm(targets[t]);
+
+        double[] correlations = new double[data.numAttributes()];
+        IntStream.range(0, data.numAttributes()).parallel().forEach(a -> {
+            if (a == classIndex) {
+                correlations[a] = Double.NaN;
+                return;
+            }
+            double correlation = 0;
+            for (int t = 0; t < targets.length; t++) {
+                double perTarget = data.attribute(a).isNominal()
+                        ? nominalCorrelation(a, targets[t], targetNorms[t])
+                        : Math.abs(correlation(centered[a], norms[a], targets[t], targetNorms[t]));
+                correlation += targetWeights[t] * perTarget;
+            }
+            correlations[a] = correlation;
+        });
+        return correlations;
+    }
+
+    /**
+     * Restituisce la correlazione di Spearman di ogni attributo con la classe. L'elemento della classe vale NaN.
+     */
+    public double[] spearmanWithClass() {
+        double[] correlations = new double[data.numAttributes()];
+        IntStream.range(0, data.numAttributes()).parallel().forEach(a ->
+                correlations[a] = a == classIndex ? Double.NaN : spearman(a, classIndex));
+        return correlations;
+    }
+
+    /**
+     * Restituisce la correlazione tau-b di Kendall di ogni attributo con la classe. L'elemento della classe vale NaN.
+     */
+    public double[] kendallWithClass() {
+        double[] correlations = new double[data.numAttributes()];
+        IntStream.range(0, data.numAttributes()).parallel().forEach(a ->
+                correlations[a] = a == classIndex ? Double.NaN : new KendallsCorrelation().correlation(columns[a], columns[classIndex]));
+        return correlations;
+    }
+
+    /**
+     * Restituisce la matrice delle correlazioni di Pearson tra gli attributi indicati.
+     */
+    public double[][] pearsonMatrix(int[] attributes) {
+        return matrix(attributes, false);
+    }
+
+    /**
+     * Restituisce la matrice delle correlazioni di Spearman tra gli attributi indicati.
+     */
+    public double[][] spearmanMatrix(int[] attributes) {
+        return matrix(attributes, true);
+    }
+
+    public double pearson(int first, int second) {
+        return correlation(centered[first], norms[first], centered[second], norms[second]);
+    }
+
+    public double spearman(int first, int second) {
+        return correlation(centeredRanks[first], rankNorms[first], centeredRanks[second], rankNorms[second]);
+    }
+
+    private double[][] matrix(int[] attributes, boolean ranked) {
+        double[][] matrix = new double[attributes.length][attributes.length];
+        IntStream.range(0, attributes.length).parallel().forEach(r -> {
+            for (int c = r; c < attributes.length; c++) {
+                double value = ranked ? spearman(attributes[r], attributes[c]) : pearson(attributes[r], attributes[c]);
+                matrix[r][c] = value;
+                matrix[c][r] = value;
+            }
+        });
+        return matrix;
+    }
+
+    /**
+     * Correlazione di un attributo nominale con una colonna bersaglio centrata: media, pesata sulle frequenze
+     * dei valori, del valore assoluto della correlazione tra l'indicatore di ciascun valore e il bersaglio.
+     * Somme e conteggi per valore sono raccolti con una sola passata sulle istanze.
+     */
+    private double nominalCorrelation(int attribute, double[] target, double targetNorm) {
+        int numValues = data.attribute(attribute).numValues();
+        double[] counts = new double[numValues];
+        double[] targetSums = new double[numValues];
+        for (int i = 0; i < numInstances; i++) {
+            int value = (int) columns[attribute][i];
+            counts[value]++;
+            targetSums[value] += target[i];
+        }
+
+        double correlation = 0;
+        for (int v = 0; v < numValues; v++) {
+            double count = counts[v];
+            // L'indicatore di un valore assente o sempre presente è costante e non è correlato
+            if (count == 0 || count == numInstances) continue;
+            // Il bersaglio è centrato, per cui la covarianza con l'indicatore è la somma del bersaglio sulle istanze del valore
+            double indicatorNorm = Math.sqrt(count * (1 - count / numInstances));
+            double valueCorrelation = targetNorm > 0 ? targetSums[v] / (indicatorNorm * targetNorm) : 0;
+            correlation += count / numInstances * Math.abs(valueCorrelation);
+        }
+        return correlation;
+    }
+
+    private static double correlation(double[] first, double firstNorm, double[] second, double secondNorm) {
+        double dot = 0;
+        for (int i = 0; i < first.length; i++) dot += first[i] * second[i];
+        return dot / (firstNorm * secondNorm);
+    }
+
+    private void replaceMissingValues(int attribute) {
+        double[] column = columns[attribute];
+        double replacement;
+        if (data.attribute(attribute).isNominal()) {
+            double[] counts = new double[data.attribute(attribute).numValues()];
+            for (double value : column) if (!Double.isNaN(value)) counts[(int) value]++;
+            int mode = 0;
+            for (int v = 1; v < counts.length; v++) if (counts[v] > counts[mode]) mode = v;
+            replacement = mode;
+        } else {
+            double sum = 0;
+            int count = 0;
+            for (double value : column) {
+                if (Double.isNaN(value)) continue;
+                sum += value;
+                count++;
+            }
+            replacement = count > 0 ? sum / count : 0;
+        }
+        for (int i = 0; i < column.length; i++) if (Double.isNaN(column[i])) column[i] = replacement;
+    }
+
+    private static double[] center(double[] values) {
+        double mean = 0;
+        for (double value : values) mean += value;
+        mean /= values.length;
+        double[] centeredValues = new double[values.length];
+        for (int i = 0; i < values.length; i++) centeredValues[i] = values[i] - mean;
+        return centeredValues;
+    }
+
+    private static double norm(double[] values) {
+        double sum = 0;
+        for (double value : values) sum += value * value;
+        return Math.sqrt(sum);
+    }
+
+}
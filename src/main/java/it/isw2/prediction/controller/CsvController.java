@@ -1,8 +1,9 @@
 package it.isw2.prediction.controller;
 
+import it.isw2.prediction.monitoring.PipelineMetrics;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -26,11 +27,12 @@ public abstract class CsvController {
             System.exit(1);
         }
 
-        try (FileWriter csvWriter = new FileWriter(csvFilePath)) {
+        try (var _ = PipelineMetrics.getInstance().stage("csv.write");
+             CsvRowWriter csvWriter = new CsvRowWriter(Paths.get(csvFilePath), ";")) {
             // Intestazione CSV
-            csvWriter.append(header).append("\n");
+            csvWriter.writeLine(header);
             // Scrivere i dati per ogni metodo
-            for (String line : lines) csvWriter.append(line).append("\n");
+            for (String line : lines) csvWriter.writeLine(line);
 
             LOGGER.log(Level.INFO, "File CSV creato con successo: {0}", csvFilePath);
         } catch (IOException e) {
@@ -40,12 +42,14 @@ public abstract class CsvController {
 
     public List<String[]> readCsvFile(String csvFilePath, String separator) throws IOException {
         List<String[]> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFilePath))) {
+        try (var _ = PipelineMetrics.getInstance().stage("csv.read");
+             BufferedReader br = new BufferedReader(new FileReader(csvFilePath))) {
             String line;
             while ((line = br.readLine()) != null) {
                 lines.add(line.split(separator, -1));
             }
         }
+        PipelineMetrics.getInstance().count("csv.rows-read", lines.size());
         return lines;
     }
 
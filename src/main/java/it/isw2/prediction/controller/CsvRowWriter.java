@@ -0,0 +1,151 @@
+package it.isw2.prediction.controller;
+
+import it.isw2.prediction.monitoring.PipelineMetrics;
+import it.isw2.prediction.utils.DecimalFormatter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Scrittore di file CSV riga per riga su un canale NIO bufferizzato.
+ * Le righe vengono costruite in un unico StringBuilder riutilizzato e codificate direttamente
+ * nel buffer, per cui il file non viene mai mantenuto interamente in memoria.
+ * I numeri decimali sono formattati da {@link DecimalFormatter}, con il punto come separatore indipendentemente dal locale.
+ */
+public class CsvRowWriter implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(CsvRowWriter.class.getName());
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final String separator;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder row = new StringBuilder(256);
+
+    private boolean firstField = true;
+    private long rowsWritten = 0;
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Apre il file in scrittura, creando le directory mancanti e sovrascrivendo il contenuto esistente.
+     *
+     * @param path      il percorso del file CSV
+     * @param separator il separatore dei campi
+     * @throws IOException se non è possibile aprire il file
+     */
+    public CsvRowWriter(Path path, String separator) throws IOException {
+        this.path = path;
+        this.separator = separator;
+        Path parentDir = path.getParent();
+        if (parentDir != null) Files.createDirectories(parentDir);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Scrive una riga già formattata, ad esempio l'intestazione.
+     */
+    public void writeLine(String line) throws IOException {
+        row.append(line);
+        endRow();
+    }
+
+    public CsvRowWriter field(String value) {
+        nextField();
+        row.append(value);
+        return this;
+    }
+
+    public CsvRowWriter field(int value) {
+        nextField();
+        row.append(value);
+        return this;
+    }
+
+    public CsvRowWriter field(long value) {
+        nextField();
+        row.append(value);
+        return this;
+    }
+
+    public CsvRowWriter field(boolean value) {
+        nextField();
+        row.append(value);
+        return this;
+    }
+
+    /**
+     * Aggiunge un numero decimale con il numero di cifre indicato, arrotondato half-up come String.format,
+     * cioè sulla rappresentazione decimale più breve del double e non sul suo valore binario.
+     */
+    public CsvRowWriter field(double value, int decimals) {
+        nextField();
+        DecimalFormatter.append(row, value, decimals);
+        return this;
+    }
+
+    /**
+     * Termina la riga corrente e la codifica nel buffer, svuotandolo sul canale quando è pieno.
+     */
+    public void endRow() throws IOException {
+        row.append('\n');
+        CharBuffer chars = CharBuffer.wrap(row);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) drain();
+            else if (result.isUnderflow()) break;
+            else result.throwException();
+        }
+        row.setLength(0);
+        firstField = true;
+        rowsWritten++;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+
+        long elapsed = System.nanoTime() - startNanos;
+        PipelineMetrics.getInstance().count("csv.rows-written", rowsWritten);
+        PipelineMetrics.getInstance().count("csv.write-time.ms", elapsed / 1_000_000);
+
+        double seconds = elapsed / 1e9;
+        LOGGER.log(Level.INFO, "Scritte {0} righe in {1} ({2} righe/s)", new Object[]{
+                rowsWritten, path, seconds > 0 ? Math.round(rowsWritten / seconds) : rowsWritten});
+    }
+
+    private void nextField() {
+        if (!firstField) row.append(separator);
+        firstField = false;
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+}
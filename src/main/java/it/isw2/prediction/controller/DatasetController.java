@@ -6,6 +6,9 @@ import it.isw2.prediction.factory.MethodRepositoryFactory;
 import it.isw2.prediction.factory.VersionRepositoryFactory;
 import it.isw2.prediction.model.Method;
 import it.isw2.prediction.model.Version;
+import it.isw2.prediction.model.metric.MetricFeature;
+import it.isw2.prediction.model.metric.MetricRegistry;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 import it.isw2.prediction.repository.MethodRepository;
 import it.isw2.prediction.repository.VersionRepository;
 
@@ -26,77 +29,50 @@ public class DatasetController extends CsvController {
     private final String projectName;
     private final String datasetPath;
     private final String filteredDatasetPath;
+    private final String filteredBinaryDatasetPath;
 
     public DatasetController() {
         ApplicationConfig config = new ApplicationConfig();
         this.projectName = config.getSelectedProject().getKey();
         this.datasetPath = Paths.get(config.getDatasetPath(), projectName + ".csv").toString();
         this.filteredDatasetPath = Paths.get(config.getDatasetPath(), projectName + "_filtered.csv").toString();
+        this.filteredBinaryDatasetPath = Paths.get(config.getDatasetPath(), projectName + "_filtered.bin").toString();
     }
 
     public void createDataset() {
         try {
             MethodRepository methodRepository = MethodRepositoryFactory.getInstance().getMethodRepository();
-            List<Method> methods = methodRepository.retrieveMethods();
-
-            String header = String.join(SEPARATOR,
-                    "Project",
-                    "Package",
-                    "Class",
-                    "Method",
-                    "Version",
-                    "LOC",
-                    "Statement",
-                    "Cyclomatic",
-                    "Cognitive",
-                    "MethodHistories",
-                    "AddedLines",
-                    "MaxAddedLines",
-                    "AvgAddedLines",
-                    "DeletedLines",
-                    "MaxDeletedLines",
-                    "AvgDeletedLines",
-                    "Churn",
-                    "MaxChurn",
-                    "AvgChurn",
-                    "BranchPoints",
-                    "NestingDepth",
-                    "ParametersCount",
-                    "Buggy"
-            );
-            List<String> lines = new ArrayList<>();
-
-            for (Method method : methods) {
-                List<Version> versions = method.getVersions();
-                for (Version version : versions) {
-                    String line = projectName + SEPARATOR +
-                            method.getPackageName() + SEPARATOR +
-                            method.getClassName() + SEPARATOR +
-                            method.getMethodName() + SEPARATOR +
-                            version.getName() + SEPARATOR +
-                            method.getLOC(version) + SEPARATOR +
-                            method.getStatement(version) + SEPARATOR +
-                            method.getCyclomaticComplexity(version) + SEPARATOR +
-                            method.getCognitiveComplexity(version) + SEPARATOR +
-                            method.getMethodHistories(version) + SEPARATOR +
-                            method.getAddedLines(version) + SEPARATOR +
-                            method.getMaxAddedLines(version) + SEPARATOR +
-                            String.format("%.2f", method.getAvgAddedLines(version)) + SEPARATOR +
-                            method.getDeletedLines(version) + SEPARATOR +
-                            method.getMaxDeletedLines(version) + SEPARATOR +
-                            String.format("%.2f", method.getAvgDeletedLines(version)) + SEPARATOR +
-                            method.getChurn(version) + SEPARATOR +
-                            method.getMaxChurn(version) + SEPARATOR +
-                            String.format("%.2f", method.getAvgChurn(version)) + SEPARATOR +
-                            method.getBranchPoints(version) + SEPARATOR +
-                            method.getNestingDepth(version) + SEPARATOR +
-                            method.getParametersCount(version) + SEPARATOR +
-                            method.isBuggy(version);
-                    lines.add(line);
+            List<Method> methods;
+            try (var _ = PipelineMetrics.getInstance().stage("dataset.methods")) {
+                methods = methodRepository.retrieveMethods();
+            }
+            PipelineMetrics.getInstance().count("dataset.methods", methods.size());
+
+            // Le colonne delle feature sono quelle delle metriche abilitate nel registro
+            List<MetricFeature> features = MetricRegistry.getInstance().getFeatures();
+            List<String> columns = new ArrayList<>(List.of("Project", "Package", "Class", "Method", "Version"));
+            for (MetricFeature feature : features) columns.add(feature.getName());
+            columns.add("Buggy");
+            String header = String.join(SEPARATOR, columns);
+
+            // Le righe vengono scritte man mano che scorro i metodi, senza accumularle in memoria
+            try (var _ = PipelineMetrics.getInstance().stage("dataset.write");
+                 CsvRowWriter writer = new CsvRowWriter(Paths.get(datasetPath), SEPARATOR)) {
+                writer.writeLine(header);
+                for (Method method : methods) {
+                    for (Version version : method.getVersions()) {
+                        writer.field(projectName)
+                                .field(method.getPackageName())
+                                .field(method.getClassName())
+                                .field(method.getMethodName())
+                                .field(version.getName());
+                        for (MetricFeature feature : features) writer.field(feature.value(method, version), feature.getDecimals());
+                        writer.field(method.isBuggy(version)).endRow();
+                    }
                 }
             }
 
-            writeCsvFile(datasetPath, header, lines);
+            LOGGER.log(Level.INFO, "File CSV creato con successo: {0}", datasetPath);
 
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Errore durante la creazione del dataset", e);
@@ -130,14 +106,26 @@ public class DatasetController extends CsvController {
             String header = String.join(SEPARATOR, allLines.getFirst());
             List<String> filteredVersionNames = versions.subList(0, filteredVersions).stream().map(Version::getName).toList();
 
+            List<String[]> filteredRows = new ArrayList<>();
             List<String> filteredLines = new ArrayList<>();
-            for (String[] fields : allLines.subList(1, allLines.size())) {
-                // Filtra le righe in base al nome della versione
-                if (filteredVersionNames.contains(fields[VERSION_IDX])) filteredLines.add(String.join(SEPARATOR, fields));
+            try (var _ = PipelineMetrics.getInstance().stage("dataset.filter")) {
+                for (String[] fields : allLines.subList(1, allLines.size())) {
+                    // Filtra le righe in base al nome della versione
+                    if (filteredVersionNames.contains(fields[VERSION_IDX])) {
+                        filteredRows.add(fields);
+                        filteredLines.add(String.join(SEPARATOR, fields));
+                    }
+                }
             }
+            PipelineMetrics.getInstance().count("dataset.filtered-rows", filteredRows.size());
 
             writeCsvFile(filteredDatasetPath, header, filteredLines);
 
+            // Affianco al CSV la versione binaria colonnare, caricata direttamente dalle fasi di analisi
+            try (var _ = PipelineMetrics.getInstance().stage("dataset.write-binary")) {
+                ColumnarDatasetWriter.write(Paths.get(filteredBinaryDatasetPath), allLines.getFirst(), filteredRows);
+            }
+
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Errore durante il filtraggio del dataset", e);
             System.exit(1);
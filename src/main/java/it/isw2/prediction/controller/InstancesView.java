@@ -0,0 +1,101 @@
+package it.isw2.prediction.controller;
+
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.util.Arrays;
+import java.util.function.DoublePredicate;
+
+/**
+ * Vista su un sottoinsieme delle istanze di un dataset, senza copiarne i dati.
+ * La vista è una selezione di indici del dataset di base e può sovrascrivere il valore di un attributo:
+ * la sovrascrittura è applicata solo quando l'istanza viene letta, per cui il dataset di base
+ * non viene modificato e più viste possono condividerlo.
+ * <p>
+ * La vista è immutabile e può essere letta da più thread.
+ */
+public class InstancesView {
+
+    private static final int NO_OVERLAY = -1;
+
+    private final Instances base;
+    private final int[] rows;
+    private final int overlayAttribute;
+    private final double overlayValue;
+
+    private InstancesView(Instances base, int[] rows, int overlayAttribute, double overlayValue) {
+        this.base = base;
+        this.rows = rows;
+        this.overlayAttribute = overlayAttribute;
+        this.overlayValue = overlayValue;
+    }
+
+    /**
+     * Restituisce la vista su tutte le istanze del dataset.
+     */
+    public static InstancesView of(Instances base) {
+        int[] rows = new int[base.numInstances()];
+        Arrays.setAll(rows, i -> i);
+        return new InstancesView(base, rows, NO_OVERLAY, 0);
+    }
+
+    /**
+     * Restituisce la vista sulle istanze della vista il cui valore dell'attributo soddisfa il predicato.
+     * Il predicato è valutato sul valore letto dalla vista, quindi dopo l'eventuale sovrascrittura.
+     */
+    public InstancesView where(int attribute, DoublePredicate predicate) {
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int i = 0; i < rows.length; i++) {
+            if (predicate.test(value(i, attribute))) selected[count++] = rows[i];
+        }
+        return new InstancesView(base, Arrays.copyOf(selected, count), overlayAttribute, overlayValue);
+    }
+
+    /**
+     * Restituisce la vista sulle stesse istanze in cui l'attributo assume sempre il valore indicato.
+     */
+    public InstancesView withValue(int attribute, double value) {
+        return new InstancesView(base, rows, attribute, value);
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Restituisce l'indice nel dataset di base dell'i-esima istanza della vista.
+     */
+    public int baseRow(int i) {
+        return rows[i];
+    }
+
+    public Instances getBase() {
+        return base;
+    }
+
+    /**
+     * Restituisce il valore dell'attributo per l'i-esima istanza, con l'eventuale sovrascrittura.
+     */
+    public double value(int i, int attribute) {
+        return attribute == overlayAttribute ? overlayValue : base.instance(rows[i]).value(attribute);
+    }
+
+    /**
+     * Restituisce l'i-esima istanza da classificare.
+     * Senza sovrascrittura è l'istanza del dataset di base, altrimenti un'istanza temporanea
+     * con i valori sovrascritti, da non conservare oltre la classificazione.
+     */
+    public Instance instance(int i) {
+        Instance instance = base.instance(rows[i]);
+        if (overlayAttribute == NO_OVERLAY) return instance;
+
+        double[] values = instance.toDoubleArray();
+        values[overlayAttribute] = overlayValue;
+        Instance overlaid = new DenseInstance(instance.weight(), values);
+        overlaid.setDataset(base);
+        return overlaid;
+    }
+
+}
@@ -2,10 +2,11 @@ package it.isw2.prediction.controller;
 
 import it.isw2.prediction.FeatureSelection;
 import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.dao.FeatureSelectionDao;
 import it.isw2.prediction.factory.VersionRepositoryFactory;
 import it.isw2.prediction.model.Version;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 import it.isw2.prediction.repository.VersionRepository;
-import org.apache.commons.math3.stat.correlation.SpearmansCorrelation;
 import weka.attributeSelection.*;
 import weka.classifiers.AbstractClassifier;
 import weka.classifiers.Classifier;
@@ -13,19 +14,34 @@ import weka.classifiers.Evaluation;
 import weka.classifiers.bayes.NaiveBayes;
 import weka.classifiers.lazy.IBk;
 import weka.classifiers.trees.RandomForest;
+import weka.core.Attribute;
 import weka.core.Instance;
 import weka.core.Instances;
-import weka.core.SelectedTag;
+import weka.core.OptionHandler;
+import weka.core.Utils;
 import weka.core.converters.CSVLoader;
 import weka.filters.Filter;
 import weka.filters.unsupervised.attribute.StringToNominal;
 
 import java.io.File;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 
 import static java.text.MessageFormat.format;
 
@@ -40,10 +56,17 @@ public class PredictionController extends CsvController {
     private final ApplicationConfig config = new ApplicationConfig();
     private final String projectName = config.getSelectedProject().getKey();
     private final String filteredDatasetPath;
+    private final String filteredBinaryDatasetPath;
     private final String outputDir;
 
+    // Meriti dei subset già valutati dalla selezione wrapper, per classificatore e dataset
+    private final Map<String, Map<BitSet, Double>> wrapperScoreCache = new ConcurrentHashMap<>();
+    private final FeatureSelectionDao featureSelectionDao = new FeatureSelectionDao();
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+
     public PredictionController() {
         this.filteredDatasetPath = Paths.get(config.getDatasetPath(), projectName + "_filtered.csv").toString();
+        this.filteredBinaryDatasetPath = Paths.get(config.getDatasetPath(), projectName + "_filtered.bin").toString();
         this.outputDir = config.getOutputPath();
 
         String whatIfPath = Paths.get(outputDir, projectName + "_whatif.csv").toString();
@@ -66,14 +89,7 @@ public class PredictionController extends CsvController {
 
             printMemoryUsage("Memoria prima del caricamento del dataset");
 
-            CSVLoader loader = new CSVLoader();
-            loader.setSource(new File(filteredDatasetPath));
-            loader.setFieldSeparator(SEPARATOR);
-            Instances originalData = loader.getDataSet();
-            StringToNominal filter = new StringToNominal();
-            filter.setAttributeRange(ATTRIBUTE_RANGE);
-            filter.setInputFormat(originalData);
-            originalData = Filter.useFilter(originalData, filter);
+            Instances originalData = loadFilteredDataset();
 
             VersionRepository versionRepository = VersionRepositoryFactory.getInstance().getVersionRepository();
             List<Version> versions = versionRepository.retrieveVersions().stream().sorted(Comparator.comparing(Version::getReleaseDate)).toList();
@@ -83,15 +99,23 @@ public class PredictionController extends CsvController {
             Classifier[] models = { new RandomForest(), new NaiveBayes(), new IBk() };
             String[] modelNames = { "RandomForest", "NaiveBayes", "IBk" };
 
+            // Preparo i dataset di ogni combinazione di feature selection e modello
+            List<EvaluationTarget> targets = new ArrayList<>();
             for (FeatureSelection featureSelection : featureSelections) {
-                Instances baseData = featureSelection == FeatureSelection.INFO_GAIN
-                        ? selectFeaturesWithInfoGainRanker(originalData)
-                        : new Instances(originalData);
+                Instances baseData;
+                try (var _ = metrics.stage("feature-selection")) {
+                    baseData = featureSelection == FeatureSelection.INFO_GAIN
+                            ? selectFeaturesWithInfoGainRanker(originalData)
+                            : new Instances(originalData);
+                }
 
                 for (int m = 0; m < models.length; m++) {
                     Classifier model = models[m];
                     String modelName = modelNames[m];
-                    Instances trainData = applyFeatureSelection(baseData, model, featureSelection);
+                    Instances trainData;
+                    try (var _ = metrics.stage("feature-selection")) {
+                        trainData = applyFeatureSelection(baseData, model, featureSelection);
+                    }
 
                     printMemoryUsage("Memoria dopo feature selection " + featureSelection.getName());
                     LOGGER.log(Level.INFO, "Addestramento modello {0} con {1} feature", new Object[]{modelName, trainData.numAttributes() - 1});
@@ -99,47 +123,67 @@ public class PredictionController extends CsvController {
                     int classIndex = trainData.attribute(BUGGY_ATTRIBUTE).index();
                     trainData.setClassIndex(classIndex);
 
-                    ModelMetrics metrics = evaluateModelOnVersions(trainData, originalData, model, versions, versionRepository, classIndex);
-
-                    for (FoldMetrics fold : metrics.foldMetrics()) {
-                        String message = format(
-                                "{0} - FeatureSelection: {1}, Features: {2}, Fold: {3}, Precision: {4}, Recall: {5}, AUC: {6}, Kappa: {7}",
-                                modelName,
-                                featureSelection.getName(),
-                                trainData.numAttributes() - 1,
-                                fold.foldIndex(),
-                                fold.precision(),
-                                fold.recall(),
-                                fold.auc(),
-                                fold.kappa()
-                        );
-                        LOGGER.log(Level.INFO, message);
-
-                        // Costruzione della riga con tutte le metriche
-                        String line = String.join(SEPARATOR,
-                                modelName,
-                                featureSelection.getName(),
-                                String.valueOf(trainData.numAttributes() - 1),
-                                String.valueOf(fold.foldIndex()),
-                                String.valueOf(fold.precision()),
-                                String.valueOf(fold.recall()),
-                                String.valueOf(fold.fMeasure()),
-                                String.valueOf(fold.auc()),
-                                String.valueOf(fold.kappa()),
-                                String.valueOf(fold.accuracy()),
-                                String.valueOf(fold.truePositiveRate()),
-                                String.valueOf(fold.falsePositiveRate()),
-                                String.valueOf(fold.trueNegativeRate()),
-                                String.valueOf(fold.falseNegativeRate()),
-                                String.valueOf(fold.npofb20())
-                        );
-                        lines.add(line);
-                    }
-
-                    printMemoryUsage("Memoria dopo evaluation");
+                    targets.add(new EvaluationTarget(modelName, featureSelection, model, trainData, classIndex));
                 }
             }
 
+            // Valuto in parallelo tutte le celle (feature selection, modello, fold)
+            List<EvaluationCell> cells = new ArrayList<>();
+            for (EvaluationTarget target : targets) {
+                for (int i = config.getNumberOfVersionInValidationFolds(); i < versions.size(); i++) cells.add(new EvaluationCell(target, i));
+            }
+            VersionFoldIndex foldIndex = new VersionFoldIndex(originalData, VERSION_ATTRIBUTE, versions, versionRepository);
+            List<FoldMetrics> results;
+            try (var _ = metrics.stage("validation")) {
+                results = evaluateCells(cells, foldIndex, versions);
+            }
+
+            printMemoryUsage("Memoria dopo evaluation");
+
+            // I risultati sono nell'ordine delle celle, per cui il CSV coincide con quello dell'esecuzione sequenziale
+            for (int c = 0; c < cells.size(); c++) {
+                FoldMetrics fold = results.get(c);
+                if (fold == null) continue;
+
+                EvaluationTarget target = cells.get(c).target();
+                String modelName = target.modelName();
+                FeatureSelection featureSelection = target.featureSelection();
+                Instances trainData = target.trainData();
+
+                String message = format(
+                        "{0} - FeatureSelection: {1}, Features: {2}, Fold: {3}, Precision: {4}, Recall: {5}, AUC: {6}, Kappa: {7}",
+                        modelName,
+                        featureSelection.getName(),
+                        trainData.numAttributes() - 1,
+                        fold.foldIndex(),
+                        fold.precision(),
+                        fold.recall(),
+                        fold.auc(),
+                        fold.kappa()
+                );
+                LOGGER.log(Level.INFO, message);
+
+                // Costruzione della riga con tutte le metriche
+                String line = String.join(SEPARATOR,
+                        modelName,
+                        featureSelection.getName(),
+                        String.valueOf(trainData.numAttributes() - 1),
+                        String.valueOf(fold.foldIndex()),
+                        String.valueOf(fold.precision()),
+                        String.valueOf(fold.recall()),
+                        String.valueOf(fold.fMeasure()),
+                        String.valueOf(fold.auc()),
+                        String.valueOf(fold.kappa()),
+                        String.valueOf(fold.accuracy()),
+                        String.valueOf(fold.truePositiveRate()),
+                        String.valueOf(fold.falsePositiveRate()),
+                        String.valueOf(fold.trueNegativeRate()),
+                        String.valueOf(fold.falseNegativeRate()),
+                        String.valueOf(fold.npofb20())
+                );
+                lines.add(line);
+            }
+
             String header = String.join(SEPARATOR,
                     "Model",
                     "Feature Selection",
@@ -166,6 +210,35 @@ public class PredictionController extends CsvController {
         }
     }
 
+    /**
+     * Carica il dataset filtrato. Se la versione binaria colonnare è presente e aggiornata
+     * rispetto al CSV la carica direttamente, altrimenti analizza il CSV e converte
+     * le stringhe in nominali (es: Project, Package, Class, Method, Version, Buggy).
+     */
+    private Instances loadFilteredDataset() throws Exception {
+        try (var _ = metrics.stage("dataset.load")) {
+            File csvFile = new File(filteredDatasetPath);
+            File binaryFile = new File(filteredBinaryDatasetPath);
+            if (binaryFile.exists() && binaryFile.lastModified() >= csvFile.lastModified()) {
+                try {
+                    return ColumnarDatasetLoader.load(binaryFile.toPath(), projectName + "_filtered");
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, e, () -> "Impossibile caricare il dataset binario, uso il CSV: " + filteredBinaryDatasetPath);
+                }
+            }
+
+            CSVLoader loader = new CSVLoader();
+            loader.setSource(csvFile);
+            loader.setFieldSeparator(SEPARATOR);
+            Instances data = loader.getDataSet();
+
+            StringToNominal filter = new StringToNominal();
+            filter.setAttributeRange(ATTRIBUTE_RANGE);
+            filter.setInputFormat(data);
+            return Filter.useFilter(data, filter);
+        }
+    }
+
     private Instances applyFeatureSelection(Instances data, Classifier model, FeatureSelection featureSelection) throws Exception {
         switch (featureSelection) {
             case FORWARD, BACKWARD:
@@ -178,66 +251,173 @@ public class PredictionController extends CsvController {
         }
     }
 
-    private ModelMetrics evaluateModelOnVersions(
-            Instances trainData,
-            Instances originalData,
-            Classifier model,
-            List<Version> versions,
-            VersionRepository versionRepository,
-            int classIndex
+    /**
+     * Valuta le celle su un pool fork-join con il parallelismo configurato.
+     * Ogni cella è indipendente dalle altre e addestra una propria copia del modello,
+     * per cui il risultato non dipende dall'ordine di esecuzione.
+     *
+     * @return le metriche di ogni cella, nello stesso ordine delle celle (null se il fold è vuoto)
+     */
+    private List<FoldMetrics> evaluateCells(
+            List<EvaluationCell> cells,
+            VersionFoldIndex foldIndex,
+            List<Version> versions
     ) throws Exception {
+        int parallelism = config.getValidationParallelism();
+        LOGGER.log(Level.INFO, "Valutazione di {0} celle con parallelismo {1}", new Object[]{cells.size(), parallelism});
+
+        // In modalità incrementale i fold di una stessa combinazione sono valutati in sequenza in un unico task
+        boolean incremental = config.isValidationIncrementalEnabled();
+        List<List<EvaluationCell>> groups = new ArrayList<>();
+        for (EvaluationCell cell : cells) {
+            boolean sameTarget = !groups.isEmpty() && groups.getLast().getFirst().target() == cell.target();
+            if (incremental && sameTarget) groups.getLast().add(cell);
+            else groups.add(new ArrayList<>(List.of(cell)));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<List<FoldMetrics>>> tasks = new ArrayList<>(groups.size());
+            for (List<EvaluationCell> group : groups) {
+                tasks.add(pool.submit(() -> incremental
+                        ? evaluateFoldsIncrementally(group, foldIndex, versions)
+                        : Collections.singletonList(evaluateFold(group.getFirst(), foldIndex, versions))));
+            }
+
+            List<FoldMetrics> results = new ArrayList<>(cells.size());
+            for (ForkJoinTask<List<FoldMetrics>> task : tasks) {
+                try {
+                    results.addAll(task.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) throw cause;
+                    throw e;
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Valuta un singolo fold walk-forward: addestra sulle versioni precedenti al fold e testa sulle successive.
+     * Le istanze di ciascun insieme sono lette dall'indice delle versioni, nello stesso ordine del dataset.
+     * Il modello viene copiato con makeCopy, per cui la copia mantiene il seed del prototipo
+     * e il risultato coincide con quello dell'esecuzione sequenziale.
+     *
+     * @return le metriche del fold, o null se il training o il test set sono vuoti
+     */
+    private FoldMetrics evaluateFold(
+            EvaluationCell cell,
+            VersionFoldIndex foldIndex,
+            List<Version> versions
+    ) throws Exception {
+        EvaluationTarget target = cell.target();
+        Instances trainData = target.trainData();
+        int classIndex = target.classIndex();
         int versionInFolds = config.getNumberOfVersionInValidationFolds();
-        List<FoldMetrics> foldMetricsList = new ArrayList<>();
+        int i = cell.foldIndex();
 
-        for (int i = versionInFolds; i < versions.size(); i++) {
-            List<Version> trainVersions = versions.subList(0, i);
-            List<Version> testVersions = versions.subList(i, Math.min(i + versionInFolds, versions.size()));
+        // Il training set comprende le versioni [0, i), il test set le versioni [i, i + versionInFolds)
+        BitSet trainInstances = foldIndex.instancesBetween(0, i);
+        BitSet testInstances = foldIndex.instancesBetween(i, Math.min(i + versionInFolds, versions.size()));
 
-            Instances trainSet = new Instances(trainData, 0);
-            Instances testSet = new Instances(trainData, 0);
+        Instances trainSet = new Instances(trainData, trainInstances.cardinality());
+        Instances testSet = new Instances(trainData, testInstances.cardinality());
+        VersionFoldIndex.copyInstances(trainData, trainInstances, trainSet);
+        VersionFoldIndex.copyInstances(trainData, testInstances, testSet);
 
-            for (int j = 0; j < trainData.numInstances(); j++) {
-                String versionName = originalData.instance(j).stringValue(originalData.attribute(VERSION_ATTRIBUTE));
-                Version version = versionRepository.retrieveVersionByName(versionName);
+        if (trainSet.numInstances() == 0 || testSet.numInstances() == 0) {
+            LOGGER.log(Level.WARNING, "Nessuna istanza disponibile per il training o il test nel fold che termina con versione {0}.", versions.get(i).getName());
+            return null;
+        }
+
+        trainSet.setClassIndex(classIndex);
+        testSet.setClassIndex(classIndex);
 
-                if (trainVersions.contains(version)) trainSet.add(trainData.instance(j));
-                else if (testVersions.contains(version)) testSet.add(trainData.instance(j));
+        Classifier modelCopy = AbstractClassifier.makeCopy(target.model());
+        try (var _ = metrics.stage("validation.training")) {
+            modelCopy.buildClassifier(trainSet);
+        }
+
+        return evaluateTrainedModel(i, modelCopy, trainSet, testSet);
+    }
+
+    /**
+     * Valuta in sequenza i fold di una stessa combinazione aggiornando il modello in modo incrementale:
+     * a ogni fold il training set viene esteso con le sole istanze delle versioni aggiunte.
+     *
+     * @return le metriche dei fold, nello stesso ordine delle celle (null se il fold è vuoto)
+     */
+    private List<FoldMetrics> evaluateFoldsIncrementally(
+            List<EvaluationCell> cells,
+            VersionFoldIndex foldIndex,
+            List<Version> versions
+    ) throws Exception {
+        EvaluationTarget target = cells.getFirst().target();
+        Instances trainData = target.trainData();
+        int versionInFolds = config.getNumberOfVersionInValidationFolds();
+
+        WarmStartTrainer trainer = new WarmStartTrainer(target.model(), trainData);
+        List<FoldMetrics> results = new ArrayList<>(cells.size());
+        int trainedVersions = 0;
+
+        for (EvaluationCell cell : cells) {
+            int i = cell.foldIndex();
+
+            Instances newInstances = new Instances(trainData, 0);
+            VersionFoldIndex.copyInstances(trainData, foldIndex.instancesBetween(trainedVersions, i), newInstances);
+            try (var _ = metrics.stage("validation.training")) {
+                trainer.advance(newInstances);
             }
+            trainedVersions = i;
+
+            BitSet testInstances = foldIndex.instancesBetween(i, Math.min(i + versionInFolds, versions.size()));
+            Instances testSet = new Instances(trainData, testInstances.cardinality());
+            VersionFoldIndex.copyInstances(trainData, testInstances, testSet);
 
+            Instances trainSet = trainer.getTrainSet();
             if (trainSet.numInstances() == 0 || testSet.numInstances() == 0) {
                 LOGGER.log(Level.WARNING, "Nessuna istanza disponibile per il training o il test nel fold che termina con versione {0}.", versions.get(i).getName());
+                results.add(null);
                 continue;
             }
 
-            trainSet.setClassIndex(classIndex);
-            testSet.setClassIndex(classIndex);
+            results.add(evaluateTrainedModel(i, trainer.getClassifier(), trainSet, testSet));
+        }
 
-            Classifier modelCopy = AbstractClassifier.makeCopy(model);
-            modelCopy.buildClassifier(trainSet);
+        return results;
+    }
 
-            Evaluation eval = new Evaluation(trainSet);
+    /**
+     * Calcola le metriche del fold per un modello già addestrato sul training set.
+     */
+    private FoldMetrics evaluateTrainedModel(int i, Classifier modelCopy, Instances trainSet, Instances testSet) throws Exception {
+        metrics.count("validation.folds");
+        metrics.count("validation.test-instances", testSet.numInstances());
+        Evaluation eval = new Evaluation(trainSet);
+        double npofb20;
+        try (var _ = metrics.stage("validation.evaluation")) {
             eval.evaluateModel(modelCopy, testSet);
 
             // Calcolo NPofB20 sul test set
-            double npofb20 = computeNPofBN(0.20f, modelCopy, testSet);
-
-            foldMetricsList.add(new FoldMetrics(
-                    i, // fold index
-                    eval.precision(1),
-                    eval.recall(1),
-                    eval.fMeasure(1),
-                    eval.areaUnderROC(1),
-                    eval.kappa(),
-                    eval.pctCorrect() / 100.0,
-                    eval.truePositiveRate(1),
-                    eval.falsePositiveRate(1),
-                    eval.trueNegativeRate(1),
-                    eval.falseNegativeRate(1),
-                    npofb20
-            ));
+            npofb20 = computeNPofBN(0.20f, modelCopy, testSet);
         }
 
-        return new ModelMetrics(foldMetricsList);
+        return new FoldMetrics(
+                i, // fold index
+                eval.precision(1),
+                eval.recall(1),
+                eval.fMeasure(1),
+                eval.areaUnderROC(1),
+                eval.kappa(),
+                eval.pctCorrect() / 100.0,
+                eval.truePositiveRate(1),
+                eval.falsePositiveRate(1),
+                eval.trueNegativeRate(1),
+                eval.falseNegativeRate(1),
+                npofb20
+        );
     }
 
     private double computeNPofBN(double topFraction, Classifier cls, Instances data) throws Exception {
@@ -283,33 +463,26 @@ public class PredictionController extends CsvController {
                 default -> throw new IllegalArgumentException("Modello di classificazione non supportato: " + selectedModel);
             };
 
-            // Caricamento CSV
-            CSVLoader loader = new CSVLoader();
-            loader.setSource(new File(filteredDatasetPath));
-            loader.setFieldSeparator(SEPARATOR);
-            Instances data = loader.getDataSet();
-
-            // Converte stringhe in nominali (es: Project, Package, Class, Method, Version, Buggy)
-            StringToNominal filter = new StringToNominal();
-            filter.setAttributeRange(ATTRIBUTE_RANGE);
-            filter.setInputFormat(data);
-            data = Filter.useFilter(data, filter);
+            // Caricamento del dataset
+            Instances data = loadFilteredDataset();
 
             FeatureSelection featureSelection = config.getInferenceFeatureSelectionMethod();
             LOGGER.log(Level.INFO, "Selezione feature con {0}", featureSelection.getName());
 
             Instances reducedData = data;
-            switch (featureSelection) {
-                case FeatureSelection.FORWARD, FeatureSelection.BACKWARD:
-                    reducedData = selectFeaturesWithSearchWrapper(data, model, featureSelection);
-                    break;
-                case FeatureSelection.INFO_GAIN:
-                    reducedData = selectFeaturesWithInfoGainRanker(data);
-                    break;
-                case FeatureSelection.NONE:
-                    break;
-                default:
-                    LOGGER.log(Level.WARNING, () -> "Feature selection non supportata: " + featureSelection);
+            try (var _ = metrics.stage("feature-selection")) {
+                switch (featureSelection) {
+                    case FeatureSelection.FORWARD, FeatureSelection.BACKWARD:
+                        reducedData = selectFeaturesWithSearchWrapper(data, model, featureSelection);
+                        break;
+                    case FeatureSelection.INFO_GAIN:
+                        reducedData = selectFeaturesWithInfoGainRanker(data);
+                        break;
+                    case FeatureSelection.NONE:
+                        break;
+                    default:
+                        LOGGER.log(Level.WARNING, () -> "Feature selection non supportata: " + featureSelection);
+                }
             }
 
             String actionableFeature = config.getInferenceActionableFeature();
@@ -319,43 +492,46 @@ public class PredictionController extends CsvController {
             // Imposta la colonna 'Buggy' come target
             int classIndex = reducedData.attribute(BUGGY_ATTRIBUTE).index();
             reducedData.setClassIndex(classIndex);
-            model.buildClassifier(reducedData);
+            try (var _ = metrics.stage("inference.training")) {
+                model.buildClassifier(reducedData);
+            }
 
             LOGGER.log(Level.INFO, "Modello addestrato: {0}", selectedModel);
 
+            // I dataset del what-if sono viste sul dataset ridotto: nessuna istanza viene copiata
             // A = istanze completa
-            Instances instanceA = new Instances(reducedData);
+            InstancesView instanceA = InstancesView.of(reducedData);
 
             // B+ = istanze con actionable > 0
-            Instances instanceBplus = new Instances(reducedData, 0);
-            for (int i = 0; i < reducedData.numInstances(); i++) {
-                Instance inst = reducedData.instance(i);
-                if (inst.value(actionableIdx) > 0) {
-                    instanceBplus.add(inst);
-                }
-            }
+            InstancesView instanceBplus = instanceA.where(actionableIdx, value -> value > 0);
 
             // C = istanze con actionable == 0
-            Instances instanceC = new Instances(reducedData, 0);
-            for (int i = 0; i < reducedData.numInstances(); i++) {
-                Instance inst = reducedData.instance(i);
-                if (inst.value(actionableIdx) == 0) {
-                    instanceC.add(inst);
-                }
-            }
+            InstancesView instanceC = instanceA.where(actionableIdx, value -> value == 0);
 
-            // B = copia di B+ con actionable settato a 0
-            Instances instanceB = new Instances(instanceBplus);
-            for (int i = 0; i < instanceB.numInstances(); i++) {
-                instanceB.instance(i).setValue(actionableIdx, 0);
-            }
+            // B = istanze di B+ con actionable a 0, applicato durante la predizione
+            InstancesView instanceB = instanceBplus.withValue(actionableIdx, 0);
 
-            LOGGER.log(Level.INFO, "Dataset creati: {0} istanze in B+, {1} in C, {2} in B", new Object[]{instanceBplus.numInstances(), instanceC.numInstances(), instanceB.numInstances()});
+            LOGGER.log(Level.INFO, "Dataset creati: {0} istanze in B+, {1} in C, {2} in B", new Object[]{instanceBplus.size(), instanceC.size(), instanceB.size()});
 
-            predictDataset(data, instanceA, model, "A");
-            predictDataset(data, instanceBplus, model, "Bplus");
-            predictDataset(data, instanceC, model, "C");
-            predictDataset(data, instanceB, model, "B");
+            List<WhatIfDataset> datasets = List.of(
+                    new WhatIfDataset("A", instanceA),
+                    new WhatIfDataset("Bplus", instanceBplus),
+                    new WhatIfDataset("C", instanceC),
+                    new WhatIfDataset("B", instanceB)
+            );
+            // Lo stesso modello, con le stesse copie per thread, serve i dataset del what-if e gli scenari
+            try (BatchPredictor predictor = new BatchPredictor(model, config.getInferenceParallelism(), config.getInferenceBlockSize())) {
+                try (var _ = metrics.stage("inference.whatif")) {
+                    predictDatasets(data, datasets, predictor);
+                }
+
+                List<WhatIfScenario> scenarios = WhatIfScenario.parseAll(config.getInferenceWhatIfScenarios(), reducedData);
+                if (!scenarios.isEmpty()) {
+                    try (var _ = metrics.stage("inference.scenarios")) {
+                        predictScenarios(reducedData, scenarios, predictor);
+                    }
+                }
+            }
 
             LOGGER.log(Level.INFO, "Predizione completata");
 
@@ -365,13 +541,46 @@ public class PredictionController extends CsvController {
         }
     }
 
-    // Metodo di utilità per predire e scrivere su file
-    private void predictDataset(Instances originalData, Instances reducedData, Classifier model, String suffix) throws Exception {
+    /**
+     * Predice i dataset in parallelo, condividendo lo stesso pool di copie del modello,
+     * e aggiunge le statistiche al file di what-if nell'ordine dei dataset.
+     */
+    private void predictDatasets(Instances originalData, List<WhatIfDataset> datasets, BatchPredictor predictor) throws Exception {
+        List<BuggyStats> stats = new ArrayList<>(datasets.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(datasets.size());
+        try {
+            List<Future<BuggyStats>> futures = new ArrayList<>(datasets.size());
+            for (WhatIfDataset dataset : datasets) {
+                futures.add(executor.submit(() -> predictDataset(originalData, dataset, predictor)));
+            }
+            for (Future<BuggyStats> future : futures) {
+                try {
+                    stats.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) throw cause;
+                    throw e;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (BuggyStats datasetStats : stats) logBuggyStats(datasetStats);
+    }
+
+    /**
+     * Predice il dataset a blocchi, scrivendo le predizioni man mano e contando nella stessa passata
+     * i metodi buggy reali e predetti.
+     */
+    private BuggyStats predictDataset(Instances originalData, WhatIfDataset dataset, BatchPredictor predictor) throws Exception {
+        InstancesView view = dataset.view();
+        Instances reducedData = view.getBase();
+        String suffix = dataset.name();
 
-        LOGGER.log(Level.INFO, "Predizione su {0} istanze ({1})", new Object[]{reducedData.numInstances(), suffix});
+        LOGGER.log(Level.INFO, "Predizione su {0} istanze ({1})", new Object[]{view.size(), suffix});
 
         String header = String.join(SEPARATOR, "Project", "Package", "Class", "Method", VERSION_ATTRIBUTE, "Actual", "Predicted");
-        List<String> lines = new ArrayList<>();
 
         int projectIdx = originalData.attribute("Project").index();
         int packageIdx = originalData.attribute("Package").index();
@@ -379,46 +588,115 @@ public class PredictionController extends CsvController {
         int methodIdx = originalData.attribute("Method").index();
         int versionIdx = originalData.attribute(VERSION_ATTRIBUTE).index();
 
-        for (int i = 0; i < reducedData.numInstances(); i++) {
-            LOGGER.log(Level.INFO, "Predizione istanza {0}/{1}", new Object[]{i + 1, reducedData.numInstances()});
-            Instance inst = reducedData.instance(i);
-            double actualClass = inst.classValue();
-            double predictedClass = model.classifyInstance(inst);
-
-            String actual = reducedData.classAttribute().value((int) actualClass);
-            String predicted = reducedData.classAttribute().value((int) predictedClass);
-
-            String line = originalData.instance(i).stringValue(projectIdx) + SEPARATOR +
-                    originalData.instance(i).stringValue(packageIdx) + SEPARATOR +
-                    originalData.instance(i).stringValue(classIdx) + SEPARATOR +
-                    originalData.instance(i).stringValue(methodIdx) + SEPARATOR +
-                    originalData.instance(i).stringValue(versionIdx) + SEPARATOR +
-                    actual + SEPARATOR +
-                    predicted;
+        Attribute classAttribute = reducedData.classAttribute();
+        boolean[] buggyValues = buggyClassValues(classAttribute);
 
-            lines.add(line);
+        long[] realBuggy = {0};
+        long[] predictedBuggy = {0};
+        String predictionCsvPath = Paths.get(outputDir, projectName + "_" + suffix + "_prediction.csv").toString();
+        try (CsvRowWriter csvWriter = new CsvRowWriter(Paths.get(predictionCsvPath), SEPARATOR)) {
+            csvWriter.writeLine(header);
+            predictor.predict(view, suffix, (firstInstance, predictions) -> {
+                for (int b = 0; b < predictions.length; b++) {
+                    // Il dataset ridotto ha le stesse righe del dataset originale
+                    int row = view.baseRow(firstInstance + b);
+                    int actualClass = (int) reducedData.instance(row).classValue();
+                    int predictedClass = (int) predictions[b];
+                    if (buggyValues[actualClass]) realBuggy[0]++;
+                    if (buggyValues[predictedClass]) predictedBuggy[0]++;
+
+                    Instance original = originalData.instance(row);
+                    csvWriter.field(original.stringValue(projectIdx))
+                            .field(original.stringValue(packageIdx))
+                            .field(original.stringValue(classIdx))
+                            .field(original.stringValue(methodIdx))
+                            .field(original.stringValue(versionIdx))
+                            .field(classAttribute.value(actualClass))
+                            .field(classAttribute.value(predictedClass))
+                            .endRow();
+                }
+            });
         }
+        LOGGER.log(Level.INFO, "File CSV creato con successo: {0}", predictionCsvPath);
 
         LOGGER.log(Level.INFO, "Predizione con {0} completata", suffix);
+        return new BuggyStats(suffix, realBuggy[0], predictedBuggy[0]);
+    }
 
-        logBuggyStats(lines, suffix);
-
-        String predictionCsvPath = Paths.get(outputDir, projectName + "_" + suffix + "_prediction.csv").toString();
-        writeCsvFile(predictionCsvPath, header, lines);
+    /**
+     * Valuta gli scenari del what-if con una sola passata sulle istanze e scrive la matrice dei risultati:
+     * per ogni scenario il numero di metodi modificati, i metodi predetti buggy e la variazione
+     * rispetto alla predizione di base.
+     */
+    private void predictScenarios(Instances reducedData, List<WhatIfScenario> scenarios, BatchPredictor predictor) throws Exception {
+        LOGGER.log(Level.INFO, "Valutazione di {0} scenari what-if su {1} istanze", new Object[]{scenarios.size(), reducedData.numInstances()});
+
+        boolean[] buggyValues = buggyClassValues(reducedData.classAttribute());
+        long[] realBuggy = {0};
+        // In posizione 0 la predizione di base, in posizione s + 1 lo scenario s
+        long[] predictedBuggy = new long[scenarios.size() + 1];
+        long[] modified = new long[scenarios.size()];
+        long[] modifiedBuggyBefore = new long[scenarios.size()];
+        long[] modifiedBuggyAfter = new long[scenarios.size()];
+
+        predictor.predictScenarios(reducedData, scenarios, "scenari", (firstInstance, predictions, changed) -> {
+            for (int b = 0; b < predictions[0].length; b++) {
+                if (buggyValues[(int) reducedData.instance(firstInstance + b).classValue()]) realBuggy[0]++;
+                boolean baselineBuggy = buggyValues[(int) predictions[0][b]];
+                if (baselineBuggy) predictedBuggy[0]++;
+
+                for (int s = 0; s < scenarios.size(); s++) {
+                    boolean scenarioBuggy = buggyValues[(int) predictions[s + 1][b]];
+                    if (scenarioBuggy) predictedBuggy[s + 1]++;
+                    if (!changed[s][b]) continue;
+                    modified[s]++;
+                    if (baselineBuggy) modifiedBuggyBefore[s]++;
+                    if (scenarioBuggy) modifiedBuggyAfter[s]++;
+                }
+            }
+        });
+
+        String matrixPath = Paths.get(outputDir, projectName + "_whatif_matrix.csv").toString();
+        try (CsvRowWriter csvWriter = new CsvRowWriter(Paths.get(matrixPath), SEPARATOR)) {
+            csvWriter.writeLine(String.join(SEPARATOR, "Scenario", "Metodi modificati", "Metodi buggy reali", "Metodi predetti buggy",
+                    "Variazione", "Variazione %", "Predetti buggy tra i modificati (prima)", "Predetti buggy tra i modificati (dopo)"));
+            csvWriter.field("Baseline").field(0).field(realBuggy[0]).field(predictedBuggy[0])
+                    .field(0).field(0.0, 2).field(0).field(0).endRow();
+
+            for (int s = 0; s < scenarios.size(); s++) {
+                long variation = predictedBuggy[s + 1] - predictedBuggy[0];
+                double variationPercent = predictedBuggy[0] > 0 ? 100.0 * variation / predictedBuggy[0] : 0.0;
+                csvWriter.field(scenarios.get(s).getName())
+                        .field(modified[s])
+                        .field(realBuggy[0])
+                        .field(predictedBuggy[s + 1])
+                        .field(variation)
+                        .field(variationPercent, 2)
+                        .field(modifiedBuggyBefore[s])
+                        .field(modifiedBuggyAfter[s])
+                        .endRow();
+                LOGGER.log(Level.INFO, "Scenario {0}: {1} metodi modificati, metodi predetti buggy {2} -> {3}",
+                        new Object[]{scenarios.get(s).getName(), modified[s], predictedBuggy[0], predictedBuggy[s + 1]});
+            }
+        }
+        LOGGER.log(Level.INFO, "File CSV creato con successo: {0}", matrixPath);
     }
 
-    private void logBuggyStats(List<String> lines, String datasetName) {
-        int actualIdx = 5;
-        int predictedIdx = 6;
-        long realBuggy = 0;
-        long predictedBuggy = 0;
-
-        for (String line : lines) {
-            String[] cols = line.split(SEPARATOR, -1);
-            if (cols.length < 7) continue;
-            if (!datasetName.equals("B") && (cols[actualIdx].equalsIgnoreCase("True") || cols[actualIdx].equalsIgnoreCase("Yes"))) realBuggy++;
-            if (cols[predictedIdx].equalsIgnoreCase("True") || cols[predictedIdx].equalsIgnoreCase("Yes")) predictedBuggy++;
+    /**
+     * Restituisce, per ogni valore della classe, se indica un metodo buggy.
+     */
+    private static boolean[] buggyClassValues(Attribute classAttribute) {
+        boolean[] buggyValues = new boolean[classAttribute.numValues()];
+        for (int v = 0; v < buggyValues.length; v++) {
+            buggyValues[v] = classAttribute.value(v).equalsIgnoreCase("True") || classAttribute.value(v).equalsIgnoreCase("Yes");
         }
+        return buggyValues;
+    }
+
+    private void logBuggyStats(BuggyStats stats) {
+        String datasetName = stats.datasetName();
+        long realBuggy = stats.realBuggy();
+        long predictedBuggy = stats.predictedBuggy();
 
         String summary;
         if (!datasetName.equals("B")) {
@@ -457,27 +735,31 @@ public class PredictionController extends CsvController {
 
         LOGGER.info("Durante la selezione delle feature è normale che appaiano messaggi 'only class attribute present' — sono causati dall'esplorazione di subset vuoti.");
 
-        AttributeSelection selector = new AttributeSelection();
-
-        WrapperSubsetEval evaluator = new WrapperSubsetEval();
-        evaluator.setClassifier(model);
-        evaluator.setFolds(config.getValidationFolds());
-        evaluator.setSeed(config.getRandomSeed());
-        evaluator.setEvaluationMeasure(new SelectedTag(
-                WrapperSubsetEval.EVAL_ACCURACY, WrapperSubsetEval.TAGS_EVALUATION
-        ));
-
-        GreedyStepwise search = new GreedyStepwise();
-        search.setSearchBackwards(strategy == FeatureSelection.BACKWARD);
-
-        selector.setEvaluator(evaluator);
-        selector.setSearch(search);
-        selector.SelectAttributes(data);
-
-        int[] selected = selector.selectedAttributes();
+        // Classificatore e parametri della cross-validation, da cui dipendono i meriti dei subset
+        String scoringDescription = format("{0} {1}|folds={2}|seed={3}",
+                model.getClass().getName(),
+                model instanceof OptionHandler handler ? Utils.joinOptions(handler.getOptions()) : "",
+                String.valueOf(config.getValidationFolds()),
+                String.valueOf(config.getRandomSeed()));
+        String description = strategy.getName() + "|" + scoringDescription;
+        MessageDigest datasetDigest = datasetDigest(data);
+        String selectionKey = digestKey(datasetDigest, description);
+
+        int[] selected = retrieveCachedSelection(selectionKey);
+        if (selected == null) {
+            // I meriti dei subset sono condivisi tra le ricerche sullo stesso dataset con lo stesso classificatore:
+            // la chiave è l'hash del contenuto del dataset, della classe e del classificatore con le sue opzioni
+            String scoreKey = digestKey(datasetDigest, scoringDescription + "|class=" + data.classIndex());
+            Map<BitSet, Double> scoreCache = wrapperScoreCache.computeIfAbsent(scoreKey, _ -> new ConcurrentHashMap<>());
+
+            WrapperFeatureSelector selector = new WrapperFeatureSelector(
+                    model, config.getValidationFolds(), config.getRandomSeed(), config.getValidationParallelism(), scoreCache);
+            selected = selector.select(data, strategy == FeatureSelection.BACKWARD);
+            saveCachedSelection(selectionKey, description, selected);
+        }
         LOGGER.log(Level.INFO, "Attributi selezionati (wrapper search): {0}", Arrays.toString(selected));
 
-        Instances reduced = selector.reduceDimensionality(data);
+        Instances reduced = WrapperFeatureSelector.reduce(data, selected);
 
         // Se rimane solo la classe restituisci il dataset originale
         if (reduced.numAttributes() <= 1) {
@@ -494,12 +776,22 @@ public class PredictionController extends CsvController {
      * @return il dataset ridotto alle feature selezionate
      */
     public Instances selectFeaturesWithInfoGainRanker(Instances data) throws Exception {
+        double threshold = config.getValidationFeatureSelectionThreshold();
+        int maxFeatures = config.getValidationFeatureSelectionFeatures();
+
+        String description = format("{0}|threshold={1}|features={2}", FeatureSelection.INFO_GAIN.getName(), String.valueOf(threshold), String.valueOf(maxFeatures));
+        String selectionKey = featureSelectionKey(data, description);
+
+        int[] cached = retrieveCachedSelection(selectionKey);
+        if (cached != null) {
+            LOGGER.log(Level.INFO, "Attributi selezionati (info gain): {0}", Arrays.toString(cached));
+            return WrapperFeatureSelector.reduce(data, cached);
+        }
+
         AttributeSelection selector = new AttributeSelection();
         InfoGainAttributeEval evaluator = new InfoGainAttributeEval();
 
         Ranker search = new Ranker();
-        double threshold = config.getValidationFeatureSelectionThreshold();
-        int maxFeatures = config.getValidationFeatureSelectionFeatures();
         if(threshold > 0) search.setThreshold(threshold);
         if(maxFeatures > 0) search.setNumToSelect(maxFeatures);
 
@@ -509,57 +801,122 @@ public class PredictionController extends CsvController {
 
         int[] selected = selector.selectedAttributes();
         LOGGER.log(Level.INFO, "Attributi selezionati (info gain): {0}", Arrays.toString(selected));
+        saveCachedSelection(selectionKey, description, selected);
         return selector.reduceDimensionality(data);
     }
 
+    /**
+     * Calcola la chiave della selezione delle feature: l'hash SHA-256 del contenuto del dataset
+     * (attributi e valori) e della descrizione della configurazione della selezione.
+     */
+    private String featureSelectionKey(Instances data, String description) throws NoSuchAlgorithmException, CloneNotSupportedException {
+        return digestKey(datasetDigest(data), description);
+    }
+
+    /**
+     * Restituisce il digest SHA-256 del contenuto del dataset, da completare con {@link #digestKey}.
+     */
+    private MessageDigest datasetDigest(Instances data) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (int a = 0; a < data.numAttributes(); a++) {
+            Attribute attribute = data.attribute(a);
+            digest.update((attribute.name() + "|" + attribute.type() + "\n").getBytes(StandardCharsets.UTF_8));
+            for (int v = 0; v < attribute.numValues(); v++) digest.update((attribute.value(v) + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        ByteBuffer row = ByteBuffer.allocate(data.numAttributes() * Double.BYTES);
+        for (int i = 0; i < data.numInstances(); i++) {
+            row.clear();
+            for (double value : data.instance(i).toDoubleArray()) row.putLong(Double.doubleToLongBits(value));
+            digest.update(row.array());
+        }
+        return digest;
+    }
+
+    /**
+     * Completa una copia del digest del dataset con la descrizione, lasciando il digest riutilizzabile per altre chiavi.
+     */
+    private static String digestKey(MessageDigest datasetDigest, String description) throws CloneNotSupportedException {
+        MessageDigest digest = (MessageDigest) datasetDigest.clone();
+        digest.update(description.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private int[] retrieveCachedSelection(String key) {
+        if (!config.isFeatureSelectionCacheEnabled()) return null;
+        int[] selected = featureSelectionDao.retrieveSelection(key);
+        if (selected != null) LOGGER.log(Level.INFO, "Selezione delle feature recuperata dalla cache: {0}", key);
+        return selected;
+    }
+
+    private void saveCachedSelection(String key, String description, int[] selected) {
+        if (!config.isFeatureSelectionCacheEnabled()) return;
+        try {
+            featureSelectionDao.saveSelection(key, description, selected);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile salvare la selezione delle feature: " + description);
+        }
+    }
+
     public void computeCorrelation() throws Exception {
         // Carica il dataset filtrato
-        CSVLoader loader = new CSVLoader();
-        loader.setSource(new File(filteredDatasetPath));
-        loader.setFieldSeparator(SEPARATOR);
-        Instances data = loader.getDataSet();
-
-        // Converte stringhe in nominali
-        StringToNominal filter = new StringToNominal();
-        filter.setAttributeRange(ATTRIBUTE_RANGE);
-        filter.setInputFormat(data);
-        data = Filter.useFilter(data, filter);
+        Instances data = loadFilteredDataset();
 
         // Imposta la classe BUGGY_ATTRIBUTE come target
         int classIndex = data.attribute(BUGGY_ATTRIBUTE).index();
         data.setClassIndex(classIndex);
 
-        // Pearson con Weka
-        CorrelationAttributeEval pearsonEval = new CorrelationAttributeEval();
-        pearsonEval.buildEvaluator(data);
-
-        // Prepara CSV
-        String header = "Attributo;Pearson;Spearman";
-        List<String> lines = new ArrayList<>();
-        lines.add(header);
+        // Il dataset viene copiato e ordinato per colonne una sola volta per tutte le correlazioni
+        long start = System.nanoTime();
+        try (var _ = metrics.stage("correlation")) {
+            CorrelationEngine engine = new CorrelationEngine(data);
+            double[] pearson = engine.pearsonWithClass();
+            double[] spearman = engine.spearmanWithClass();
+            boolean kendallEnabled = config.isCorrelationKendallEnabled();
+            double[] kendall = kendallEnabled ? engine.kendallWithClass() : null;
+
+            // Prepara CSV
+            String header = kendallEnabled ? "Attributo;Pearson;Spearman;Kendall" : "Attributo;Pearson;Spearman";
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < data.numAttributes(); i++) {
+                if (i == classIndex) continue;
+                String line = String.format("%s;%.6f;%.6f", data.attribute(i).name(), pearson[i], spearman[i]);
+                if (kendallEnabled) line += String.format(";%.6f", kendall[i]);
+                lines.add(line);
+            }
 
-        for (int i = 0; i < data.numAttributes(); i++) {
-            if (i == classIndex) continue;
+            // Scrivi file CSV
+            String correlationCsvPath = Paths.get(outputDir, projectName + "_correlation.csv").toString();
+            writeCsvFile(correlationCsvPath, header, lines);
+
+            if (config.isCorrelationMatrixEnabled()) {
+                // Matrici tra le coppie di attributi numerici, classe esclusa
+                int[] numericAttributes = IntStream.range(0, data.numAttributes())
+                        .filter(i -> i != classIndex && data.attribute(i).isNumeric())
+                        .toArray();
+                writeCorrelationMatrix(data, numericAttributes, engine.pearsonMatrix(numericAttributes), "pearson");
+                writeCorrelationMatrix(data, numericAttributes, engine.spearmanMatrix(numericAttributes), "spearman");
+            }
+        }
 
-            // Pearson
-            double pearson = pearsonEval.evaluateAttribute(i);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        LOGGER.log(Level.INFO, "Correlazioni di {0} attributi su {1} istanze calcolate in {2} ms",
+                new Object[]{data.numAttributes() - 1, data.numInstances(), elapsedMillis});
+    }
 
-            // Spearman con Apache Commons Math
-            double[] x = new double[data.numInstances()];
-            double[] y = new double[data.numInstances()];
-            for (int j = 0; j < data.numInstances(); j++) {
-                x[j] = data.instance(j).value(i);
-                y[j] = data.instance(j).classValue();
-            }
-            SpearmansCorrelation corr = new SpearmansCorrelation();
-            double spearman = corr.correlation(x, y);
+    private void writeCorrelationMatrix(Instances data, int[] attributes, double[][] matrix, String method) {
+        StringBuilder header = new StringBuilder("Attributo");
+        for (int attribute : attributes) header.append(SEPARATOR).append(data.attribute(attribute).name());
 
-            lines.add(String.format("%s;%.6f;%.6f", data.attribute(i).name(), pearson, spearman));
+        List<String> lines = new ArrayList<>(attributes.length);
+        for (int r = 0; r < attributes.length; r++) {
+            StringBuilder line = new StringBuilder(data.attribute(attributes[r]).name());
+            for (double value : matrix[r]) line.append(SEPARATOR).append(String.format("%.6f", value));
+            lines.add(line.toString());
         }
 
-        // Scrivi file CSV
-        String correlationCsvPath = Paths.get(outputDir, projectName + "_correlation.csv").toString();
-        writeCsvFile(correlationCsvPath, header, lines.subList(1, lines.size())); // header già incluso
+        String matrixCsvPath = Paths.get(outputDir, projectName + "_correlation_matrix_" + method + ".csv").toString();
+        writeCsvFile(matrixCsvPath, header.toString(), lines);
     }
 
     private void printMemoryUsage(String message) {
@@ -567,19 +924,21 @@ public class PredictionController extends CsvController {
         long totalMemory = Runtime.getRuntime().totalMemory() / (1024 * 1024);
         long maxMemory = Runtime.getRuntime().maxMemory() / (1024 * 1024);
         LOGGER.log(Level.INFO, "{0} - Free: {1} MB, Total: {2} MB, Max: {3} MB", new Object[]{message, freeMemory, totalMemory, maxMemory});
+        metrics.sampleHeap();
     }
 
-    // Classe di supporto per le metriche
-    public record ModelMetrics(List<FoldMetrics> foldMetrics) {
-        public ModelMetrics(List<FoldMetrics> foldMetrics) {
-            this.foldMetrics = new ArrayList<>(foldMetrics);
-        }
+    // Dataset del what-if, come vista sul dataset ridotto
+    private record WhatIfDataset(String name, InstancesView view) {}
 
-        @Override
-        public List<FoldMetrics> foldMetrics() {
-            return Collections.unmodifiableList(foldMetrics);
-        }
-    }
+    // Metodi buggy reali e predetti in un dataset del what-if
+    private record BuggyStats(String datasetName, long realBuggy, long predictedBuggy) {}
+
+    // Combinazione di feature selection e modello, con il dataset ridotto su cui valutarla
+    private record EvaluationTarget(String modelName, FeatureSelection featureSelection, Classifier model,
+                                    Instances trainData, int classIndex) {}
+
+    // Singola cella della valutazione walk-forward: una combinazione valutata su un fold
+    private record EvaluationCell(EvaluationTarget target, int foldIndex) {}
 
     public record FoldMetrics(
             int foldIndex,
@@ -0,0 +1,87 @@
+package it.isw2.prediction.controller;
+
+import it.isw2.prediction.model.Version;
+import it.isw2.prediction.repository.VersionRepository;
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice delle istanze del dataset per versione, usato per costruire i fold della validazione walk-forward.
+ * Con una sola passata sul dataset associa a ogni istanza l'ordinale della sua versione
+ * nella lista ordinata per data di rilascio; per ogni ordinale mantiene l'insieme delle istanze
+ * con versione precedente, per cui training e test set di un fold si ottengono come intervalli
+ * di versioni senza confronti tra stringhe.
+ * <p>
+ * L'indice è immutabile e può essere condiviso tra più thread.
+ */
+public class VersionFoldIndex {
+
+    // instancesBefore[i] contiene le istanze con ordinale di versione minore di i
+    private final BitSet[] instancesBefore;
+
+    /**
+     * Costruisce l'indice.
+     *
+     * @param data              il dataset con l'attributo della versione
+     * @param versionAttribute  il nome dell'attributo della versione
+     * @param versions          le versioni ordinate per data di rilascio
+     * @param versionRepository il repository usato per risolvere i nomi delle versioni
+     */
+    public VersionFoldIndex(Instances data, String versionAttribute, List<Version> versions, VersionRepository versionRepository) {
+        Attribute attribute = data.attribute(versionAttribute);
+
+        // Ogni nome di versione viene risolto una sola volta
+        Map<String, Integer> ordinalsByName = new HashMap<>();
+        int[] instanceOrdinals = new int[data.numInstances()];
+        for (int j = 0; j < data.numInstances(); j++) {
+            String versionName = data.instance(j).stringValue(attribute);
+            instanceOrdinals[j] = ordinalsByName.computeIfAbsent(versionName,
+                    name -> versions.indexOf(versionRepository.retrieveVersionByName(name)));
+        }
+
+        // Insiemi cumulativi: le istanze con versione sconosciuta (ordinale -1) non appartengono a nessun fold
+        BitSet[] instancesOfVersion = new BitSet[versions.size()];
+        Arrays.setAll(instancesOfVersion, _ -> new BitSet(data.numInstances()));
+        for (int j = 0; j < instanceOrdinals.length; j++) {
+            if (instanceOrdinals[j] >= 0) instancesOfVersion[instanceOrdinals[j]].set(j);
+        }
+
+        instancesBefore = new BitSet[versions.size() + 1];
+        instancesBefore[0] = new BitSet(data.numInstances());
+        for (int i = 0; i < versions.size(); i++) {
+            BitSet cumulative = (BitSet) instancesBefore[i].clone();
+            cumulative.or(instancesOfVersion[i]);
+            instancesBefore[i + 1] = cumulative;
+        }
+    }
+
+    /**
+     * Restituisce le istanze con ordinale di versione nell'intervallo [fromOrdinal, toOrdinal).
+     * L'insieme restituito è una copia e può essere modificato dal chiamante.
+     */
+    public BitSet instancesBetween(int fromOrdinal, int toOrdinal) {
+        BitSet instances = (BitSet) instancesBefore[toOrdinal].clone();
+        instances.andNot(instancesBefore[fromOrdinal]);
+        return instances;
+    }
+
+    /**
+     * Copia nel dataset di destinazione le istanze dell'insieme, in ordine di indice.
+     *
+     * @param source      il dataset da cui leggere le istanze, allineato a quello indicizzato
+     * @param instances   gli indici delle istanze da copiare
+     * @param destination il dataset di destinazione
+     */
+    public static void copyInstances(Instances source, BitSet instances, Instances destination) {
+        for (int j = instances.nextSetBit(0); j >= 0; j = instances.nextSetBit(j + 1)) {
+            destination.add(source.instance(j));
+        }
+    }
+
+}
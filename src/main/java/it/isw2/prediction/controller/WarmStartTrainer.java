@@ -0,0 +1,138 @@
+package it.isw2.prediction.controller;
+
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.classifiers.UpdateableClassifier;
+import weka.classifiers.trees.RandomForest;
+import weka.core.Instance;
+import weka.core.Instances;
+
+import java.io.Serial;
+import java.util.ArrayList;
+
+/**
+ * Addestramento incrementale di un classificatore lungo i fold della validazione walk-forward.
+ * Ogni fold aggiunge al training set solo le istanze delle nuove versioni, per cui il modello
+ * viene aggiornato invece di essere riaddestrato da zero:
+ * <ul>
+ *     <li>i classificatori aggiornabili (NaiveBayes, IBk) ricevono le nuove istanze con {@code updateClassifier};</li>
+ *     <li>RandomForest mantiene un insieme di foreste, una per ogni gruppo di nuove istanze,
+ *     che votano pesate per il numero di istanze su cui sono state addestrate;</li>
+ *     <li>gli altri classificatori vengono riaddestrati sull'intero training set.</li>
+ * </ul>
+ * L'istanza non è thread-safe: i fold di uno stesso modello vanno valutati in sequenza.
+ */
+public class WarmStartTrainer {
+
+    private final Classifier prototype;
+    private final Instances trainSet;
+
+    private Classifier classifier;
+
+    /**
+     * @param prototype il classificatore da addestrare, che non viene modificato
+     * @param header    il dataset da cui ricavare la struttura del training set, con l'indice di classe impostato
+     */
+    public WarmStartTrainer(Classifier prototype, Instances header) {
+        this.prototype = prototype;
+        this.trainSet = new Instances(header, 0);
+    }
+
+    /**
+     * Aggiunge al training set le nuove istanze e aggiorna il classificatore.
+     *
+     * @param newInstances le istanze delle versioni aggiunte al training set
+     * @throws Exception se l'addestramento fallisce
+     */
+    public void advance(Instances newInstances) throws Exception {
+        for (Instance instance : newInstances) trainSet.add(instance);
+        if (trainSet.isEmpty()) return;
+
+        if (classifier == null) {
+            // Primo addestramento: per RandomForest il primo gruppo di istanze è l'intero training set
+            classifier = prototype instanceof RandomForest ? new ForestPool((RandomForest) prototype) : AbstractClassifier.makeCopy(prototype);
+            if (classifier instanceof ForestPool pool) pool.addForest(trainSet);
+            else classifier.buildClassifier(trainSet);
+            return;
+        }
+
+        if (newInstances.isEmpty()) return;
+        switch (classifier) {
+            case UpdateableClassifier updateable -> {
+                for (Instance instance : newInstances) updateable.updateClassifier(instance);
+            }
+            case ForestPool pool -> pool.addForest(newInstances);
+            default -> {
+                classifier = AbstractClassifier.makeCopy(prototype);
+                classifier.buildClassifier(trainSet);
+            }
+        }
+    }
+
+    /**
+     * Restituisce il training set accumulato finora.
+     */
+    public Instances getTrainSet() {
+        return trainSet;
+    }
+
+    /**
+     * Restituisce il classificatore addestrato, o null se il training set è ancora vuoto.
+     */
+    public Classifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Insieme di foreste addestrate su gruppi disgiunti di istanze.
+     * Ogni foresta è una copia del prototipo con seed diverso; la distribuzione è la media
+     * delle distribuzioni delle foreste pesata per il numero di istanze di addestramento.
+     */
+    private static class ForestPool extends AbstractClassifier {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // Tipi concreti serializzabili: AbstractClassifier.makeCopy copia il classificatore serializzandolo
+        private final RandomForest prototype;
+        private final ArrayList<RandomForest> forests = new ArrayList<>();
+        private final ArrayList<Integer> weights = new ArrayList<>();
+
+        private ForestPool(RandomForest prototype) {
+            this.prototype = prototype;
+        }
+
+        private void addForest(Instances instances) throws Exception {
+            RandomForest forest = (RandomForest) AbstractClassifier.makeCopy(prototype);
+            forest.setSeed(prototype.getSeed() + forests.size());
+            forest.buildClassifier(new Instances(instances));
+            forests.add(forest);
+            weights.add(instances.numInstances());
+        }
+
+        @Override
+        public void buildClassifier(Instances data) throws Exception {
+            forests.clear();
+            weights.clear();
+            addForest(data);
+        }
+
+        @Override
+        public double[] distributionForInstance(Instance instance) throws Exception {
+            double[] distribution = new double[instance.numClasses()];
+            double totalWeight = 0;
+            for (int f = 0; f < forests.size(); f++) {
+                double[] forestDistribution = forests.get(f).distributionForInstance(instance);
+                int weight = weights.get(f);
+                for (int c = 0; c < distribution.length; c++) distribution[c] += forestDistribution[c] * weight;
+                totalWeight += weight;
+            }
+            if (totalWeight > 0) {
+                for (int c = 0; c < distribution.length; c++) distribution[c] /= totalWeight;
+            }
+            return distribution;
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+package it.isw2.prediction.controller;
+
+import weka.core.Attribute;
+import weka.core.Instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scenario controfattuale del what-if: un insieme di modifiche congiunte ai valori delle feature.
+ * Uno scenario è descritto da modifiche separate da '+', ciascuna in una delle forme:
+ * <ul>
+ *     <li>{@code Feature=valore}: imposta la feature al valore indicato (ad esempio {@code Cyclomatic=0});</li>
+ *     <li>{@code Feature=-P%}: riduce la feature del P percento (ad esempio {@code Cyclomatic=-50%});</li>
+ *     <li>{@code Feature<=soglia}: limita la feature alla soglia (ad esempio {@code Statement<=10}).</li>
+ * </ul>
+ * Le modifiche su feature assenti dal dataset, ad esempio perché scartate dalla feature selection,
+ * vengono ignorate perché non influenzano il modello.
+ */
+public class WhatIfScenario {
+
+    private static final Logger LOGGER = Logger.getLogger(WhatIfScenario.class.getName());
+
+    private static final Pattern CHANGE_PATTERN = Pattern.compile("^\\s*([\\w.]+)\\s*(<=|=)\\s*(-?\\d+(?:\\.\\d+)?)(%?)\\s*$");
+
+    private enum Operation { SET, REDUCE_PERCENT, CAP }
+
+    private record Change(int attribute, Operation operation, double amount) {}
+
+    private final String name;
+    private final List<Change> changes;
+
+    private WhatIfScenario(String name, List<Change> changes) {
+        this.name = name;
+        this.changes = changes;
+    }
+
+    /**
+     * Interpreta la descrizione dello scenario e ne risolve le feature sugli attributi del dataset.
+     *
+     * @param spec la descrizione dello scenario
+     * @param data il dataset su cui verrà applicato lo scenario
+     * @return lo scenario
+     * @throws IllegalArgumentException se la descrizione non è valida o modifica un attributo non numerico
+     */
+    public static WhatIfScenario parse(String spec, Instances data) {
+        List<Change> changes = new ArrayList<>();
+        for (String part : spec.split("\\+")) {
+            Matcher matcher = CHANGE_PATTERN.matcher(part);
+            if (!matcher.matches()) throw new IllegalArgumentException("Modifica dello scenario non valida: " + part);
+
+            String feature = matcher.group(1);
+            Attribute attribute = data.attribute(feature);
+            if (attribute == null) {
+                LOGGER.log(Level.WARNING, "Feature {0} dello scenario {1} non presente nel dataset: modifica ignorata", new Object[]{feature, spec});
+                continue;
+            }
+            if (!attribute.isNumeric()) throw new IllegalArgumentException("La feature dello scenario non è numerica: " + feature);
+
+            double amount = Double.parseDouble(matcher.group(3));
+            boolean percent = !matcher.group(4).isEmpty();
+            Operation operation;
+            if (matcher.group(2).equals("<=")) {
+                if (percent) throw new IllegalArgumentException("Soglia percentuale non supportata: " + part);
+                operation = Operation.CAP;
+            } else if (percent) {
+                if (amount > 0) throw new IllegalArgumentException("Sono supportate solo riduzioni percentuali: " + part);
+                operation = Operation.REDUCE_PERCENT;
+                amount = -amount / 100.0;
+            } else {
+                operation = Operation.SET;
+            }
+            changes.add(new Change(attribute.index(), operation, amount));
+        }
+        return new WhatIfScenario(spec.trim(), List.copyOf(changes));
+    }
+
+    /**
+     * Interpreta un elenco di scenari separati da ';'.
+     */
+    public static List<WhatIfScenario> parseAll(String specs, Instances data) {
+        List<WhatIfScenario> scenarios = new ArrayList<>();
+        for (String spec : specs.split(";")) {
+            if (!spec.isBlank()) scenarios.add(parse(spec, data));
+        }
+        return scenarios;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Applica le modifiche ai valori di un'istanza.
+     * I valori mancanti non vengono modificati.
+     *
+     * @param values i valori dell'istanza, modificati sul posto
+     * @return true se almeno un valore è cambiato
+     */
+    public boolean apply(double[] values) {
+        boolean modified = false;
+        for (Change change : changes) {
+            double value = values[change.attribute()];
+            if (Double.isNaN(value)) continue;
+
+            double newValue = switch (change.operation()) {
+                case SET -> change.amount();
+                case REDUCE_PERCENT -> value * (1 - change.amount());
+                case CAP -> Math.min(value, change.amount());
+            };
+            if (newValue != value) {
+                values[change.attribute()] = newValue;
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+}
@@ -0,0 +1,205 @@
+package it.isw2.prediction.controller;
+
+import weka.attributeSelection.WrapperSubsetEval;
+import weka.classifiers.AbstractClassifier;
+import weka.classifiers.Classifier;
+import weka.core.Instances;
+import weka.core.SelectedTag;
+import weka.filters.Filter;
+import weka.filters.unsupervised.attribute.Remove;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selezione delle feature wrapper con ricerca greedy stepwise (forward o backward).
+ * Replica il comportamento di WrapperSubsetEval + GreedyStepwise di Weka, ma a ogni passo
+ * valuta in parallelo tutti i subset candidati e memorizza il merito di ogni subset già valutato,
+ * per cui un subset non viene mai rivalutato né durante la ricerca né in ricerche successive
+ * che condividono la stessa cache.
+ * <p>
+ * WrapperSubsetEval usa un generatore casuale inizializzato con lo stesso seed a ogni valutazione,
+ * quindi il merito dipende solo dal subset e il risultato coincide con quello della ricerca sequenziale.
+ */
+public class WrapperFeatureSelector {
+
+    private static final Logger LOGGER = Logger.getLogger(WrapperFeatureSelector.class.getName());
+
+    private final Classifier model;
+    private final int folds;
+    private final int seed;
+    private final int parallelism;
+    private final Map<BitSet, Double> scoreCache;
+
+    /**
+     * @param model       il classificatore da usare nel wrapper, che non viene modificato
+     * @param folds       il numero di fold della cross-validation di ogni subset
+     * @param seed        il seed della cross-validation
+     * @param parallelism il numero di subset valutati in parallelo
+     * @param scoreCache  la cache dei meriti per subset, che deve essere thread-safe e
+     *                    relativa allo stesso dataset e classificatore
+     */
+    public WrapperFeatureSelector(Classifier model, int folds, int seed, int parallelism, Map<BitSet, Double> scoreCache) {
+        this.model = model;
+        this.folds = folds;
+        this.seed = seed;
+        this.parallelism = parallelism;
+        this.scoreCache = scoreCache;
+    }
+
+    /**
+     * Esegue la ricerca e restituisce gli attributi selezionati come AttributeSelection.selectedAttributes:
+     * gli indici delle feature in ordine crescente seguiti dall'indice della classe.
+     * Se il dataset non ha un attributo di classe viene usato l'ultimo.
+     *
+     * @param data     il dataset su cui applicare la selezione
+     * @param backward true per la ricerca backward, false per quella forward
+     * @return gli indici degli attributi selezionati
+     * @throws Exception se la valutazione di un subset fallisce
+     */
+    public int[] select(Instances data, boolean backward) throws Exception {
+        Instances workingData = new Instances(data);
+        if (workingData.classIndex() < 0) workingData.setClassIndex(workingData.numAttributes() - 1);
+        int classIndex = workingData.classIndex();
+        int numAttributes = workingData.numAttributes();
+
+        // Ogni thread usa un proprio evaluator, perché WrapperSubsetEval non è thread-safe
+        ConcurrentLinkedQueue<WrapperSubsetEval> evaluators = new ConcurrentLinkedQueue<>();
+
+        BitSet bestGroup = new BitSet(numAttributes);
+        if (backward) {
+            bestGroup.set(0, numAttributes);
+            bestGroup.clear(classIndex);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            double bestMerit = score(List.of(bestGroup), workingData, evaluators, pool)[0];
+
+            int step = 0;
+            while (true) {
+                long start = System.nanoTime();
+
+                // Subset candidati del passo: aggiunta (forward) o rimozione (backward) di un attributo
+                List<Integer> candidates = new ArrayList<>();
+                List<BitSet> subsets = new ArrayList<>();
+                for (int i = 0; i < numAttributes; i++) {
+                    if (i == classIndex || bestGroup.get(i) != backward) continue;
+                    BitSet subset = (BitSet) bestGroup.clone();
+                    subset.flip(i);
+                    candidates.add(i);
+                    subsets.add(subset);
+                }
+                long evaluated = subsets.stream().filter(subset -> !scoreCache.containsKey(subset)).count();
+                double[] merits = score(subsets, workingData, evaluators, pool);
+
+                // Stesso criterio di GreedyStepwise: a parità di merito forward tiene il primo, backward l'ultimo
+                int bestCandidate = -1;
+                double stepBest = bestMerit;
+                for (int c = 0; c < merits.length; c++) {
+                    boolean better = backward ? merits[c] >= stepBest : merits[c] > stepBest;
+                    if (better) {
+                        stepBest = merits[c];
+                        bestCandidate = c;
+                    }
+                }
+
+                step++;
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+                LOGGER.log(Level.INFO, "Passo {0}: {1} subset candidati ({2} valutati, {3} dalla cache), merito {4}, {5} ms",
+                        new Object[]{step, subsets.size(), evaluated, subsets.size() - evaluated, stepBest, elapsedMillis});
+
+                if (bestCandidate < 0) break;
+                bestGroup.flip(candidates.get(bestCandidate));
+                bestMerit = stepBest;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int[] selected = new int[bestGroup.cardinality() + 1];
+        int s = 0;
+        for (int i = bestGroup.nextSetBit(0); i >= 0; i = bestGroup.nextSetBit(i + 1)) selected[s++] = i;
+        selected[s] = classIndex;
+        return selected;
+    }
+
+    /**
+     * Restituisce il merito dei subset, valutando in parallelo quelli non presenti nella cache.
+     */
+    private double[] score(List<BitSet> subsets, Instances data, ConcurrentLinkedQueue<WrapperSubsetEval> evaluators, ForkJoinPool pool) throws Exception {
+        List<ForkJoinTask<Double>> tasks = new ArrayList<>(subsets.size());
+        for (BitSet subset : subsets) {
+            tasks.add(scoreCache.containsKey(subset) ? null : pool.submit(() -> evaluate(subset, data, evaluators)));
+        }
+
+        double[] merits = new double[subsets.size()];
+        for (int s = 0; s < subsets.size(); s++) {
+            ForkJoinTask<Double> task = tasks.get(s);
+            if (task == null) {
+                merits[s] = scoreCache.get(subsets.get(s));
+                continue;
+            }
+            try {
+                merits[s] = task.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) throw cause;
+                throw e;
+            }
+        }
+        return merits;
+    }
+
+    private double evaluate(BitSet subset, Instances data, ConcurrentLinkedQueue<WrapperSubsetEval> evaluators) throws Exception {
+        WrapperSubsetEval evaluator = evaluators.poll();
+        if (evaluator == null) evaluator = newEvaluator(data);
+        try {
+            double merit = evaluator.evaluateSubset(subset);
+            scoreCache.put((BitSet) subset.clone(), merit);
+            return merit;
+        } finally {
+            evaluators.add(evaluator);
+        }
+    }
+
+    private WrapperSubsetEval newEvaluator(Instances data) throws Exception {
+        WrapperSubsetEval evaluator = new WrapperSubsetEval();
+        evaluator.setClassifier(AbstractClassifier.makeCopy(model));
+        evaluator.setFolds(folds);
+        evaluator.setSeed(seed);
+        evaluator.setEvaluationMeasure(new SelectedTag(
+                WrapperSubsetEval.EVAL_ACCURACY, WrapperSubsetEval.TAGS_EVALUATION
+        ));
+        evaluator.buildEvaluator(data);
+        return evaluator;
+    }
+
+    /**
+     * Riduce il dataset agli attributi indicati come AttributeSelection.reduceDimensionality:
+     * gli attributi mantengono l'ordine del dataset originale.
+     *
+     * @param data     il dataset da ridurre
+     * @param selected gli indici degli attributi da mantenere, con la classe in ultima posizione
+     * @return il dataset ridotto, con la classe impostata
+     * @throws Exception se il filtro non può essere applicato
+     */
+    public static Instances reduce(Instances data, int[] selected) throws Exception {
+        Remove remove = new Remove();
+        remove.setAttributeIndicesArray(selected);
+        remove.setInvertSelection(true);
+        remove.setInputFormat(data);
+        Instances reduced = Filter.useFilter(data, remove);
+        String classAttribute = data.attribute(selected[selected.length - 1]).name();
+        reduced.setClassIndex(reduced.attribute(classAttribute).index());
+        return reduced;
+    }
+
+}
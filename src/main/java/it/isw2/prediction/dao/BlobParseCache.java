@@ -0,0 +1,119 @@
+package it.isw2.prediction.dao;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache LRU dei blob analizzati, indicizzata per ObjectId del blob.
+ * Poiché il contenuto di un blob è identificato dal suo hash, lo stesso blob
+ * (ad esempio il lato "nuovo" di un commit e il lato "vecchio" del successivo)
+ * viene analizzato una sola volta finché resta in cache.
+ * La cache è thread-safe: se più thread richiedono lo stesso blob, il parsing
+ * viene eseguito da uno solo di essi e gli altri ne attendono il risultato.
+ */
+public class BlobParseCache {
+
+    private static final Logger LOGGER = Logger.getLogger(BlobParseCache.class.getName());
+
+    private final Map<ObjectId, FutureTask<ParsedBlob>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries numero massimo di blob mantenuti in cache
+     */
+    public BlobParseCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ObjectId, FutureTask<ParsedBlob>> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) evictions.increment();
+                return evict;
+            }
+        };
+    }
+
+    /**
+     * Restituisce il blob analizzato, eseguendo il parsing solo se il blob non è in cache.
+     *
+     * @param blobId l'ID del blob
+     * @param parser la funzione che esegue il parsing del blob, può restituire null se il blob non è analizzabile
+     * @return il blob analizzato, o null se il parsing non è riuscito
+     */
+    public ParsedBlob get(ObjectId blobId, Supplier<ParsedBlob> parser) {
+        FutureTask<ParsedBlob> task;
+        boolean owner = false;
+
+        synchronized (entries) {
+            task = entries.get(blobId);
+            if (task == null) {
+                task = new FutureTask<>(parser::get);
+                entries.put(blobId, task);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            misses.increment();
+            task.run();
+        } else {
+            hits.increment();
+        }
+
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            // Solo chi ha eseguito il parsing registra l'errore e rimuove il proprio task, non uno aggiunto nel frattempo
+            if (owner) {
+                LOGGER.log(Level.WARNING, e, () -> "Errore nel parsing del blob " + blobId.getName());
+                synchronized (entries) {
+                    entries.remove(blobId, task);
+                }
+            }
+            return null;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total > 0 ? (double) getHits() / total : 0.0;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BlobParseCache => hits: %d, misses: %d, evictions: %d, hit rate: %.2f%%",
+                getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+
+}
@@ -0,0 +1,86 @@
+package it.isw2.prediction.dao;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Providers;
+import com.github.javaparser.ast.CompilationUnit;
+import org.eclipse.jgit.lib.ObjectLoader;
+import org.eclipse.jgit.lib.ObjectStream;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser dei blob Java che legge direttamente i byte dell'ObjectLoader, senza costruire
+ * la stringa del file. Ogni thread usa una propria istanza, recuperata con {@link #forCurrentThread()},
+ * che riutilizza tra un blob e l'altro il JavaParser, il decoder UTF-8 e il buffer dei caratteri.
+ * <p>
+ * I blob piccoli vengono decodificati dai byte già in cache in JGit nel buffer riutilizzato;
+ * i blob grandi vengono letti in streaming con openStream, senza caricarli interamente in memoria.
+ */
+public class BlobParser {
+
+    // Oltre questa dimensione il blob viene letto in streaming e il buffer non viene fatto crescere
+    private static final int MAX_BUFFERED_BYTES = 1 << 20;
+    private static final int INITIAL_BUFFER_SIZE = 1 << 14;
+
+    private static final ThreadLocal<BlobParser> PARSERS = ThreadLocal.withInitial(BlobParser::new);
+
+    private final JavaParser parser = new JavaParser();
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+
+    private BlobParser() {}
+
+    /**
+     * Restituisce il parser del thread corrente. Il parser non va passato ad altri thread.
+     */
+    public static BlobParser forCurrentThread() {
+        return PARSERS.get();
+    }
+
+    /**
+     * Esegue il parsing del blob.
+     *
+     * @param loader il loader del blob, aperto con il reader del thread corrente
+     * @return il CompilationUnit risultante, o null se il blob non è analizzabile
+     * @throws IOException se non è possibile leggere il blob
+     */
+    public CompilationUnit parse(ObjectLoader loader) throws IOException {
+        long size = loader.getSize();
+        if (loader.isLarge() || size > MAX_BUFFERED_BYTES) {
+            try (ObjectStream stream = loader.openStream()) {
+                return parser.parse(ParseStart.COMPILATION_UNIT, Providers.provider(stream, StandardCharsets.UTF_8))
+                        .getResult().orElse(null);
+            }
+        }
+
+        // I byte in cache non vanno modificati, vengono solo letti dal decoder
+        int length = decode(loader.getCachedBytes());
+        return parser.parse(ParseStart.COMPILATION_UNIT, Providers.provider(new CharArrayReader(buffer, 0, length)))
+                .getResult().orElse(null);
+    }
+
+    /**
+     * Decodifica i byte UTF-8 nel buffer dei caratteri, facendolo crescere se necessario.
+     * In UTF-8 ogni carattere occupa almeno un byte, per cui bastano tanti caratteri quanti sono i byte.
+     *
+     * @return il numero di caratteri decodificati
+     */
+    private int decode(byte[] bytes) {
+        if (buffer.length < bytes.length) buffer = new char[Math.max(bytes.length, Math.min(buffer.length * 2, MAX_BUFFERED_BYTES))];
+        CharBuffer out = CharBuffer.wrap(buffer);
+        decoder.reset();
+        decoder.decode(ByteBuffer.wrap(bytes), out, true);
+        decoder.flush(out);
+        return out.position();
+    }
+
+}
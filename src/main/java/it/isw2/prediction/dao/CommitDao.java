@@ -12,6 +12,16 @@ public interface CommitDao {
      */
     List<Commit> retrieveCommits();
 
+    /**
+     * Ritorna i commit raggiungibili da un commit ma non da un altro (intervallo from..to).
+     * A differenza di {@link #retrieveCommits()} restituisce anche i commit senza versione associata.
+     *
+     * @param fromCommitId l'ID del commit da escludere insieme ai suoi antenati, o null per partire dalla radice
+     * @param toCommitId   l'ID del commit (o il nome del riferimento) da cui iniziare la visita
+     * @return Commit nell'intervallo
+     */
+    List<Commit> retrieveCommitsBetween(String fromCommitId, String toCommitId);
+
     /**
      * Ritorna l'ultimo commit di un particolare branch.
      *
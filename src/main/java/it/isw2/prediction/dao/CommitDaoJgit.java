@@ -1,16 +1,15 @@
 package it.isw2.prediction.dao;
 
-import it.isw2.prediction.config.ApplicationConfig;
-import it.isw2.prediction.config.GitApiConfig;
 import it.isw2.prediction.factory.CommitFactory;
 import it.isw2.prediction.model.Commit;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.LogCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,18 +23,10 @@ public class CommitDaoJgit implements CommitDao {
     public List<Commit> retrieveCommits() {
         List<Commit> commits = new ArrayList<>();
 
-        try {
-            // Apro il repository Git
-            ApplicationConfig appConfig = new ApplicationConfig();
-            String repoPath = GitApiConfig.getProjectsPath(appConfig.getSelectedProject());
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            File gitDir = new File(repoPath + "/.git");
-
-            try (Repository repository = builder.setGitDir(gitDir)
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-                 Git git = new Git(repository)) {
+        try (var _ = PipelineMetrics.getInstance().stage("git.commit-walk")) {
+            // Uso il repository Git condiviso, che resta aperto per tutta l'esecuzione
+            Repository repository = GitRepositorySession.getInstance().getRepository();
+            try (Git git = Git.wrap(repository)) {
 
                 // Recupero solo i commit sul branch master
                 Iterable<RevCommit> revCommits = git.log()
@@ -49,6 +40,7 @@ public class CommitDaoJgit implements CommitDao {
                     Commit commit = commitFactory.createCommit(revCommit);
                     if(commit.getVersion() != null) commits.add(commit);
                 }
+                PipelineMetrics.getInstance().count("git.commits-walked", commits.size());
 
                 LOGGER.log(Level.FINE, "Recuperati {0} commit dal branch master.", commits.size());
             }
@@ -62,20 +54,47 @@ public class CommitDaoJgit implements CommitDao {
         return commits;
     }
 
+    @Override
+    public List<Commit> retrieveCommitsBetween(String fromCommitId, String toCommitId) {
+        List<Commit> commits = new ArrayList<>();
+
+        try (var _ = PipelineMetrics.getInstance().stage("git.commit-walk-range")) {
+            // Uso il repository Git condiviso, che resta aperto per tutta l'esecuzione
+            Repository repository = GitRepositorySession.getInstance().getRepository();
+            try (Git git = Git.wrap(repository)) {
+
+                // Escludo il commit di partenza e tutti i suoi antenati
+                LogCommand log = git.log().add(repository.resolve(toCommitId));
+                if (fromCommitId != null) {
+                    ObjectId from = repository.resolve(fromCommitId);
+                    if (from == null) throw new IOException("Commit di partenza non trovato: " + fromCommitId);
+                    log.not(from);
+                }
+
+                CommitFactory commitFactory = CommitFactory.getInstance();
+
+                // Converto i RevCommit in oggetti Commit, anche se non hanno una versione associata
+                for (RevCommit revCommit : log.call()) commits.add(commitFactory.createCommit(revCommit));
+                PipelineMetrics.getInstance().count("git.commits-walked", commits.size());
+
+                LOGGER.log(Level.FINE, "Recuperati {0} commit nell''intervallo {1}..{2}.", new Object[]{commits.size(), fromCommitId, toCommitId});
+            }
+
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Errore nell'apertura del repository Git", e);
+        } catch (GitAPIException e) {
+            LOGGER.log(Level.SEVERE, "Errore nell'esecuzione del comando Git", e);
+        }
+
+        return commits;
+    }
+
     @Override
     public Commit retriveLastCommitOfBranch(String branchName) {
         try {
-            // Apro il repository Git
-            ApplicationConfig appConfig = new ApplicationConfig();
-            String repoPath = GitApiConfig.getProjectsPath(appConfig.getSelectedProject());
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            File gitDir = new File(repoPath + "/.git");
-
-            try (Repository repository = builder.setGitDir(gitDir)
-                    .readEnvironment()
-                    .findGitDir()
-                    .build();
-                 Git git = new Git(repository)) {
+            // Uso il repository Git condiviso, che resta aperto per tutta l'esecuzione
+            Repository repository = GitRepositorySession.getInstance().getRepository();
+            try (Git git = Git.wrap(repository)) {
 
                 // Recupero solo i commit sul branch master
                 Iterable<RevCommit> revCommits = git.log()
@@ -0,0 +1,75 @@
+package it.isw2.prediction.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.utils.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Salva e recupera gli attributi scelti dalla selezione delle feature,
+ * nei file cache/{selectedProject}/feature-selection/{chiave}.json.
+ * La chiave identifica il dataset e la configurazione della selezione, per cui
+ * un'esecuzione con gli stessi parametri può riusare il risultato senza ripetere la ricerca.
+ */
+public class FeatureSelectionDao {
+
+    private static final Logger LOGGER = Logger.getLogger(FeatureSelectionDao.class.getName());
+
+    public static final String FEATURE_SELECTION_DIR = "feature-selection";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path selectionDir;
+
+    public FeatureSelectionDao() {
+        ApplicationConfig config = new ApplicationConfig();
+        this.selectionDir = Paths.get("cache", config.getSelectedProject().name(), FEATURE_SELECTION_DIR);
+    }
+
+    /**
+     * Recupera gli attributi selezionati salvati con la chiave indicata.
+     *
+     * @param key la chiave della selezione
+     * @return gli indici degli attributi selezionati, o null se la selezione non è salvata o non è leggibile
+     */
+    public int[] retrieveSelection(String key) {
+        Path file = selectionDir.resolve(key + ".json");
+        if (!Files.exists(file)) return null;
+        try {
+            JsonNode selected = mapper.readTree(file.toFile()).get("selected");
+            int[] attributes = new int[selected.size()];
+            for (int i = 0; i < attributes.length; i++) attributes[i] = selected.get(i).asInt();
+            return attributes;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile leggere la selezione delle feature salvata: " + file);
+            return null;
+        }
+    }
+
+    /**
+     * Salva gli attributi selezionati con la chiave indicata.
+     *
+     * @param key         la chiave della selezione
+     * @param description la descrizione leggibile della configurazione, salvata solo a scopo informativo
+     * @param selected    gli indici degli attributi selezionati
+     * @throws IOException se non è possibile scrivere il file
+     */
+    public void saveSelection(String key, String description, int[] selected) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("description", description);
+        ArrayNode attributes = root.putArray("selected");
+        for (int attribute : selected) attributes.add(attribute);
+
+        AtomicFiles.writeString(selectionDir.resolve(key + ".json"), mapper.writeValueAsString(root));
+        LOGGER.log(Level.INFO, "Selezione delle feature salvata: {0}", description);
+    }
+
+}
@@ -0,0 +1,106 @@
+package it.isw2.prediction.dao;
+
+import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.config.GitApiConfig;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sessione condivisa sul repository Git del progetto selezionato.
+ * Il repository viene aperto una sola volta e usato da tutti i DAO, così la cache delle finestre
+ * dei pack resta calda per l'intera esecuzione. Ogni thread riceve un proprio ObjectReader, che non
+ * è thread-safe ma conserva tra una lettura e l'altra l'inflater e la cache delle basi dei delta.
+ * <p>
+ * La configurazione della cache delle finestre (dimensione, limite, cache delle basi dei delta
+ * e lettura dei pack tramite mmap) viene installata prima dell'apertura del repository.
+ */
+public class GitRepositorySession {
+
+    private static final Logger LOGGER = Logger.getLogger(GitRepositorySession.class.getName());
+
+    private static GitRepositorySession instance = null;
+
+    public static synchronized GitRepositorySession getInstance() throws IOException {
+        if (instance == null) instance = new GitRepositorySession();
+        return instance;
+    }
+
+    private final Repository repository;
+
+    // Reader del thread corrente; viene sostituito da releaseReaders per scartare quelli dei thread terminati
+    private volatile ThreadLocal<ObjectReader> readers = new ThreadLocal<>();
+    private final Set<ObjectReader> openReaders = ConcurrentHashMap.newKeySet();
+
+    private GitRepositorySession() throws IOException {
+        ApplicationConfig config = new ApplicationConfig();
+
+        WindowCacheConfig cacheConfig = new WindowCacheConfig();
+        cacheConfig.setPackedGitWindowSize(config.getGitWindowSize());
+        cacheConfig.setPackedGitLimit(config.getGitWindowCacheLimit());
+        cacheConfig.setDeltaBaseCacheLimit(config.getGitDeltaBaseCacheLimit());
+        cacheConfig.setStreamFileThreshold(config.getGitStreamFileThreshold());
+        cacheConfig.setPackedGitMMAP(config.isGitMmapEnabled());
+        cacheConfig.install();
+
+        File gitDir = new File(GitApiConfig.getProjectsPath(config.getSelectedProject()) + "/.git");
+        this.repository = new FileRepositoryBuilder()
+                .setGitDir(gitDir)
+                .readEnvironment()
+                .findGitDir()
+                .build();
+
+        LOGGER.log(Level.INFO, "Repository Git aperto: {0} (finestre da {1} byte, limite {2} byte, cache dei delta {3} byte, mmap {4})",
+                new Object[]{gitDir, cacheConfig.getPackedGitWindowSize(), cacheConfig.getPackedGitLimit(),
+                        cacheConfig.getDeltaBaseCacheLimit(), cacheConfig.isPackedGitMMAP()});
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    /**
+     * Restituisce il repository condiviso. Il repository non va chiuso dal chiamante.
+     */
+    public Repository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Restituisce l'ObjectReader del thread corrente, creandolo al primo utilizzo.
+     * Il reader non va chiuso dal chiamante e non va passato ad altri thread.
+     */
+    public ObjectReader getReader() {
+        ThreadLocal<ObjectReader> current = readers;
+        ObjectReader reader = current.get();
+        if (reader == null) {
+            reader = repository.newObjectReader();
+            openReaders.add(reader);
+            current.set(reader);
+        }
+        return reader;
+    }
+
+    /**
+     * Chiude i reader di tutti i thread, ad esempio al termine di un pool di analisi.
+     * Va invocato quando nessun thread sta usando il proprio reader; i thread che
+     * richiederanno un reader in seguito ne riceveranno uno nuovo.
+     */
+    public void releaseReaders() {
+        readers = new ThreadLocal<>();
+        for (ObjectReader reader : openReaders) reader.close();
+        openReaders.clear();
+    }
+
+    private void close() {
+        releaseReaders();
+        repository.close();
+    }
+
+}
@@ -9,37 +9,56 @@ import it.isw2.prediction.factory.VersionRepositoryFactory;
 import it.isw2.prediction.model.Commit;
 import it.isw2.prediction.model.Method;
 import it.isw2.prediction.model.Version;
+import it.isw2.prediction.model.metric.MethodMetric;
+import it.isw2.prediction.model.metric.MetricRegistry;
 import it.isw2.prediction.repository.CommitRepository;
 import it.isw2.prediction.repository.VersionRepository;
 
 import java.io.IOException;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MethodDaoFile implements MethodDao {
 
+    private static final String DEFAULT_CACHE_DIR = "methods";
+    private static final String PER_COMMIT_SUFFIX = "PerCommit";
+
     private final String selectedProject;
+    private final Path baseDir;
     private final ObjectMapper mapper = new ObjectMapper();
     private static final Logger LOGGER = Logger.getLogger(MethodDaoFile.class.getName());
 
     public MethodDaoFile() {
+        this(DEFAULT_CACHE_DIR);
+    }
+
+    /**
+     * Costruttore che permette di salvare i metodi in una cartella diversa da quella predefinita.
+     *
+     * @param cacheDir il percorso della cartella, relativo a cache/{selectedProject}
+     */
+    public MethodDaoFile(String cacheDir) {
         ApplicationConfig config = new ApplicationConfig();
         this.selectedProject = config.getSelectedProject().name();
+        this.baseDir = Paths.get("cache", selectedProject, cacheDir);
     }
 
     /**
      * Salva i metodi nel filesystem nel path cache/{selectedProject}/methods/{className}/{methodName}/{commitHash}/
      * e salva in file separati le varie mappe delle features per commit.
+     * Le mappe commit→valore sono una per ciascuna metrica calcolata del registro, con nome {metrica}PerCommit.
      */
     public void saveMethods(List<Method> methods) throws MethodSaveException {
         for (Method method : methods) {
-            String methodPath = Paths.get("cache", selectedProject, "methods", method.getPackageName(), method.getClassName(), method.getMethodName()).toString();
+            String methodPath = baseDir.resolve(Paths.get(method.getPackageName(), method.getClassName(), method.getMethodName())).toString();
 
             try {
                 Files.createDirectories(Paths.get(methodPath));
@@ -56,18 +75,12 @@ public class MethodDaoFile implements MethodDao {
 
                 Map<String, Object> allMaps = new HashMap<>();
                 allMaps.put("versions", method.getVersions().stream().map(Version::getName).toList());
+                if (method.getDeleteCommit() != null) allMaps.put("deleteCommit", method.getDeleteCommit().getId());
 
                 // Funzione generica per tutte le mappe commit->valore
-                addCommitMetricMap("locPerCommit", method.getLocPerCommit(), allMaps);
-                addCommitMetricMap("statementPerCommit", method.getStatementPerCommit(), allMaps);
-                addCommitMetricMap("cyclomaticComplexityPerCommit", method.getCyclomaticComplexityPerCommit(), allMaps);
-                addCommitMetricMap("cognitiveComplexityPerCommit", method.getCognitiveComplexityPerCommit(), allMaps);
-                addCommitMetricMap("churnPerCommit", method.getChurnPerCommit(), allMaps);
-                addCommitMetricMap("addedLinesPerCommit", method.getAddedLinesPerCommit(), allMaps);
-                addCommitMetricMap("deletedLinesPerCommit", method.getDeletedLinesPerCommit(), allMaps);
-                addCommitMetricMap("branchPointsPerCommit", method.getBranchPointsPerCommit(), allMaps);
-                addCommitMetricMap("nestingDepthPerCommit", method.getNestingDepthPerCommit(), allMaps);
-                addCommitMetricMap("parametersCountPerCommit", method.getParametersCountPerCommit(), allMaps);
+                for (MethodMetric metric : MetricRegistry.getInstance().getStoredMetrics()) {
+                    addCommitMetricMap(metric.name() + PER_COMMIT_SUFFIX, method.getMetricPerCommit(metric), allMaps);
+                }
 
                 // Mappe version->valore
                 allMaps.put("methodHistoriesPerVersion", method.getVersions().stream()
@@ -102,6 +115,20 @@ public class MethodDaoFile implements MethodDao {
         LOGGER.info(() -> "Cache dei metodi creata/aggiornata su filesystem per il progetto: " + selectedProject);
     }
 
+    /**
+     * Elimina tutti i metodi salvati nella cartella della cache.
+     *
+     * @throws IOException se non è possibile eliminare un file
+     */
+    public void deleteMethods() throws IOException {
+        if (!Files.exists(baseDir)) return;
+        try (Stream<Path> paths = Files.walk(baseDir)) {
+            // Elimino prima i file e poi le cartelle che li contengono
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+        LOGGER.info(() -> "Cache dei metodi eliminata: " + baseDir);
+    }
+
     // Funzione generica per aggiungere una mappa commit->valore
     private <T> void addCommitMetricMap(String mapName, Map<Commit, T> metricMap, Map<String, Object> allMaps) {
         Map<String, T> out = new HashMap<>();
@@ -113,14 +140,14 @@ public class MethodDaoFile implements MethodDao {
 
     /**
      * Recupera tutti i metodi dal filesystem dal path cache/{selectedProject}/methods/{className}/{methodName}
+     *
+     * @throws MethodRetrievalException se la cache non esiste o è stata salvata senza una delle metriche da calcolare
      */
     @Override
     public List<Method> retrieveMethods() throws MethodRetrievalException {
         List<Method> methods = new ArrayList<>();
-        String basePath = "cache/" + selectedProject + "/methods";
-        Path baseDir = Paths.get(basePath);
         if (!Files.exists(baseDir) || !Files.isDirectory(baseDir)) {
-            throw new MethodRetrievalException("Directory cache non trovata: " + basePath);
+            throw new MethodRetrievalException("Directory cache non trovata: " + baseDir);
         }
         CommitRepository commitRepository = CommitRepositoryFactory.getInstance().getCommitRepository();
         VersionRepository versionRepository = VersionRepositoryFactory.getInstance().getVersionRepository();
@@ -179,17 +206,17 @@ public class MethodDaoFile implements MethodDao {
             }
             method.getVersions().addAll(versions);
 
-            // Mappe commit→Integer
-            setCommitIntMap(maps, "locPerCommit", method::setLocPerCommit, commitRepository);
-            setCommitIntMap(maps, "statementPerCommit", method::setStatementPerCommit, commitRepository);
-            setCommitIntMap(maps, "cyclomaticComplexityPerCommit", method::setCyclomaticComplexityPerCommit, commitRepository);
-            setCommitIntMap(maps, "cognitiveComplexityPerCommit", method::setCognitiveComplexityPerCommit, commitRepository);
-            setCommitIntMap(maps, "churnPerCommit", method::setChurnPerCommit, commitRepository);
-            setCommitIntMap(maps, "addedLinesPerCommit", method::setAddedLinesPerCommit, commitRepository);
-            setCommitIntMap(maps, "deletedLinesPerCommit", method::setDeletedLinesPerCommit, commitRepository);
-            setCommitIntMap(maps, "branchPointsPerCommit", method::setBranchPointsPerCommit, commitRepository);
-            setCommitIntMap(maps, "nestingDepthPerCommit", method::setNestingDepthPerCommit, commitRepository);
-            setCommitIntMap(maps, "parametersCountPerCommit", method::setParametersCountPerCommit, commitRepository);
+            // Commit di eliminazione del metodo, se presente
+            String deleteCommitId = (String) maps.get("deleteCommit");
+            if (deleteCommitId != null) method.setDeleteCommit(commitRepository.retrieveCommitById(deleteCommitId));
+
+            // Mappe commit→Integer delle metriche calcolate
+            for (MethodMetric metric : MetricRegistry.getInstance().getStoredMetrics()) {
+                String mapName = metric.name() + PER_COMMIT_SUFFIX;
+                // Una metrica abilitata dopo il salvataggio varrebbe 0 in tutti i commit: la cache va ricalcolata
+                if (!maps.containsKey(mapName)) throw new MethodRetrievalException("Metrica " + metric.name() + " assente nella cache del metodo: " + method.getFullName());
+                setCommitIntMap(maps, mapName, values -> method.setMetricPerCommit(metric, values), commitRepository);
+            }
 
             // Mappe version→Integer
             setVersionIntMap(maps, "methodHistoriesPerVersion", method::setMethodHistoriesPerVersion, versionRepository);
@@ -246,15 +273,17 @@ public class MethodDaoFile implements MethodDao {
     private void setMethodInfoMap(Map<String, Object> maps, String mapName, Method method, CommitRepository commitRepository) {
         Map<String, Map<String, Object>> methodInfoMap = (Map<String, Map<String, Object>>) maps.get(mapName);
         if (methodInfoMap == null) return;
+        Map<Commit, Method.MethodInfo> result = new HashMap<>();
         for (Map.Entry<String, Map<String, Object>> entry : methodInfoMap.entrySet()) {
             Commit commit = commitRepository.retrieveCommitById(entry.getKey());
             if (commit != null) {
                 Map<String, Object> infoMap = entry.getValue();
                 int beginLine = (Integer) infoMap.get("beginLine");
                 int endLine = (Integer) infoMap.get("endLine");
-                method.getMethodInfoPerCommit().put(commit, new Method.MethodInfo(beginLine, endLine));
+                result.put(commit, new Method.MethodInfo(beginLine, endLine));
             }
         }
+        method.setMethodInfoPerCommit(result);
     }
 
 }
@@ -1,33 +1,40 @@
 package it.isw2.prediction.dao;
 
-import com.github.javaparser.JavaParser;
 import com.github.javaparser.ast.CompilationUnit;
-import com.github.javaparser.ast.PackageDeclaration;
-import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
-import com.github.javaparser.ast.body.MethodDeclaration;
 import it.isw2.prediction.config.ApplicationConfig;
-import it.isw2.prediction.config.GitApiConfig;
+import it.isw2.prediction.dao.MiningWatermarkDao.MiningWatermark;
+import it.isw2.prediction.dao.ParsedBlob.ParsedMethod;
+import it.isw2.prediction.exception.method.MethodRetrievalException;
+import it.isw2.prediction.exception.method.MethodSaveException;
 import it.isw2.prediction.exception.ticket.TicketRetrievalException;
 import it.isw2.prediction.factory.CommitRepositoryFactory;
 import it.isw2.prediction.factory.VersionRepositoryFactory;
 import it.isw2.prediction.model.Commit;
 import it.isw2.prediction.model.Method;
+import it.isw2.prediction.model.MethodSnapshot;
 import it.isw2.prediction.model.Version;
+import it.isw2.prediction.model.metric.MetricRegistry;
+import it.isw2.prediction.monitoring.PipelineMetrics;
 import it.isw2.prediction.repository.CommitRepository;
-import it.isw2.prediction.utils.Utils;
-import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.EditList;
 import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectReader;
-import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,6 +42,23 @@ public class MethodDaoJgit implements MethodDao {
 
     private static final Logger LOGGER = Logger.getLogger(MethodDaoJgit.class.getName());
 
+    // Numero massimo di commit in analisi per ogni thread, limita la memoria occupata dai risultati in attesa di merge
+    private static final int COMMITS_IN_FLIGHT_PER_THREAD = 4;
+
+    private static final String MASTER_BRANCH = "refs/heads/master";
+
+    private final PipelineMetrics metrics = PipelineMetrics.getInstance();
+    private final BlobParseCache parseCache;
+    private final ParsedBlobStore blobStore;
+    private final MiningWatermarkDao watermarkDao = new MiningWatermarkDao();
+    private final MethodDaoFile incrementalStateDao = new MethodDaoFile(Paths.get(MiningWatermarkDao.INCREMENTAL_DIR, "methods").toString());
+
+    public MethodDaoJgit() {
+        ApplicationConfig appConfig = new ApplicationConfig();
+        this.parseCache = new BlobParseCache(appConfig.getMethodParseCacheSize());
+        this.blobStore = appConfig.isMethodBlobStoreEnabled() ? new ParsedBlobStore() : null;
+    }
+
     @Override
     public List<Method> retrieveMethods() {
         return retrieveMethods(false);
@@ -45,39 +69,47 @@ public class MethodDaoJgit implements MethodDao {
 
         try {
 
-            // Recupero l'ultimo commit per ogni versione
+            ApplicationConfig appConfig = new ApplicationConfig();
             CommitRepository commitRepository = CommitRepositoryFactory.getInstance().getCommitRepository();
-            List<Commit> commits = new ArrayList<>();
-            if(!onlyLastCommit) commits = commitRepository.retrieveCommits();
-            else commits = Collections.singletonList(commitRepository.retriveLastCommitOfBranch("HEAD"));
+
+            // In modalità incrementale riparto dallo stato salvato e analizzo solo i commit nuovi
+            IncrementalRun incrementalRun = !onlyLastCommit && appConfig.isMethodIncrementalEnabled()
+                    ? startIncrementalRun(commitRepository, methods)
+                    : null;
+
+            // Recupero l'ultimo commit per ogni versione
+            List<Commit> commits;
+            if (onlyLastCommit) commits = Collections.singletonList(commitRepository.retriveLastCommitOfBranch("HEAD"));
+            else if (incrementalRun != null) commits = incrementalRun.commits();
+            else commits = commitRepository.retrieveCommits();
 
 
             commits = commits.stream()
                     .sorted(Comparator.comparing(Commit::getDate))
                     .toList();
 
-            // Apro il repository Git
-            ApplicationConfig appConfig = new ApplicationConfig();
-            String repoPath = GitApiConfig.getProjectsPath(appConfig.getSelectedProject());
-            FileRepositoryBuilder builder = new FileRepositoryBuilder();
-            File gitDir = new File(repoPath + "/.git");
-
-            try (Repository repository = builder.setGitDir(gitDir)
-                    .readEnvironment()
-                    .findGitDir()
-                    .build()) {
-
-                // Per ogni commit, recupero i file Java ed estraggo i metodi
-                for (Commit commit : commits) {
-                    LOGGER.log(Level.INFO, "Analizzo il commit {0} ({1})", new Object[]{commit.getId(), commit.getDate()});
-                    addMethodsFromCommit(repository, methods, commit);
-                }
+            // Uso la sessione condivisa sul repository Git, con un reader per ogni thread di analisi
+            GitRepositorySession session = GitRepositorySession.getInstance();
 
-                LOGGER.log(Level.INFO, "Recuperati {0} metodi unici dal progetto.", methods.size());
+            // Analizzo i commit in parallelo e applico i risultati ai metodi nell'ordine dei commit
+            Set<String> touchedMethods = mineCommits(session, methods, commits, appConfig.getMethodMiningThreads());
+
+            LOGGER.log(Level.INFO, "Recuperati {0} metodi unici dal progetto.", methods.size());
+            LOGGER.log(Level.INFO, "Statistiche della cache dei blob: {0}", parseCache);
+            if (blobStore != null) LOGGER.log(Level.INFO, "Statistiche dell''archivio dei blob: {0}", blobStore);
+            recordCacheMetrics();
+
+            if (incrementalRun != null) {
+                // Anche i metodi non modificati vanno rietichettati, altrimenti il dataset diverge da quello di un'analisi completa
+                touchedMethods.addAll(relabelBuggyMethods(methods));
+                saveIncrementalRun(methods, touchedMethods, incrementalRun.watermark());
             }
 
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Errore nell'apertura del repository Git", e);
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.SEVERE, "Analisi dei commit interrotta", e);
+            Thread.currentThread().interrupt();
         }
 
         ApplicationConfig appConfig = new ApplicationConfig();
@@ -97,91 +129,329 @@ public class MethodDaoJgit implements MethodDao {
     }
 
     /**
-     * Aggiunge i metodi presenti in un commit al repository dei metodi.
+     * Riporta nel riepilogo dell'esecuzione i contatori della cache e dell'archivio dei blob.
+     * I contatori sono cumulativi per l'istanza, per cui vengono registrati come misure di cui conservare il massimo.
+     */
+    private void recordCacheMetrics() {
+        metrics.peak("blob-cache.hits", parseCache.getHits());
+        metrics.peak("blob-cache.misses", parseCache.getMisses());
+        metrics.peak("blob-cache.evictions", parseCache.getEvictions());
+        if (blobStore == null) return;
+        metrics.peak("blob-store.loaded", blobStore.getLoaded());
+        metrics.peak("blob-store.saved", blobStore.getSaved());
+        metrics.peak("blob-store.stale", blobStore.getStale());
+    }
+
+    /**
+     * Restituisce la cache dei blob analizzati, con i relativi contatori di hit e miss.
      *
-     * @param repository il repository Git
-     * @param methods    la mappa dei metodi da aggiornare
-     * @param commit     il commit corrente da analizzare
-     * @throws IOException se si verifica un errore durante l'accesso al repository
+     * @return la cache dei blob analizzati
      */
-    private void addMethodsFromCommit(Repository repository, Map<String, Method> methods, Commit commit) throws IOException {
-        RevCommit parent = commit.getParent();
-        if (parent == null) return;
+    public BlobParseCache getParseCache() {
+        return parseCache;
+    }
+
+    /**
+     * Prepara un'analisi incrementale: carica lo stato dei metodi salvato dall'analisi precedente
+     * e recupera solo i commit successivi al watermark salvato (lastCommit..master), insieme
+     * ai commit rimasti in sospeso perché privi di versione. Se non esiste un'analisi precedente
+     * vengono restituiti tutti i commit del branch.
+     *
+     * @param commitRepository il repository dei commit
+     * @param methods          la mappa dei metodi da popolare con lo stato salvato
+     * @return i commit da analizzare e il watermark da salvare al termine, o null se non è possibile procedere
+     */
+    private IncrementalRun startIncrementalRun(CommitRepository commitRepository, Map<String, Method> methods) {
+        Commit head = commitRepository.retriveLastCommitOfBranch(MASTER_BRANCH);
+        if (head == null) {
+            LOGGER.warning("Impossibile recuperare l'ultimo commit del branch, eseguo l'analisi completa");
+            return null;
+        }
+
+        MiningWatermark watermark = watermarkDao.retrieveWatermark();
+        String fromCommitId = null;
+        List<String> pendingIds = List.of();
+        if (watermark != null && loadIncrementalMethods(methods)) {
+            fromCommitId = watermark.lastCommitId();
+            pendingIds = watermark.pendingCommitIds();
+        } else {
+            LOGGER.info("Nessuna analisi precedente utilizzabile, analizzo l'intera storia del branch");
+            // Lo stato dei metodi di un'analisi scartata non deve sopravvivere a quella completa
+            deleteIncrementalMethods();
+        }
+
+        List<Commit> candidates = new ArrayList<>(commitRepository.retrieveCommitsBetween(fromCommitId, head.getId()));
+        List<String> stillPending = new ArrayList<>();
+        for (String pendingId : pendingIds) {
+            Commit commit = commitRepository.retrieveCommitById(pendingId);
+            if (commit != null) candidates.add(commit);
+            else stillPending.add(pendingId);
+        }
+
+        // I commit senza versione (successivi all'ultimo rilascio) restano in sospeso per le analisi successive
+        List<Commit> commits = new ArrayList<>();
+        for (Commit commit : candidates) {
+            if (commit.getVersion() != null) commits.add(commit);
+            else stillPending.add(commit.getId());
+        }
+
+        LOGGER.log(Level.INFO, "Analisi incrementale: {0} commit da analizzare, {1} in sospeso, {2} metodi già noti",
+                new Object[]{commits.size(), stillPending.size(), methods.size()});
+        return new IncrementalRun(commits, new MiningWatermark(head.getId(), stillPending));
+    }
+
+    private boolean loadIncrementalMethods(Map<String, Method> methods) {
+        try {
+            for (Method method : incrementalStateDao.retrieveMethods()) {
+                methods.put(methodKey(method.getPackageName(), method.getClassName(), method.getMethodName()), method);
+            }
+            return true;
+        } catch (MethodRetrievalException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile caricare lo stato dei metodi salvato: " + e.getMessage());
+            methods.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Ricalcola le etichette buggy di tutti i metodi dello stato salvato con i ticket attuali.
+     * I ticket vengono recuperati solo se chiusi, per cui un commit di fix può essere analizzato
+     * prima della chiusura del suo ticket, e le versioni affette stimate con proportion cambiano
+     * all'arrivo di nuovi ticket: senza il ricalcolo i metodi non toccati dai nuovi commit
+     * manterrebbero le etichette dell'analisi in cui sono stati salvati.
+     *
+     * @param methods la mappa dei metodi
+     * @return le chiavi dei metodi le cui etichette sono cambiate
+     */
+    private Set<String> relabelBuggyMethods(Map<String, Method> methods) {
+        Set<String> relabeled = new HashSet<>();
+        try (var _ = metrics.stage("mining.relabel")) {
+            for (Map.Entry<String, Method> entry : methods.entrySet()) {
+                try {
+                    if (entry.getValue().recomputeBuggy()) relabeled.add(entry.getKey());
+                } catch (TicketRetrievalException e) {
+                    LOGGER.log(Level.SEVERE, e, () -> "Errore nel recupero dei ticket per il metodo: " + entry.getValue().getFullName());
+                }
+            }
+        }
+        LOGGER.log(Level.INFO, "Analisi incrementale: etichette buggy aggiornate per {0} metodi", relabeled.size());
+        return relabeled;
+    }
+
+    private void deleteIncrementalMethods() {
+        try {
+            incrementalStateDao.deleteMethods();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile eliminare lo stato dei metodi salvato: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Salva lo stato dei metodi modificati e il nuovo watermark.
+     * Lo stato viene salvato prima del watermark: in caso di errore il watermark resta quello precedente.
+     *
+     * @param methods        la mappa dei metodi
+     * @param touchedMethods le chiavi dei metodi modificati o rietichettati durante l'analisi
+     * @param watermark      il watermark da salvare
+     */
+    private void saveIncrementalRun(Map<String, Method> methods, Set<String> touchedMethods, MiningWatermark watermark) {
+        try {
+            incrementalStateDao.saveMethods(touchedMethods.stream().map(methods::get).toList());
+            watermarkDao.saveWatermark(watermark);
+        } catch (MethodSaveException | IOException e) {
+            LOGGER.log(Level.SEVERE, "Impossibile salvare lo stato dell'analisi incrementale", e);
+        }
+    }
+
+    /**
+     * Analizza i commit su un pool di thread e ne applica i risultati alla mappa dei metodi.
+     * Il calcolo delle differenze, la lettura dei blob e il parsing avvengono in parallelo,
+     * mentre l'aggiornamento dei metodi avviene su un unico thread rispettando l'ordine dei commit,
+     * in modo che il risultato sia identico a quello dell'analisi sequenziale.
+     *
+     * @param session la sessione sul repository Git
+     * @param methods la mappa dei metodi da aggiornare
+     * @param commits i commit da analizzare, ordinati per data
+     * @param threads il numero di thread di analisi
+     * @return le chiavi dei metodi modificati dai commit analizzati
+     * @throws InterruptedException se il thread viene interrotto durante l'attesa dei risultati
+     */
+    private Set<String> mineCommits(GitRepositorySession session, Map<String, Method> methods, List<Commit> commits, int threads) throws InterruptedException {
+        LOGGER.log(Level.INFO, "Analisi di {0} commit con {1} thread", new Object[]{commits.size(), threads});
+
+        Set<String> touchedMethods = new HashSet<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (var _ = metrics.stage("mining")) {
+            Deque<Future<CommitAnalysis>> pending = new ArrayDeque<>();
+            Iterator<Commit> iterator = commits.iterator();
+            int maxPending = threads * COMMITS_IN_FLIGHT_PER_THREAD;
+
+            while (iterator.hasNext() || !pending.isEmpty()) {
+                // Mantengo il pool occupato senza accumulare troppi risultati in attesa
+                while (iterator.hasNext() && pending.size() < maxPending) {
+                    Commit commit = iterator.next();
+                    pending.add(executor.submit(() -> analyzeCommit(session, commit)));
+                }
 
-        try (Git git = new Git(repository)) {
-            List<DiffEntry> diffs = computeDiffs(repository, git, parent, commit);
+                mergeCommitAnalysis(methods, touchedMethods, awaitAnalysis(pending.poll()));
+            }
+        } finally {
+            executor.shutdownNow();
+            // Attendo che i commit ancora in analisi terminino, poi chiudo i reader dei thread del pool anche in caso di errore
+            executor.close();
+            session.releaseReaders();
+        }
+        return touchedMethods;
+    }
+
+    private CommitAnalysis awaitAnalysis(Future<CommitAnalysis> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // analyzeCommit gestisce già le eccezioni, qui arrivano solo errori inattesi
+            throw new IllegalStateException("Errore inatteso nell'analisi di un commit", e.getCause());
+        }
+    }
+
+    /**
+     * Applica ai metodi le modifiche rilevate in un commit.
+     * Viene eseguito su un unico thread e nell'ordine dei commit.
+     *
+     * @param methods        la mappa dei metodi da aggiornare
+     * @param touchedMethods l'insieme a cui aggiungere le chiavi dei metodi modificati
+     * @param analysis       il risultato dell'analisi del commit
+     */
+    private void mergeCommitAnalysis(Map<String, Method> methods, Set<String> touchedMethods, CommitAnalysis analysis) {
+        Commit commit = analysis.commit();
+        LOGGER.log(Level.INFO, "Analizzo il commit {0} ({1})", new Object[]{commit.getId(), commit.getDate()});
+        metrics.count("mining.method-changes", analysis.changes().size());
+
+        try (var _ = metrics.stage("mining.merge")) {
+            for (MethodChange change : analysis.changes()) {
+                // Aggiunge il metodo alla mappa se non presente
+                Method method = methods.computeIfAbsent(change.key(),
+                        k -> new Method(change.className(), change.packageName(), change.methodName()));
+                touchedMethods.add(change.key());
+
+                try {
+                    method.parseMethodSnapshot(commit, change.snapshot());
+                    method.parseEditList(commit, change.edits());
+                } catch (TicketRetrievalException e) {
+                    LOGGER.log(Level.SEVERE, e, () -> "Errore nel recupero del ticket per il commit: " + commit.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Calcola le modifiche ai metodi introdotte da un commit.
+     * Non accede ai repository dell'applicazione, per cui può essere eseguito in parallelo su più commit.
+     *
+     * @param session la sessione sul repository Git
+     * @param commit  il commit corrente da analizzare
+     * @return le modifiche ai metodi nell'ordine in cui vanno applicate
+     */
+    private CommitAnalysis analyzeCommit(GitRepositorySession session, Commit commit) {
+        List<MethodChange> changes = new ArrayList<>();
+        metrics.count("mining.commits");
+        RevCommit parent = commit.getParent();
+        if (parent == null) return new CommitAnalysis(commit, changes);
+
+        try (var _ = metrics.stage("mining.commit");
+             DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            // Il reader del thread viene condiviso da diff, edit list e lettura dei blob e non viene chiuso dal formatter
+            ObjectReader reader = session.getReader();
+            diffFormatter.setReader(reader, session.getRepository().getConfig());
+            diffFormatter.setContext(0); // Nessun contesto per ridurre il rumore
+
+            List<DiffEntry> diffs;
+            try (var _ = metrics.stage("mining.diff")) {
+                diffs = diffFormatter.scan(parent.getTree(), commit.getTree());
+            }
+            metrics.count("mining.diff-entries", diffs.size());
 
             diffs.stream()
                     .filter(diff -> !isTestOrNonJavaFile(diff))
-                    .map(diff -> createDiffContext(repository, diff))
+                    .map(diff -> createDiffContext(reader, diff))
                     .filter(Objects::nonNull)
-                    .forEach(ctx -> {
-                        try {
-                            processDiffContext(ctx, methods, commit, repository);
-                        } catch (TicketRetrievalException e) {
-                            LOGGER.log(Level.SEVERE, e, () -> "Errore nel recupero del ticket per il commit: " + commit.getId());
-                        }
-                    });
+                    .forEach(ctx -> processDiffContext(ctx, diffFormatter, changes));
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, e, () -> "Errore nell'analisi del commit: " + e.getMessage());
         }
+
+        return new CommitAnalysis(commit, changes);
     }
 
-    private DiffContext createDiffContext(Repository repository, DiffEntry diff) {
+    private DiffContext createDiffContext(ObjectReader reader, DiffEntry diff) {
         try {
-            String oldCode = getCode(repository, diff.getOldId(), diff.getChangeType() != DiffEntry.ChangeType.ADD);
-            String newCode = getCode(repository, diff.getNewId(), diff.getChangeType() != DiffEntry.ChangeType.DELETE);
-
-            if (diff.getChangeType() != DiffEntry.ChangeType.DELETE && newCode.isEmpty()) return null;
+            ParsedBlob oldBlob = diff.getChangeType() == DiffEntry.ChangeType.ADD ? null : parseBlob(reader, diff.getOldId(), diff.getOldPath(), true);
+            ParsedBlob newBlob = diff.getChangeType() == DiffEntry.ChangeType.DELETE ? null : parseBlob(reader, diff.getNewId(), diff.getNewPath(), false);
+            if (diff.getChangeType() != DiffEntry.ChangeType.DELETE && newBlob == null) return null;
 
-            CompilationUnit oldCu = tryParse(diff.getOldPath(), oldCode, true);
-            CompilationUnit newCu = diff.getChangeType() == DiffEntry.ChangeType.DELETE ? null : tryParse(diff.getNewPath(), newCode, false);
-            if (diff.getChangeType() != DiffEntry.ChangeType.DELETE && newCu == null) return null;
-
-            String packageName = extractPackageName(newCu, oldCu);
+            String packageName = extractPackageName(newBlob, oldBlob);
             if (packageName == null) return null;
 
-            return new DiffContext(diff, oldCu, newCu, packageName, oldCode, newCode);
+            return new DiffContext(diff, oldBlob, newBlob, packageName);
         } catch (Exception _) {
             return null;
         }
     }
 
-    private void processDiffContext(DiffContext ctx, Map<String, Method> methods, Commit commit, Repository repository) throws TicketRetrievalException {
-        List<MethodDeclaration> oldMethods = ctx.oldCu != null ? ctx.oldCu.findAll(MethodDeclaration.class) : new ArrayList<>();
-        List<MethodDeclaration> newMethods = ctx.newCu != null ? ctx.newCu.findAll(MethodDeclaration.class) : new ArrayList<>();
+    private void processDiffContext(DiffContext ctx, DiffFormatter diffFormatter, List<MethodChange> changes) {
+        List<ParsedMethod> oldMethods = ctx.oldBlob != null ? ctx.oldBlob.methods() : new ArrayList<>();
+        List<ParsedMethod> newMethods = ctx.newBlob != null ? ctx.newBlob.methods() : new ArrayList<>();
 
+        List<MethodChange> diffChanges = new ArrayList<>();
         if (ctx.diff.getChangeType() == DiffEntry.ChangeType.DELETE) {
-            processDeletedMethods(oldMethods, methods, ctx.packageName, commit, ctx.diff, repository);
+            processDeletedMethods(oldMethods, ctx.packageName, diffChanges);
         } else {
-            processNewOrChangedMethods(newMethods, oldMethods, methods, ctx.packageName, commit, ctx.diff, repository);
+            // Le modifiche del file servono solo alle metriche sulle modifiche: se nessuna è abilitata non le calcolo
+            EditList edits = MetricRegistry.getInstance().getDiffMetrics().isEmpty() ? null : computeEdits(diffFormatter, ctx.diff);
+            processNewOrChangedMethods(newMethods, oldMethods, ctx.packageName, edits, diffChanges);
         }
+        changes.addAll(diffChanges);
     }
 
     /**
-     * Calcola le differenze tra due commit utilizzando JGit.
+     * Recupera il blob analizzato dalla cache, eseguendo lettura e parsing solo se non è già presente.
      *
-     * @param repository il repository Git
-     * @param git        l'istanza di Git
-     * @param parent     il commit genitore
-     * @param commit     il commit corrente
-     * @return la lista delle differenze tra i due commit
-     * @throws IOException se si verifica un errore durante l'accesso al repository
-     * @throws GitAPIException se si verifica un errore durante l'esecuzione del comando diff
+     * @param reader il reader del thread corrente
+     * @param id   l'ID abbreviato dell'oggetto (blob)
+     * @param path il percorso del file
+     * @param isOld indica se si tratta della versione precedente del file
+     * @return il blob analizzato, o null se il blob è vuoto o non analizzabile
      */
-    private List<DiffEntry> computeDiffs(Repository repository, Git git, RevCommit parent, Commit commit) throws IOException, GitAPIException {
-        ObjectReader reader = repository.newObjectReader();
-
-        CanonicalTreeParser oldTreeIter = new CanonicalTreeParser();
-        oldTreeIter.reset(reader, parent.getTree());
+    private ParsedBlob parseBlob(ObjectReader reader, AbbreviatedObjectId id, String path, boolean isOld) {
+        if (id == null) return null;
+        ObjectId blobId = id.toObjectId();
+        if (blobId.equals(ObjectId.zeroId())) return null;
+        Supplier<ParsedBlob> parser = () -> {
+            CompilationUnit cu = tryParse(path, openBlob(reader, blobId), blobId, isOld);
+            if (cu == null) return null;
+            try (var _ = metrics.stage("mining.metrics")) {
+                return ParsedBlob.of(cu);
+            }
+        };
 
-        CanonicalTreeParser newTreeIter = new CanonicalTreeParser();
-        newTreeIter.reset(reader, commit.getTree());
+        // Se l'archivio persistente è abilitato, il parsing avviene solo per i blob mai analizzati
+        if (blobStore != null) return parseCache.get(blobId, () -> blobStore.retrieve(blobId, parser));
+        return parseCache.get(blobId, parser);
+    }
 
-        return git.diff()
-                .setOldTree(oldTreeIter)
-                .setNewTree(newTreeIter)
-                .call();
+    /**
+     * Calcola la lista delle modifiche di un file, condivisa da tutti i metodi del file per il calcolo del churn.
+     *
+     * @param diffFormatter il formatter associato al repository
+     * @param diff          l'oggetto DiffEntry che rappresenta la modifica
+     * @return la lista delle modifiche, o null in caso di errore
+     */
+    private EditList computeEdits(DiffFormatter diffFormatter, DiffEntry diff) {
+        try (var _ = metrics.stage("mining.edits")) {
+            return diffFormatter.toFileHeader(diff).toEditList();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Errore nel calcolo del churn per il file " + diff.getNewPath());
+            return null;
+        }
     }
 
     /**
@@ -197,36 +467,43 @@ public class MethodDaoJgit implements MethodDao {
     }
 
     /**
-     * Recupera il codice sorgente da un file nel repository Git.
+     * Apre un blob nel repository Git, senza convertirne il contenuto in stringa.
+     * Gli errori di lettura vengono propagati, così che un blob non letto non venga
+     * salvato in cache o nell'archivio come non analizzabile.
      *
-     * @param repo il repository Git
-     * @param id   l'ID abbreviato dell'oggetto (blob)
-     * @param shouldRead indica se leggere il blob o meno
-     * @return il contenuto del blob come stringa, o una stringa vuota in caso di errore
+     * @param reader il reader del thread corrente
+     * @param blobId l'ID dell'oggetto (blob)
+     * @return il loader del blob
      */
-    private String getCode(Repository repo, AbbreviatedObjectId id, boolean shouldRead) {
-        if (!shouldRead || id == null) return "";
-        try {
-            return Utils.readBlobAsString(repo, id.toObjectId());
-        } catch (Exception _) {
-            return "";
+    private ObjectLoader openBlob(ObjectReader reader, ObjectId blobId) {
+        metrics.count("mining.blobs-read");
+        try (var _ = metrics.stage("mining.blob-read")) {
+            return reader.open(blobId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Errore nella lettura del blob " + blobId.getName(), e);
         }
     }
 
     /**
-     * Tenta di analizzare il codice sorgente in un CompilationUnit.
+     * Tenta di analizzare il blob in un CompilationUnit con il parser del thread corrente.
      *
-     * @param path il percorso del file
-     * @param code il codice sorgente da analizzare
-     * @param isOld indica se si tratta della versione precedente del file
+     * @param path   il percorso del file
+     * @param loader il loader del blob
+     * @param blobId l'ID dell'oggetto (blob)
+     * @param isOld  indica se si tratta della versione precedente del file
      * @return il CompilationUnit risultante, o null in caso di errore
      */
-    private CompilationUnit tryParse(String path, String code, boolean isOld) {
-        if (code.isEmpty()) return null;
-        try {
-            JavaParser parser = new JavaParser();
-            return parser.parse(code).getResult().orElse(null);
+    private CompilationUnit tryParse(String path, ObjectLoader loader, ObjectId blobId, boolean isOld) {
+        if (loader.getSize() == 0) return null;
+        metrics.count("mining.parses");
+        if (loader.isLarge()) metrics.count("mining.blobs-streamed");
+        try (var _ = metrics.stage("mining.parse")) {
+            return BlobParser.forCurrentThread().parse(loader);
+        } catch (IOException e) {
+            // Un blob grande viene letto durante il parsing: anche questi errori di lettura vanno propagati
+            throw new UncheckedIOException("Errore nella lettura del blob " + blobId.getName(), e);
         } catch (Exception e) {
+            metrics.count("mining.parse-errors");
             LOGGER.log(Level.WARNING, "Errore nel parsing del file {0} {1}: {2}",
                     new Object[]{path, isOld ? "(versione precedente)" : "", e.getMessage()});
             return null;
@@ -234,27 +511,15 @@ public class MethodDaoJgit implements MethodDao {
     }
 
     /**
-     * Estrae il nome del package da una CompilationUnit, preferendo la nuova versione se disponibile.
+     * Estrae il nome del package da un blob analizzato, preferendo la nuova versione se disponibile.
      *
-     * @param newCu la CompilationUnit della nuova versione del file
-     * @param oldCu la CompilationUnit della vecchia versione del file
+     * @param newBlob il blob della nuova versione del file
+     * @param oldBlob il blob della vecchia versione del file
      * @return il nome del package come stringa, o null se non presente
      */
-    private String extractPackageName(CompilationUnit newCu, CompilationUnit oldCu) {
-        if (newCu != null) {
-            Optional<PackageDeclaration> pkg = newCu.getPackageDeclaration();
-            if (pkg.isPresent()) {
-                return pkg.get().getNameAsString();
-            }
-        }
-
-        if (oldCu != null) {
-            Optional<PackageDeclaration> pkg = oldCu.getPackageDeclaration();
-            if (pkg.isPresent()) {
-                return pkg.get().getNameAsString();
-            }
-        }
-
+    private String extractPackageName(ParsedBlob newBlob, ParsedBlob oldBlob) {
+        if (newBlob != null && newBlob.packageName() != null) return newBlob.packageName();
+        if (oldBlob != null && oldBlob.packageName() != null) return oldBlob.packageName();
         return null;
     }
 
@@ -262,30 +527,19 @@ public class MethodDaoJgit implements MethodDao {
      * Processa i metodi eliminati rispetto alla versione precedente.
      *
      * @param oldMethods  la lista dei metodi nella versione precedente
-     * @param methods     la mappa dei metodi da aggiornare
      * @param packageName il nome del package del file
-     * @param commit      il commit corrente
-     * @param diff        l'oggetto DiffEntry che rappresenta la modifica
-     * @param repo        il repository Git
+     * @param changes     la lista delle modifiche a cui aggiungere i metodi eliminati
      */
-    private void processDeletedMethods(List<MethodDeclaration> oldMethods, Map<String, Method> methods,
-                                       String packageName, Commit commit, DiffEntry diff, Repository repo) throws TicketRetrievalException {
-        for (MethodDeclaration oldMethod : oldMethods) {
-            String methodName = oldMethod.getNameAsString();
-            String className = oldMethod.findAncestor(ClassOrInterfaceDeclaration.class)
-                    .map(ClassOrInterfaceDeclaration::getNameAsString)
-                    .orElse("UnknownClass");
+    private void processDeletedMethods(List<ParsedMethod> oldMethods, String packageName, List<MethodChange> changes) {
+        for (ParsedMethod oldMethod : oldMethods) {
+            String methodName = oldMethod.methodName();
+            String className = oldMethod.className();
 
             // Costruisce una chiave unica per il metodo
-            String key = packageName + "." + className + "#" + methodName;
+            String key = methodKey(packageName, className, methodName);
 
-            // Aggiunge il metodo alla mappa se non presente
-            methods.computeIfAbsent(key, k -> new Method(className, packageName, methodName));
-            Method method = methods.get(key);
-
-            // Registra il fatto che il metodo è stato rimosso (newMethod = null)
-            method.parseMethodDeclaration(commit, null);
-            method.parseDiffEntry(repo, commit, diff);
+            // Registra il fatto che il metodo è stato rimosso (snapshot = null)
+            changes.add(new MethodChange(key, className, packageName, methodName, null, null));
         }
     }
 
@@ -294,65 +548,71 @@ public class MethodDaoJgit implements MethodDao {
      *
      * @param newMethods   la lista dei metodi nella nuova versione
      * @param oldMethods   la lista dei metodi nella versione precedente
-     * @param methods      la mappa dei metodi da aggiornare
      * @param packageName  il nome del package del file
-     * @param commit       il commit corrente
-     * @param diff         l'oggetto DiffEntry che rappresenta la modifica
-     * @param repo         il repository Git
+     * @param edits        la lista delle modifiche al file
+     * @param changes      la lista delle modifiche a cui aggiungere i metodi modificati
      */
-    private void processNewOrChangedMethods(List<MethodDeclaration> newMethods, List<MethodDeclaration> oldMethods,
-                                            Map<String, Method> methods, String packageName,
-                                            Commit commit, DiffEntry diff, Repository repo) throws TicketRetrievalException {
-        for (MethodDeclaration newMethod : newMethods) {
-            String methodName = newMethod.getNameAsString();
-            String className = newMethod.findAncestor(ClassOrInterfaceDeclaration.class)
-                    .map(ClassOrInterfaceDeclaration::getNameAsString)
-                    .orElse("UnknownClass");
+    private void processNewOrChangedMethods(List<ParsedMethod> newMethods, List<ParsedMethod> oldMethods,
+                                            String packageName, EditList edits, List<MethodChange> changes) {
+        for (ParsedMethod newMethod : newMethods) {
+            String methodName = newMethod.methodName();
+            String className = newMethod.className();
 
             // Costruisce una chiave unica per il metodo
-            String key = packageName + "." + className + "#" + methodName;
+            String key = methodKey(packageName, className, methodName);
 
             // Cerca un metodo con lo stesso nome e numero di parametri nella versione precedente
-            Optional<MethodDeclaration> oldOpt = oldMethods.stream()
-                    .filter(m -> m.getNameAsString().equals(methodName)
-                            && m.getParameters().size() == newMethod.getParameters().size())
+            Optional<ParsedMethod> oldOpt = oldMethods.stream()
+                    .filter(m -> m.methodName().equals(methodName)
+                            && m.parametersCount() == newMethod.parametersCount())
                     .findFirst();
 
-            // Confronta il corpo del metodo per vedere se è cambiato
-            boolean changed = oldOpt.isEmpty() || !Objects.equals(
-                    oldOpt.get().getBody().map(Object::toString).orElse(""),
-                    newMethod.getBody().map(Object::toString).orElse("")
-            );
-
-            if (changed) {
-                // Aggiunge o aggiorna il metodo modificato
-                methods.computeIfAbsent(key, k -> new Method(className, packageName, methodName));
-                Method method = methods.get(key);
+            // Confronta l'impronta del corpo del metodo per vedere se è cambiato
+            boolean changed = oldOpt.isEmpty() || oldOpt.get().bodyFingerprint() != newMethod.bodyFingerprint();
 
-                method.parseMethodDeclaration(commit, newMethod);
-                method.parseDiffEntry(repo, commit, diff);
-            }
+            // Aggiunge o aggiorna il metodo modificato
+            if (changed) changes.add(new MethodChange(key, className, packageName, methodName, newMethod.snapshot(), edits));
         }
     }
 
 
 
+    /**
+     * Costruisce la chiave unica con cui un metodo è indicizzato durante l'analisi.
+     */
+    private static String methodKey(String packageName, String className, String methodName) {
+        return packageName + "." + className + "#" + methodName;
+    }
+
     private static class DiffContext {
         DiffEntry diff;
-        CompilationUnit oldCu;
-        CompilationUnit newCu;
+        ParsedBlob oldBlob;
+        ParsedBlob newBlob;
         String packageName;
-        String oldCode;
-        String newCode;
 
-        DiffContext(DiffEntry diff, CompilationUnit oldCu, CompilationUnit newCu, String packageName, String oldCode, String newCode) {
+        DiffContext(DiffEntry diff, ParsedBlob oldBlob, ParsedBlob newBlob, String packageName) {
             this.diff = diff;
-            this.oldCu = oldCu;
-            this.newCu = newCu;
+            this.oldBlob = oldBlob;
+            this.newBlob = newBlob;
             this.packageName = packageName;
-            this.oldCode = oldCode;
-            this.newCode = newCode;
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Modifica di un singolo metodo rilevata in un commit.
+     * Uno snapshot nullo indica che il metodo è stato eliminato.
+     */
+    private record MethodChange(String key, String className, String packageName, String methodName,
+                                MethodSnapshot snapshot, EditList edits) {}
+
+    /**
+     * Commit da analizzare in un'analisi incrementale e watermark da salvare al termine.
+     */
+    private record IncrementalRun(List<Commit> commits, MiningWatermark watermark) {}
+
+    /**
+     * Risultato dell'analisi di un commit, pronto per essere applicato ai metodi.
+     */
+    private record CommitAnalysis(Commit commit, List<MethodChange> changes) {}
+
+}
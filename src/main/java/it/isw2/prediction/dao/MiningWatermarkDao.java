@@ -0,0 +1,116 @@
+package it.isw2.prediction.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.model.metric.MethodMetric;
+import it.isw2.prediction.model.metric.MetricRegistry;
+import it.isw2.prediction.utils.AtomicFiles;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Salva e recupera il punto di arrivo dell'ultima analisi incrementale dei commit,
+ * nel file cache/{selectedProject}/incremental/watermark.json.
+ * <p>
+ * Il watermark riporta la versione del formato, la versione del calcolo delle metriche e le metriche calcolate:
+ * se una di queste non corrisponde all'esecuzione corrente, lo stato salvato mescolerebbe valori calcolati
+ * in modo diverso, per cui il watermark viene scartato e l'analisi riparte dall'intera storia del branch.
+ */
+public class MiningWatermarkDao {
+
+    private static final Logger LOGGER = Logger.getLogger(MiningWatermarkDao.class.getName());
+
+    public static final String INCREMENTAL_DIR = "incremental";
+    private static final String WATERMARK_FILE = "watermark.json";
+
+    // Da incrementare ogni volta che cambia il formato dello stato salvato
+    private static final int FORMAT_VERSION = 1;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path watermarkFile;
+
+    public MiningWatermarkDao() {
+        ApplicationConfig config = new ApplicationConfig();
+        this.watermarkFile = Paths.get("cache", config.getSelectedProject().name(), INCREMENTAL_DIR, WATERMARK_FILE);
+    }
+
+    /**
+     * Recupera il punto di arrivo dell'ultima analisi.
+     *
+     * @return il punto di arrivo salvato, o null se non esiste, non è leggibile o non è compatibile con l'esecuzione corrente
+     */
+    public MiningWatermark retrieveWatermark() {
+        if (!Files.exists(watermarkFile)) return null;
+        try {
+            JsonNode root = mapper.readTree(watermarkFile.toFile());
+            if (root.path("formatVersion").asInt() != FORMAT_VERSION || root.path("metricsVersion").asInt() != ParsedBlobStore.FORMAT_VERSION) {
+                LOGGER.info("Il watermark salvato ha un formato o un calcolo delle metriche diverso, verrà scartato");
+                return null;
+            }
+            Set<String> savedMetrics = new HashSet<>();
+            for (JsonNode name : root.path("metrics")) savedMetrics.add(name.asText());
+            if (!savedMetrics.equals(storedMetricNames())) {
+                LOGGER.log(Level.INFO, "Il watermark salvato è stato calcolato con le metriche {0}, verrà scartato", savedMetrics);
+                return null;
+            }
+
+            List<String> pending = new ArrayList<>();
+            for (JsonNode id : root.get("pendingCommits")) pending.add(id.asText());
+            return new MiningWatermark(root.get("lastCommit").asText(), pending);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile leggere il file di watermark: " + watermarkFile);
+            return null;
+        }
+    }
+
+    /**
+     * Salva il punto di arrivo dell'analisi corrente.
+     *
+     * @param watermark il punto di arrivo da salvare
+     * @throws IOException se non è possibile scrivere il file
+     */
+    public void saveWatermark(MiningWatermark watermark) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("formatVersion", FORMAT_VERSION);
+        root.put("metricsVersion", ParsedBlobStore.FORMAT_VERSION);
+        ArrayNode metrics = root.putArray("metrics");
+        for (String name : storedMetricNames()) metrics.add(name);
+        root.put("lastCommit", watermark.lastCommitId());
+        ArrayNode pending = root.putArray("pendingCommits");
+        for (String id : watermark.pendingCommitIds()) pending.add(id);
+
+        AtomicFiles.writeString(watermarkFile, mapper.writeValueAsString(root));
+        LOGGER.log(Level.INFO, "Watermark aggiornato al commit {0}", watermark.lastCommitId());
+    }
+
+    /**
+     * Nomi delle metriche con valori per commit salvati nello stato dei metodi.
+     */
+    private static Set<String> storedMetricNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (MethodMetric metric : MetricRegistry.getInstance().getStoredMetrics()) names.add(metric.name());
+        return names;
+    }
+
+    /**
+     * Punto di arrivo di un'analisi incrementale.
+     *
+     * @param lastCommitId     l'ultimo commit del branch analizzato
+     * @param pendingCommitIds i commit già visitati ma non ancora analizzati perché privi di versione
+     */
+    public record MiningWatermark(String lastCommitId, List<String> pendingCommitIds) {}
+
+}
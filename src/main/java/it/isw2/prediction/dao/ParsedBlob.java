@@ -0,0 +1,94 @@
+package it.isw2.prediction.dao;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.PackageDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import it.isw2.prediction.model.MethodSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Informazioni estratte dal parsing di un blob Java.
+ * Contiene solo i dati necessari all'analisi dei commit, in modo da poter essere
+ * conservato in cache senza mantenere in memoria l'AST del file.
+ *
+ * @param packageName il nome del package dichiarato nel file, o null se assente
+ * @param methods     i metodi dichiarati nel file, nell'ordine in cui compaiono
+ */
+public record ParsedBlob(String packageName, List<ParsedMethod> methods) {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Estrae le informazioni sui metodi da una CompilationUnit.
+     *
+     * @param cu la CompilationUnit del file
+     * @return le informazioni estratte dal file
+     */
+    public static ParsedBlob of(CompilationUnit cu) {
+        String packageName = cu.getPackageDeclaration()
+                .map(PackageDeclaration::getNameAsString)
+                .orElse(null);
+
+        List<ParsedMethod> methods = new ArrayList<>();
+        for (MethodDeclaration methodDeclaration : cu.findAll(MethodDeclaration.class)) {
+            String className = methodDeclaration.findAncestor(ClassOrInterfaceDeclaration.class)
+                    .map(ClassOrInterfaceDeclaration::getNameAsString)
+                    .orElse("UnknownClass");
+
+            methods.add(new ParsedMethod(
+                    className,
+                    methodDeclaration.getNameAsString(),
+                    methodDeclaration.getParameters().size(),
+                    fingerprint(methodDeclaration),
+                    MethodSnapshot.of(methodDeclaration)
+            ));
+        }
+
+        return new ParsedBlob(packageName, List.copyOf(methods));
+    }
+
+    /**
+     * Calcola un'impronta a 64 bit (FNV-1a) del corpo del metodo,
+     * usata per capire se il metodo è cambiato senza conservarne il sorgente.
+     * L'impronta è calcolata sui token del corpo già prodotti dal parser, ignorando gli spazi,
+     * per cui non serve ristampare il corpo come stringa.
+     */
+    private static long fingerprint(MethodDeclaration methodDeclaration) {
+        long hash = FNV_OFFSET_BASIS;
+        Optional<TokenRange> tokens = methodDeclaration.getBody().flatMap(BlockStmt::getTokenRange);
+        if (tokens.isEmpty()) return hash;
+
+        for (JavaToken token : tokens.get()) {
+            if (token.getCategory().isWhitespace()) continue;
+            String text = token.getText();
+            for (int i = 0; i < text.length(); i++) {
+                hash ^= text.charAt(i);
+                hash *= FNV_PRIME;
+            }
+            // Separatore tra i token (equivale a un carattere nullo), così che "ab" e "a" "b" producano impronte diverse
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Informazioni su un singolo metodo dichiarato nel blob.
+     *
+     * @param className       il nome della classe che dichiara il metodo
+     * @param methodName      il nome del metodo
+     * @param parametersCount il numero di parametri del metodo
+     * @param bodyFingerprint l'impronta del corpo del metodo
+     * @param snapshot        le metriche strutturali del metodo
+     */
+    public record ParsedMethod(String className, String methodName, int parametersCount,
+                               long bodyFingerprint, MethodSnapshot snapshot) {}
+
+}
@@ -0,0 +1,194 @@
+package it.isw2.prediction.dao;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.dao.ParsedBlob.ParsedMethod;
+import it.isw2.prediction.model.Method;
+import it.isw2.prediction.model.MethodSnapshot;
+import it.isw2.prediction.model.metric.AstMetric;
+import it.isw2.prediction.model.metric.MetricRegistry;
+import it.isw2.prediction.utils.AtomicFiles;
+import org.eclipse.jgit.lib.ObjectId;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Archivio persistente dei blob analizzati, salvato nel path cache/{selectedProject}/blobs/v{formato}/.
+ * Poiché un blob è identificato dal suo hash, il risultato del parsing non cambia mai e può essere
+ * riutilizzato tra esecuzioni diverse: le analisi successive eseguono il parsing solo dei blob nuovi.
+ * Ogni blob è salvato in un file separato, con la stessa suddivisione in cartelle usata da Git.
+ * Nel file sono salvate solo le metriche strutturali calcolate: un blob salvato senza qualcuna delle
+ * metriche ora abilitate viene analizzato di nuovo e sovrascritto.
+ */
+public class ParsedBlobStore {
+
+    private static final Logger LOGGER = Logger.getLogger(ParsedBlobStore.class.getName());
+
+    // Da incrementare ogni volta che cambia il calcolo delle metriche, per invalidare i blob già salvati
+    // e lo stato dell'analisi incrementale
+    static final int FORMAT_VERSION = 4;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Path baseDir;
+
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder saved = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+
+    public ParsedBlobStore() {
+        ApplicationConfig config = new ApplicationConfig();
+        this.baseDir = Paths.get("cache", config.getSelectedProject().name(), "blobs", "v" + FORMAT_VERSION);
+    }
+
+    /**
+     * Restituisce il blob analizzato dall'archivio, eseguendo il parsing e salvandone
+     * il risultato solo se il blob non è mai stato analizzato.
+     *
+     * @param blobId l'ID del blob
+     * @param parser la funzione che esegue il parsing del blob, può restituire null se il blob non è analizzabile
+     * @return il blob analizzato, o null se il blob non è analizzabile
+     */
+    public ParsedBlob retrieve(ObjectId blobId, Supplier<ParsedBlob> parser) {
+        Path blobFile = resolve(blobId);
+
+        if (Files.exists(blobFile)) {
+            try {
+                JsonNode root = mapper.readTree(blobFile.toFile());
+                if (hasComputedMetrics(root)) {
+                    ParsedBlob blob = fromJson(root);
+                    loaded.increment();
+                    return blob;
+                }
+                // Il blob è stato salvato con metriche diverse da quelle abilitate: eseguo nuovamente il parsing
+                stale.increment();
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, e, () -> "Blob salvato non leggibile, eseguo nuovamente il parsing: " + blobFile);
+            }
+        }
+
+        ParsedBlob blob = parser.get();
+        save(blobFile, blob);
+        return blob;
+    }
+
+    private void save(Path blobFile, ParsedBlob blob) {
+        try {
+            AtomicFiles.writeString(blobFile, mapper.writeValueAsString(toJson(blob)));
+            saved.increment();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Errore durante il salvataggio del blob: " + blobFile);
+        }
+    }
+
+    private Path resolve(ObjectId blobId) {
+        String name = blobId.getName();
+        return baseDir.resolve(name.substring(0, 2)).resolve(name.substring(2) + ".json");
+    }
+
+    public long getLoaded() {
+        return loaded.sum();
+    }
+
+    public long getSaved() {
+        return saved.sum();
+    }
+
+    public long getStale() {
+        return stale.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedBlobStore (" + baseDir + ") => caricati: " + getLoaded() + ", salvati: " + getSaved() + ", da aggiornare: " + getStale();
+    }
+
+    /* --- SERIALIZZAZIONE --- */
+
+    private ObjectNode toJson(ParsedBlob blob) {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("parsed", blob != null);
+        if (blob == null) return root;
+
+        List<AstMetric> metrics = MetricRegistry.getInstance().getAstMetrics();
+        ArrayNode metricNames = root.putArray("metrics");
+        for (AstMetric metric : metrics) metricNames.add(metric.name());
+
+        root.put("packageName", blob.packageName());
+        ArrayNode methods = root.putArray("methods");
+        for (ParsedMethod method : blob.methods()) {
+            MethodSnapshot snapshot = method.snapshot();
+            ObjectNode node = methods.addObject();
+            node.put("className", method.className());
+            node.put("methodName", method.methodName());
+            node.put("parametersCount", method.parametersCount());
+            node.put("bodyFingerprint", method.bodyFingerprint());
+            if (snapshot.methodInfo() != null) {
+                node.put("beginLine", snapshot.methodInfo().getBeginLine());
+                node.put("endLine", snapshot.methodInfo().getEndLine());
+            }
+            ObjectNode values = node.putObject("metrics");
+            for (AstMetric metric : metrics) values.put(metric.name(), snapshot.value(metric));
+        }
+        return root;
+    }
+
+    /**
+     * Verifica che il blob salvato contenga tutte le metriche strutturali da calcolare.
+     * Un blob non analizzabile non contiene metriche ed è sempre valido.
+     */
+    private boolean hasComputedMetrics(JsonNode root) {
+        if (!root.get("parsed").asBoolean()) return true;
+        JsonNode metricNames = root.get("metrics");
+        if (metricNames == null) return false;
+
+        Set<String> savedNames = new HashSet<>();
+        for (JsonNode name : metricNames) savedNames.add(name.asText());
+        for (AstMetric metric : MetricRegistry.getInstance().getAstMetrics()) {
+            if (!savedNames.contains(metric.name())) return false;
+        }
+        return true;
+    }
+
+    private ParsedBlob fromJson(JsonNode root) {
+        if (!root.get("parsed").asBoolean()) return null;
+
+        JsonNode packageNode = root.get("packageName");
+        String packageName = packageNode == null || packageNode.isNull() ? null : packageNode.asText();
+
+        MetricRegistry registry = MetricRegistry.getInstance();
+        List<AstMetric> metrics = registry.getAstMetrics();
+        List<ParsedMethod> methods = new ArrayList<>();
+        for (JsonNode node : root.get("methods")) {
+            Method.MethodInfo methodInfo = node.has("beginLine")
+                    ? new Method.MethodInfo(node.get("beginLine").asInt(), node.get("endLine").asInt())
+                    : null;
+            JsonNode savedValues = node.get("metrics");
+            int[] values = new int[registry.size()];
+            for (AstMetric metric : metrics) values[registry.indexOf(metric)] = savedValues.get(metric.name()).asInt();
+            MethodSnapshot snapshot = new MethodSnapshot(methodInfo, values);
+            methods.add(new ParsedMethod(
+                    node.get("className").asText(),
+                    node.get("methodName").asText(),
+                    node.get("parametersCount").asInt(),
+                    node.get("bodyFingerprint").asLong(),
+                    snapshot
+            ));
+        }
+        return new ParsedBlob(packageName, List.copyOf(methods));
+    }
+
+}
@@ -0,0 +1,31 @@
+package it.isw2.prediction.factory;
+
+import it.isw2.prediction.repository.TicketCommitIndex;
+
+/**
+ * Factory per l'indice condiviso dei collegamenti tra commit e ticket.
+ * Implementa il pattern Singleton per garantire l'esistenza di una sola istanza.
+ */
+public class TicketCommitIndexFactory {
+
+    private static TicketCommitIndexFactory instance = null;
+
+    private final TicketCommitIndex ticketCommitIndex;
+
+    private TicketCommitIndexFactory() {
+        this.ticketCommitIndex = new TicketCommitIndex(
+                CommitRepositoryFactory.getInstance().getCommitRepository(),
+                TicketRepositoryFactory.getInstance().getTicketRepository()
+        );
+    }
+
+    public static TicketCommitIndexFactory getInstance() {
+        if (instance == null) instance = new TicketCommitIndexFactory();
+        return instance;
+    }
+
+    public TicketCommitIndex getTicketCommitIndex() {
+        return ticketCommitIndex;
+    }
+
+}
@@ -0,0 +1,117 @@
+package it.isw2.prediction.model;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.stmt.*;
+import it.isw2.prediction.model.metric.BuiltinMetrics;
+import it.isw2.prediction.model.metric.MetricRegistry;
+
+/**
+ * Calcola le metriche strutturali predefinite con un'unica visita dell'AST e contatori diretti.
+ * <p>
+ * È il percorso veloce di {@link MethodMetricVisitor}, usato quando le metriche strutturali da calcolare
+ * sono esattamente quelle di {@link BuiltinMetrics}, come nella configurazione predefinita: i valori
+ * sono gli stessi degli accumulatori delle metriche, ma senza passare ogni nodo a un accumulatore per metrica.
+ * <p>
+ * I punti di decisione (if, cicli, catch, case con etichetta e operatori {@code &&} e {@code ||})
+ * vengono contati su tutta la dichiarazione e determinano complessità ciclomatica e branch points.
+ * Istruzioni, complessità cognitiva e profondità di annidamento vengono calcolate solo sul corpo:
+ * la complessità cognitiva somma per ogni struttura di controllo 1 più il suo livello di annidamento,
+ * la profondità di annidamento è il massimo numero di istruzioni annidate.
+ */
+final class BuiltinMetricVisitor {
+
+    private int statements = 0;
+    private int decisionPoints = 0;
+    private int cognitiveComplexity = 0;
+    private int nestingDepth = 0;
+
+    private BuiltinMetricVisitor() {}
+
+    /**
+     * Visita la dichiarazione del metodo e ne restituisce i valori delle metriche predefinite.
+     *
+     * @param methodDeclaration la dichiarazione del metodo
+     * @param registry          il registro, da cui ricavare l'indice di ciascuna metrica
+     * @return i valori delle metriche, indicizzati come nel registro
+     */
+    static int[] values(MethodDeclaration methodDeclaration, MetricRegistry registry) {
+        BuiltinMetricVisitor visitor = new BuiltinMetricVisitor();
+        BlockStmt body = methodDeclaration.getBody().orElse(null);
+        visitor.visitDeclaration(methodDeclaration, body);
+
+        int[] values = new int[registry.size()];
+        values[registry.indexOf(BuiltinMetrics.LOC)] = body != null ? BuiltinMetrics.countCodeLines(body) : 0;
+        values[registry.indexOf(BuiltinMetrics.STATEMENT)] = visitor.statements;
+        values[registry.indexOf(BuiltinMetrics.CYCLOMATIC_COMPLEXITY)] = 1 + visitor.decisionPoints;
+        values[registry.indexOf(BuiltinMetrics.COGNITIVE_COMPLEXITY)] = visitor.cognitiveComplexity;
+        values[registry.indexOf(BuiltinMetrics.BRANCH_POINTS)] = visitor.decisionPoints;
+        values[registry.indexOf(BuiltinMetrics.NESTING_DEPTH)] = visitor.nestingDepth;
+        values[registry.indexOf(BuiltinMetrics.PARAMETERS_COUNT)] = methodDeclaration.getParameters().size();
+        return values;
+    }
+
+    /**
+     * Visita la dichiarazione fuori dal corpo (annotazioni, parametri, tipi), dove contano solo i punti di decisione.
+     */
+    private void visitDeclaration(Node node, BlockStmt body) {
+        for (Node child : node.getChildNodes()) {
+            if (child == body) {
+                visitBody(body, 0, 0);
+            } else {
+                countDecisionPoint(child);
+                visitDeclaration(child, body);
+            }
+        }
+    }
+
+    /**
+     * Visita un nodo del corpo del metodo.
+     *
+     * @param node      il nodo da visitare
+     * @param nesting   il livello di annidamento delle strutture di controllo, per la complessità cognitiva
+     * @param depth     il numero di istruzioni che contengono il nodo, per la profondità di annidamento
+     */
+    private void visitBody(Node node, int nesting, int depth) {
+        for (Node child : node.getChildNodes()) {
+            countDecisionPoint(child);
+
+            int childDepth = depth;
+            if (child instanceof Statement) {
+                childDepth++;
+                if (!(child instanceof BlockStmt)) statements++;
+            }
+            nestingDepth = Math.max(nestingDepth, childDepth);
+
+            if (isControlStructure(child)) {
+                cognitiveComplexity += 1 + nesting;
+                visitBody(child, nesting + 1, childDepth);
+            } else {
+                if (isLogicalOperator(child)) cognitiveComplexity++;
+                visitBody(child, nesting, childDepth);
+            }
+        }
+    }
+
+    private void countDecisionPoint(Node node) {
+        boolean decision = switch (node) {
+            case IfStmt _, ForStmt _, ForEachStmt _, WhileStmt _, DoStmt _, CatchClause _ -> true;
+            case SwitchEntry entry -> !entry.getLabels().isEmpty();
+            default -> isLogicalOperator(node);
+        };
+        if (decision) decisionPoints++;
+    }
+
+    private static boolean isControlStructure(Node node) {
+        return node instanceof IfStmt || node instanceof ForStmt || node instanceof ForEachStmt
+                || node instanceof WhileStmt || node instanceof DoStmt || node instanceof CatchClause
+                || node instanceof SwitchStmt || node instanceof SwitchEntry;
+    }
+
+    private static boolean isLogicalOperator(Node node) {
+        return node instanceof BinaryExpr be
+                && (be.getOperator() == BinaryExpr.Operator.AND || be.getOperator() == BinaryExpr.Operator.OR);
+    }
+
+}
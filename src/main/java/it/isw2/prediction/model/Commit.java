@@ -1,12 +1,11 @@
 package it.isw2.prediction.model;
 
 import it.isw2.prediction.exception.ticket.TicketRetrievalException;
-import it.isw2.prediction.factory.TicketRepositoryFactory;
-import it.isw2.prediction.repository.TicketRepository;
+import it.isw2.prediction.factory.TicketCommitIndexFactory;
+import it.isw2.prediction.repository.TicketCommitIndex;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
@@ -89,13 +88,9 @@ public class Commit {
 
     private void lazyLoadTickets() throws TicketRetrievalException {
         if (linkedTickets != null) return;
-        linkedTickets = new ArrayList<>();
-        TicketRepository ticketRepository = TicketRepositoryFactory.getInstance().getTicketRepository();
-        List<Ticket> tickets = ticketRepository.retrieveTickets();
-        for (Ticket ticket : tickets) {
-            // Collego il commit al ticket se il messaggio contiene il ticket
-            if (getMessage().contains(ticket.getKey())) linkedTickets.add(ticket);
-        }
+        // Collego il commit ai ticket citati nel messaggio
+        TicketCommitIndex ticketCommitIndex = TicketCommitIndexFactory.getInstance().getTicketCommitIndex();
+        linkedTickets = ticketCommitIndex.retrieveTicketsByCommit(this);
     }
 
     /* --- FORMATTER --- */
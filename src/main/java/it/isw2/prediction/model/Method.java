@@ -1,12 +1,15 @@
 package it.isw2.prediction.model;
 
-import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.MethodDeclaration;
-import com.github.javaparser.ast.expr.BinaryExpr;
-import com.github.javaparser.ast.stmt.*;
-import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import it.isw2.prediction.config.ApplicationConfig;
 import it.isw2.prediction.exception.ticket.TicketRetrievalException;
+import it.isw2.prediction.model.MethodMetricStore.VersionAggregate;
+import it.isw2.prediction.model.metric.Aggregation;
+import it.isw2.prediction.model.metric.AstMetric;
+import it.isw2.prediction.model.metric.BuiltinMetrics;
+import it.isw2.prediction.model.metric.DiffMetric;
+import it.isw2.prediction.model.metric.MethodMetric;
+import it.isw2.prediction.model.metric.MetricRegistry;
 import it.isw2.prediction.factory.VersionRepositoryFactory;
 import it.isw2.prediction.repository.VersionRepository;
 import org.eclipse.jgit.diff.DiffEntry;
@@ -33,25 +36,14 @@ public class Method {
     private final List<Version> versions = new ArrayList<>();
     private Commit deleteCommit = null; // Commit in cui il metodo è stato eliminato
 
-    private Map<Commit, Integer> locPerCommit = new HashMap<>();
-    private Map<Commit, Integer> statementPerCommit = new HashMap<>();
-    private Map<Commit, Integer> cyclomaticComplexityPerCommit = new HashMap<>();
-    private Map<Commit, Integer> cognitiveComplexityPerCommit = new HashMap<>();
-    private Map<Version, Integer> methodHistoriesPerVersion = new HashMap<>();
-
-    private Map<Commit, Integer> churnPerCommit = new HashMap<>();
-    private Map<Commit, Integer> addedLinesPerCommit = new HashMap<>();
-    private Map<Commit, Integer> deletedLinesPerCommit = new HashMap<>();
+    // Metriche per commit del registro (loc, complessità, churn, ...) in formato colonnare
+    private final MethodMetricStore metricStore = new MethodMetricStore();
+    // Aggregazioni per versione calcolate dall'archivio, invalidate a ogni modifica delle metriche
+    private Map<Version, VersionAggregate> versionAggregates = null;
 
+    private Map<Version, Integer> methodHistoriesPerVersion = new HashMap<>();
     private Map<Version, Boolean> buggyPerVersion = new HashMap<>();
 
-    private Map<Commit, MethodInfo> methodInfoPerCommit = new HashMap<>();
-
-    // Nuove mappe per branch/decision points, nesting depth e numero di parametri
-    private Map<Commit, Integer> branchPointsPerCommit = new HashMap<>();
-    private Map<Commit, Integer> nestingDepthPerCommit = new HashMap<>();
-    private Map<Commit, Integer> parametersCountPerCommit = new HashMap<>();
-
     public Method(String className, String packageName, String methodName) {
         this.className = className;
         this.packageName = packageName;
@@ -78,6 +70,10 @@ public class Method {
         return deleteCommit;
     }
 
+    public void setDeleteCommit(Commit deleteCommit) {
+        this.deleteCommit = deleteCommit;
+    }
+
     /* --- VERSIONS --- */
 
     public boolean isInVersion(Version version) {
@@ -171,27 +167,38 @@ public class Method {
     /* --- PARSING --- */
 
     public void parseMethodDeclaration(Commit commit, MethodDeclaration methodDeclaration) throws TicketRetrievalException {
+        this.parseMethodSnapshot(commit, methodDeclaration == null ? null : MethodSnapshot.of(methodDeclaration));
+    }
+
+    /**
+     * Registra le metriche strutturali calcolate del metodo per il commit.
+     * Un'istantanea nulla indica che il metodo è stato eliminato nel commit.
+     *
+     * @param commit   il commit in cui il metodo è stato modificato
+     * @param snapshot le metriche calcolate sulla dichiarazione del metodo, o null se eliminato
+     * @throws TicketRetrievalException se si verifica un errore durante il recupero dei ticket
+     */
+    public void parseMethodSnapshot(Commit commit, MethodSnapshot snapshot) throws TicketRetrievalException {
         this.addVersion(commit.getVersion());
+        MetricRegistry registry = MetricRegistry.getInstance();
         boolean deleted = false;
-        if(methodDeclaration == null) {
+        if(snapshot == null) {
             deleted = true;
             this.deleteCommit = commit;
 
-            // Se il metodo è stato eliminato, calcola il churn come le loc del metodo
+            // Se il metodo è stato eliminato, le metriche sulle modifiche considerano eliminate tutte le loc del metodo
             Version version = commit.getVersion();
-            int loc = this.getLOC(version);
-            deletedLinesPerCommit.put(commit, loc + deletedLinesPerCommit.getOrDefault(commit, 0));
-            churnPerCommit.put(commit, loc + churnPerCommit.getOrDefault(commit, 0));
+            int loc = (int) this.getMetric(BuiltinMetrics.LOC, Aggregation.LAST, version);
+            for (DiffMetric metric : registry.getDiffMetrics()) {
+                if (metric.countsDeletion()) metricStore.add(commit, metric, metric.value(0, loc));
+            }
 
         }
-        this.methodInfoPerCommit.put(commit, deleted ? null : computeMethodInfo(methodDeclaration));
-        this.locPerCommit.put(commit, deleted ? 0 : computeLOC(methodDeclaration));
-        this.statementPerCommit.put(commit, deleted ? 0 : computeStatement(methodDeclaration));
-        this.cyclomaticComplexityPerCommit.put(commit, deleted ? 0 : computeCyclomaticComplexity(methodDeclaration));
-        this.cognitiveComplexityPerCommit.put(commit, deleted ? 0 : computeCognitiveComplexity(methodDeclaration));
-        this.branchPointsPerCommit.put(commit, deleted ? 0 : computeBranchPoints(methodDeclaration));
-        this.nestingDepthPerCommit.put(commit, deleted ? 0 : computeNestingDepth(methodDeclaration));
-        this.parametersCountPerCommit.put(commit, deleted ? 0 : computeParametersCount(methodDeclaration));
+        metricStore.putMethodInfo(commit, deleted ? null : snapshot.methodInfo());
+        for (AstMetric metric : registry.getAstMetrics()) {
+            metricStore.put(commit, metric, deleted ? 0 : snapshot.value(metric));
+        }
+        this.versionAggregates = null;
         this.methodHistoriesPerVersion.put(commit.getVersion(), computeMethodHistories(commit.getVersion()));
         this.computeIfBuggy(commit);
     }
@@ -200,38 +207,21 @@ public class Method {
         this.computeChurn(repository, commit, diffEntry);
     }
 
-    /* --- MAPS --- */
-
-    public Map<Commit, Integer> getLocPerCommit() {
-        return locPerCommit;
-    }
-
-    public void setLocPerCommit(Map<Commit, Integer> locPerCommit) {
-        this.locPerCommit = locPerCommit;
+    public void parseEditList(Commit commit, EditList edits) {
+        this.computeChurn(commit, edits);
     }
 
-    public Map<Commit, Integer> getStatementPerCommit() {
-        return statementPerCommit;
-    }
-
-    public void setStatementPerCommit(Map<Commit, Integer> statementPerCommit) {
-        this.statementPerCommit = statementPerCommit;
-    }
-
-    public Map<Commit, Integer> getCyclomaticComplexityPerCommit() {
-        return cyclomaticComplexityPerCommit;
-    }
+    /* --- MAPS --- */
 
-    public void setCyclomaticComplexityPerCommit(Map<Commit, Integer> cyclomaticComplexityPerCommit) {
-        this.cyclomaticComplexityPerCommit = cyclomaticComplexityPerCommit;
-    }
+    // Le mappe per commit sono copie costruite dall'archivio colonnare, usate per la serializzazione
 
-    public Map<Commit, Integer> getCognitiveComplexityPerCommit() {
-        return cognitiveComplexityPerCommit;
+    public Map<Commit, Integer> getMetricPerCommit(MethodMetric metric) {
+        return metricStore.toMap(metric);
     }
 
-    public void setCognitiveComplexityPerCommit(Map<Commit, Integer> cognitiveComplexityPerCommit) {
-        this.cognitiveComplexityPerCommit = cognitiveComplexityPerCommit;
+    public void setMetricPerCommit(MethodMetric metric, Map<Commit, Integer> metricPerCommit) {
+        metricStore.putAll(metric, metricPerCommit);
+        versionAggregates = null;
     }
 
     public Map<Version, Integer> getMethodHistoriesPerVersion() {
@@ -242,32 +232,6 @@ public class Method {
         this.methodHistoriesPerVersion = methodHistoriesPerVersion;
     }
 
-
-    public Map<Commit, Integer> getChurnPerCommit() {
-        return churnPerCommit;
-    }
-
-    public void setChurnPerCommit(Map<Commit, Integer> churnPerCommit) {
-        this.churnPerCommit = churnPerCommit;
-    }
-
-    public Map<Commit, Integer> getAddedLinesPerCommit() {
-        return addedLinesPerCommit;
-    }
-
-    public void setAddedLinesPerCommit(Map<Commit, Integer> addedLinesPerCommit) {
-        this.addedLinesPerCommit = addedLinesPerCommit;
-    }
-
-    public Map<Commit, Integer> getDeletedLinesPerCommit() {
-        return deletedLinesPerCommit;
-    }
-
-    public void setDeletedLinesPerCommit(Map<Commit, Integer> deletedLinesPerCommit) {
-        this.deletedLinesPerCommit = deletedLinesPerCommit;
-    }
-
-
     public Map<Version, Boolean> getBuggyPerVersion() {
         return buggyPerVersion;
     }
@@ -277,298 +241,62 @@ public class Method {
     }
 
     public Map<Commit, MethodInfo> getMethodInfoPerCommit() {
-        return methodInfoPerCommit;
+        return metricStore.toMethodInfoMap();
     }
 
     public void setMethodInfoPerCommit(Map<Commit, MethodInfo> methodInfoPerCommit) {
-        this.methodInfoPerCommit = methodInfoPerCommit;
-    }
-
-    public Map<Commit, Integer> getBranchPointsPerCommit() {
-        return branchPointsPerCommit;
-    }
-
-    public void setBranchPointsPerCommit(Map<Commit, Integer> branchPointsPerCommit) {
-        this.branchPointsPerCommit = branchPointsPerCommit;
-    }
-
-    public Map<Commit, Integer> getNestingDepthPerCommit() {
-        return nestingDepthPerCommit;
-    }
-
-    public void setNestingDepthPerCommit(Map<Commit, Integer> nestingDepthPerCommit) {
-        this.nestingDepthPerCommit = nestingDepthPerCommit;
-    }
-
-    public Map<Commit, Integer> getParametersCountPerCommit() {
-        return parametersCountPerCommit;
-    }
-
-    public void setParametersCountPerCommit(Map<Commit, Integer> parametersCountPerCommit) {
-        this.parametersCountPerCommit = parametersCountPerCommit;
+        metricStore.putAllMethodInfo(methodInfoPerCommit);
+        versionAggregates = null;
     }
 
     /* --- FEATURES --- */
 
-    public int getLOC(Version version) {
-        return getMetricForVersion(locPerCommit, version);
-    }
-
-    public int getStatement(Version version) {
-        return getMetricForVersion(statementPerCommit, version);
-    }
-
-    public int getCyclomaticComplexity(Version version) {
-        return getMetricForVersion(cyclomaticComplexityPerCommit, version);
-    }
-
-    public int getCognitiveComplexity(Version version) {
-        return getMetricForVersion(cognitiveComplexityPerCommit, version);
-    }
-
-    public int getMethodHistories(Version version) {
-        return methodHistoriesPerVersion.getOrDefault(version, 0);
-    }
-
-
-    public int getChurn(Version version) {
-        return getSumForVersion(churnPerCommit, version);
-    }
-
-    public int getAddedLines(Version version) {
-        return getSumForVersion(addedLinesPerCommit, version);
-    }
-
-    public int getDeletedLines(Version version) {
-        return getSumForVersion(deletedLinesPerCommit, version);
-    }
-
-    public int getBranchPoints(Version version) {
-        return getMetricForVersion(branchPointsPerCommit, version);
-    }
-
-    public int getNestingDepth(Version version) {
-        return getMetricForVersion(nestingDepthPerCommit, version);
-    }
-
-    public int getParametersCount(Version version) {
-        return getMetricForVersion(parametersCountPerCommit, version);
-    }
-
-    public int getMaxChurn(Version version) {
-        return getMaxForVersion(churnPerCommit, version);
-    }
-
-    public double getAvgChurn(Version version) {
-        return getAvgForVersion(churnPerCommit, version);
-    }
-
-    public int getMaxAddedLines(Version version) {
-        return getMaxForVersion(addedLinesPerCommit, version);
-    }
-
-    public double getAvgAddedLines(Version version) {
-        return getAvgForVersion(addedLinesPerCommit, version);
-    }
-
-    public int getMaxDeletedLines(Version version) {
-        return getMaxForVersion(deletedLinesPerCommit, version);
-    }
-
-    public double getAvgDeletedLines(Version version) {
-        return getAvgForVersion(deletedLinesPerCommit, version);
-    }
-
-    private int getSumForVersion(Map<Commit, Integer> metricMap, Version version) {
-        int sum = 0;
-        for (Map.Entry<Commit, Integer> entry : metricMap.entrySet()) {
-            if (entry.getKey().getVersion().equals(version)) {
-                sum += entry.getValue();
-            }
-        }
-        return sum;
-    }
-
-    private int getMaxForVersion(Map<Commit, Integer> metricMap, Version version) {
-        int max = 0;
-        for (Map.Entry<Commit, Integer> entry : metricMap.entrySet()) {
-            if (entry.getKey().getVersion().equals(version)) max = Math.max(max, entry.getValue());
-        }
-        return max;
-    }
-
-    private double getAvgForVersion(Map<Commit, Integer> metricMap, Version version) {
-        int sum = 0;
-        int count = 0;
-        for (Map.Entry<Commit, Integer> entry : metricMap.entrySet()) {
-            if (entry.getKey().getVersion().equals(version)) {
-                sum += entry.getValue();
-                count++;
-            }
-        }
-        return count > 0 ? (double) sum / count : 0.0;
-    }
-
-    public boolean isBuggy(Version version) {
-        return buggyPerVersion.getOrDefault(version, false);
-    }
-
-
-    private int getMetricForVersion(Map<Commit, Integer> metricMap, Version version) {
-        Commit lastCommit = null;
-
-        // Trova l'ultimo commit che precede la data di rilascio della versione
-        for (Commit commit : metricMap.keySet()) {
-            if(lastCommit == null && commit.getVersion().equals(version)) {
-                // Se il commit è della stessa versione, lo consideriamo come ultimo
-                lastCommit = commit;
-            }
-            if (commit.getDate().before(version.getReleaseDate()) && (lastCommit == null || commit.getDate().after(lastCommit.getDate()))) {
-                lastCommit = commit;
-            }
-        }
-
-        if (lastCommit != null) return metricMap.get(lastCommit);
-        return 0;
-    }
-
-    private MethodInfo computeMethodInfo(MethodDeclaration methodDeclaration) {
-        if (methodDeclaration.getBegin().isEmpty() || methodDeclaration.getEnd().isEmpty()) return null; // Non posso calcolare le linee se non ho i dati di inizio e fine
-        int beginLine = methodDeclaration.getBegin().get().line;
-        int endLine = methodDeclaration.getEnd().get().line;
-        return new MethodInfo(beginLine, endLine);
-    }
-
-    private int computeLOC(MethodDeclaration methodDeclaration) {
-        return computePureLOC(methodDeclaration);
-    }
-
     /**
-     * Calcola le linee di codice "pure" (LOC) per il metodo.
-     * Esclude commenti e spazi vuoti, ma include le linee di codice effettivo.
+     * Restituisce l'aggregazione per versione dei valori per commit della metrica.
+     * Le metriche non calcolate valgono 0.
+     *
+     * @param metric      la metrica
+     * @param aggregation l'aggregazione
+     * @param version     la versione
+     * @return il valore aggregato
      */
-    private int computePureLOC(MethodDeclaration methodDeclaration) {
-        if (methodDeclaration.getBody().isEmpty()) return 0;
-
-        BlockStmt body = methodDeclaration.getBody().get();
-        String[] lines = body.toString().split("\\R");
-        int count = 0;
-        boolean inBlockComment = false;
-
-        for (String line : lines) {
-            String trimmed = line.trim();
-
-            if (inBlockComment) {
-                inBlockComment = !endsBlockComment(trimmed);
-            } else if (shouldSkipLine(trimmed)) {
-                // niente
-            } else if (startsBlockComment(trimmed)) {
-                inBlockComment = !endsBlockComment(trimmed);
-            } else if (!isBraceOnly(trimmed)) {
-                count++;
-            }
-
-        }
-        return count;
-    }
-
-    private boolean shouldSkipLine(String trimmed) {
-        return trimmed.isEmpty() || trimmed.startsWith("//") || trimmed.startsWith("*");
-    }
-
-    private boolean startsBlockComment(String trimmed) {
-        return trimmed.startsWith("/*");
-    }
-
-    private boolean endsBlockComment(String trimmed) {
-        return trimmed.contains("*/");
-    }
-
-    private boolean isBraceOnly(String trimmed) {
-        return trimmed.equals("{") || trimmed.equals("}");
+    public double getMetric(MethodMetric metric, Aggregation aggregation, Version version) {
+        return getMetric(MetricRegistry.getInstance().indexOf(metric), aggregation, version);
     }
 
     /**
-     * Conta il numero totale di istruzioni nel metodo.
+     * Come {@link #getMetric(MethodMetric, Aggregation, Version)}, con l'indice della metrica già risolto nel registro.
      */
-    public int computeStatement(MethodDeclaration methodDeclaration) {
-        if (methodDeclaration.getBody().isEmpty()) return 0;
-
-        BlockStmt body = methodDeclaration.getBody().get();
-
-        // Contiamo solo gli Statement diretti o annidati reali
-        return body.findAll(Statement.class).stream()
-                .filter(stmt -> !(stmt instanceof BlockStmt)) // Escludi blocchi vuoti
-                .toList()
-                .size();
+    public double getMetric(int metricIndex, Aggregation aggregation, Version version) {
+        VersionAggregate aggregate = aggregateFor(version);
+        return switch (aggregation) {
+            case LAST -> aggregate.getLast(metricIndex);
+            case SUM -> aggregate.getSum(metricIndex);
+            case MAX -> aggregate.getMax(metricIndex);
+            case AVG -> aggregate.getAvg(metricIndex);
+        };
     }
 
-    /**
-     * Calcola la complessità ciclomatica per il metodo.
-     * Conta le strutture di controllo come if, for, while, switch e operatori logici.
-     */
-    private int computeCyclomaticComplexity(MethodDeclaration methodDeclaration) {
-        CyclomaticComplexityVisitor visitor = new CyclomaticComplexityVisitor();
-        visitor.visit(methodDeclaration, null);
-        return visitor.getComplexity();
+    public int getMethodHistories(Version version) {
+        return methodHistoriesPerVersion.getOrDefault(version, 0);
     }
 
-    private static class CyclomaticComplexityVisitor extends VoidVisitorAdapter<Void> {
-        private int complexity = 1; // base
-
-        public int getComplexity() {
-            return complexity;
-        }
-
-        @Override public void visit(IfStmt n, Void arg) { complexity++; super.visit(n, arg); }
-        @Override public void visit(ForStmt n, Void arg) { complexity++; super.visit(n, arg); }
-        @Override public void visit(ForEachStmt n, Void arg) { complexity++; super.visit(n, arg); }
-        @Override public void visit(WhileStmt n, Void arg) { complexity++; super.visit(n, arg); }
-        @Override public void visit(DoStmt n, Void arg) { complexity++; super.visit(n, arg); }
-        @Override public void visit(CatchClause n, Void arg) { complexity++; super.visit(n, arg); }
-        @Override public void visit(SwitchEntry n, Void arg) {
-            if (!n.getLabels().isEmpty()) complexity++;
-            super.visit(n, arg);
-        }
-        @Override public void visit(BinaryExpr n, Void arg) {
-            if (n.getOperator() == BinaryExpr.Operator.AND || n.getOperator() == BinaryExpr.Operator.OR) {
-                complexity++;
-            }
-            super.visit(n, arg);
-        }
+    public boolean isBuggy(Version version) {
+        return buggyPerVersion.getOrDefault(version, false);
     }
 
     /**
-     * Calcola la complessità cognitiva per il metodo.
-     * Conta i livelli di annidamento di strutture di controllo come if, for, while, switch e case.
+     * Restituisce le aggregazioni delle metriche per la versione.
+     * Alla prima richiesta vengono calcolate in una sola passata per tutte le versioni del metodo,
+     * per cui le richieste successive, come quelle della creazione del dataset, costano O(1).
      */
-    private int computeCognitiveComplexity(MethodDeclaration methodDeclaration) {
-        return computeCognitiveComplexity(methodDeclaration.getBody().orElse(null), 0, 0);
-    }
-
-    private int computeCognitiveComplexity(Node node, int nesting, int complexity) {
-        if (node == null) return complexity;
-
-        for (Node child : node.getChildNodes()) {
-            int localAdd = 0;
-
-            if (child instanceof IfStmt || child instanceof ForStmt || child instanceof ForEachStmt ||
-                    child instanceof WhileStmt || child instanceof DoStmt || child instanceof CatchClause ||
-                    child instanceof SwitchStmt || child instanceof SwitchEntry) {
-                localAdd = 1 + nesting;
-                complexity += localAdd;
-                complexity = computeCognitiveComplexity(child, nesting + 1, complexity);
-            } else if (child instanceof BinaryExpr be) {
-                if (be.getOperator() == BinaryExpr.Operator.AND || be.getOperator() == BinaryExpr.Operator.OR) {
-                    complexity += 1;
-                }
-                complexity = computeCognitiveComplexity(be, nesting, complexity);
-            } else {
-                complexity = computeCognitiveComplexity(child, nesting, complexity);
-            }
+    private VersionAggregate aggregateFor(Version version) {
+        if (versionAggregates == null || !versionAggregates.containsKey(version)) {
+            Set<Version> aggregatedVersions = new HashSet<>(versions);
+            aggregatedVersions.add(version);
+            versionAggregates = metricStore.aggregateByVersion(aggregatedVersions);
         }
-
-        return complexity;
+        return versionAggregates.get(version);
     }
 
     /**
@@ -579,134 +307,73 @@ public class Method {
     }
 
     /**
-     * Calcola i punti di ramificazione (branch points) per il metodo.
-     * Conta le strutture di controllo come if, for, while, switch e operatori logici.
-     */
-    private int computeBranchPoints(MethodDeclaration methodDeclaration) {
-        BranchPointVisitor visitor = new BranchPointVisitor();
-        visitor.visit(methodDeclaration, null);
-        return visitor.getBranchPoints();
-    }
-
-    private static class BranchPointVisitor extends VoidVisitorAdapter<Void> {
-        private int count = 0;
-
-        public int getBranchPoints() {
-            return count;
-        }
-
-        @Override public void visit(IfStmt n, Void arg) { count++; super.visit(n, arg); }
-        @Override public void visit(ForStmt n, Void arg) { count++; super.visit(n, arg); }
-        @Override public void visit(ForEachStmt n, Void arg) { count++; super.visit(n, arg); }
-        @Override public void visit(WhileStmt n, Void arg) { count++; super.visit(n, arg); }
-        @Override public void visit(DoStmt n, Void arg) { count++; super.visit(n, arg); }
-        @Override public void visit(CatchClause n, Void arg) { count++; super.visit(n, arg); }
-        @Override public void visit(SwitchEntry n, Void arg) {
-            if (!n.getLabels().isEmpty()) count++;
-            super.visit(n, arg);
-        }
-        @Override public void visit(BinaryExpr n, Void arg) {
-            if (n.getOperator() == BinaryExpr.Operator.AND || n.getOperator() == BinaryExpr.Operator.OR) {
-                count++;
-            }
-            super.visit(n, arg);
-        }
-    }
-
-    /**
-     * Calcola la profondità di annidamento per il metodo.
-     * Conta il numero massimo di strutture di controllo annidate.
-     */
-    /**
-     * Calcola la profondità di annidamento per il metodo.
-     * Conta il numero massimo di strutture di controllo annidate.
+     * Calcola il churn (linee aggiunte + rimosse) per un metodo in un commit specifico.
+     *
+     * @param repository Repository Git
+     * @param commit     Commit in cui è avvenuta la modifica
+     * @param diffEntry  DiffEntry che rappresenta le modifiche al file
      */
-    private int computeNestingDepth(MethodDeclaration methodDeclaration) {
-        return computeNestingDepth(methodDeclaration.getBody().orElse(null), 0);
-    }
+    public void computeChurn(Repository repository, Commit commit, DiffEntry diffEntry) {
+        // Se non ho le informazioni sul metodo per questo commit, non posso calcolare il churn
+        if (metricStore.getMethodInfo(commit) == null || MetricRegistry.getInstance().getDiffMetrics().isEmpty()) return;
 
-    private int computeNestingDepth(Node node, int currentDepth) {
-        if (node == null) return currentDepth;
+        // Crea un formatter per analizzare le modifiche
+        try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+            diffFormatter.setRepository(repository);
+            diffFormatter.setContext(0); // Nessun contesto per ridurre il rumore
 
-        int maxDepth = currentDepth;
+            // Ottieni il FileHeader per il DiffEntry
+            FileHeader fileHeader = diffFormatter.toFileHeader(diffEntry);
+            computeChurn(commit, fileHeader.toEditList());
 
-        for (Node child : node.getChildNodes()) {
-            if (child instanceof Statement) {
-                int childDepth = computeNestingDepth(child, currentDepth + 1);
-                maxDepth = Math.max(maxDepth, childDepth);
-            } else {
-                // continua a visitare anche se non è uno Statement, perché ci potrebbero essere blocchi dentro ad espressioni
-                int childDepth = computeNestingDepth(child, currentDepth);
-                maxDepth = Math.max(maxDepth, childDepth);
-            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Errore nel calcolo del churn per il metodo " + getFullName());
         }
-
-        return maxDepth;
     }
 
     /**
-     * Calcola il numero di parametri del metodo.
-     * Conta i parametri definiti nella dichiarazione del metodo.
-     */
-    private int computeParametersCount(MethodDeclaration methodDeclaration) {
-        return methodDeclaration.getParameters().size();
-    }
-
-
-    /**
-     * Calcola il churn (linee aggiunte + rimosse) per un metodo in un commit specifico.
+     * Calcola il churn (linee aggiunte + rimosse) per un metodo in un commit specifico
+     * a partire dalla lista delle modifiche già calcolata per il file.
      *
-     * @param repository Repository Git
-     * @param commit     Commit in cui è avvenuta la modifica
-     * @param diffEntry  DiffEntry che rappresenta le modifiche al file
+     * @param commit Commit in cui è avvenuta la modifica
+     * @param edits  lista delle modifiche al file
      */
-    public void computeChurn(Repository repository, Commit commit, DiffEntry diffEntry) {
+    public void computeChurn(Commit commit, EditList edits) {
+        List<DiffMetric> diffMetrics = MetricRegistry.getInstance().getDiffMetrics();
+        if (diffMetrics.isEmpty()) return;
+
         int addedLines = 0;
         int deletedLines = 0;
 
         // Recupera le informazioni sulle linee del metodo
-        MethodInfo methodInfo = methodInfoPerCommit.get(commit);
-        if (methodInfo == null) {
+        MethodInfo methodInfo = metricStore.getMethodInfo(commit);
+        if (methodInfo == null || edits == null) {
             // Se non ho le informazioni sul metodo per questo commit, non posso calcolare il churn
             return;
         }
         int beginLine = methodInfo.getBeginLine();
         int endLine = methodInfo.getEndLine();
 
-        // Crea un formatter per analizzare le modifiche
-        try (DiffFormatter diffFormatter = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
-            diffFormatter.setRepository(repository);
-            diffFormatter.setContext(0); // Nessun contesto per ridurre il rumore
-
-            // Ottieni il FileHeader per il DiffEntry
-            FileHeader fileHeader = diffFormatter.toFileHeader(diffEntry);
-            EditList edits = fileHeader.toEditList();
-
-            // Filtra le modifiche rilevanti per il metodo
-            for (Edit edit : edits) {
-                // Calcolo linee aggiunte (nuova versione)
-                if (rangesOverlap(edit.getBeginB(), edit.getEndB(), beginLine, endLine)) {
-                    int overlapStart = Math.max(edit.getBeginB(), beginLine);
-                    int overlapEnd = Math.min(edit.getEndB(), endLine);
-                    addedLines += Math.max(0, overlapEnd - overlapStart);
-                }
-
-                // Calcolo linee eliminate (vecchia versione)
-                if (rangesOverlap(edit.getBeginA(), edit.getEndA(), beginLine, endLine)) {
-                    int overlapStart = Math.max(edit.getBeginA(), beginLine);
-                    int overlapEnd = Math.min(edit.getEndA(), endLine);
-                    deletedLines += Math.max(0, overlapEnd - overlapStart);
-                }
+        // Filtra le modifiche rilevanti per il metodo
+        for (Edit edit : edits) {
+            // Calcolo linee aggiunte (nuova versione)
+            if (rangesOverlap(edit.getBeginB(), edit.getEndB(), beginLine, endLine)) {
+                int overlapStart = Math.max(edit.getBeginB(), beginLine);
+                int overlapEnd = Math.min(edit.getEndB(), endLine);
+                addedLines += Math.max(0, overlapEnd - overlapStart);
             }
 
-            // Salva i risultati nelle mappe
-            addedLinesPerCommit.put(commit, addedLines + addedLinesPerCommit.getOrDefault(commit, 0));
-            deletedLinesPerCommit.put(commit, deletedLines + deletedLinesPerCommit.getOrDefault(commit, 0));
-            churnPerCommit.put(commit, addedLines + deletedLines + churnPerCommit.getOrDefault(commit, 0));
-
-        } catch (IOException e) {
-            LOGGER.log(Level.SEVERE, e, () -> "Errore nel calcolo del churn per il metodo " + getFullName());
+            // Calcolo linee eliminate (vecchia versione)
+            if (rangesOverlap(edit.getBeginA(), edit.getEndA(), beginLine, endLine)) {
+                int overlapStart = Math.max(edit.getBeginA(), beginLine);
+                int overlapEnd = Math.min(edit.getEndA(), endLine);
+                deletedLines += Math.max(0, overlapEnd - overlapStart);
+            }
         }
+
+        // Salva i valori delle metriche sulle modifiche nell'archivio delle metriche
+        for (DiffMetric metric : diffMetrics) metricStore.add(commit, metric, metric.value(addedLines, deletedLines));
+        versionAggregates = null;
     }
 
     /**
@@ -724,14 +391,44 @@ public class Method {
      * @throws TicketRetrievalException Se si verifica un errore durante il recupero dei ticket
      */
     private void computeIfBuggy(Commit commit) throws TicketRetrievalException {
+        markBuggyVersions(commit, buggyPerVersion);
+    }
+
+    /**
+     * Ricalcola le versioni buggy dai ticket attualmente collegati a tutti i commit che hanno modificato il metodo.
+     * Nell'analisi incrementale le etichette salvate possono essere obsolete: un ticket chiuso dopo l'analisi
+     * del commit che lo risolve e le versioni affette stimate con proportion cambiano da un'analisi all'altra.
+     *
+     * @return true se l'insieme delle versioni buggy è cambiato
+     * @throws TicketRetrievalException Se si verifica un errore durante il recupero dei ticket
+     */
+    public boolean recomputeBuggy() throws TicketRetrievalException {
+        Map<Version, Boolean> recomputed = new HashMap<>();
+        for (Commit commit : metricStore.getCommits()) markBuggyVersions(commit, recomputed);
+        if (deleteCommit != null) markBuggyVersions(deleteCommit, recomputed);
+
+        boolean changed = !buggyVersions(recomputed).equals(buggyVersions(buggyPerVersion));
+        this.buggyPerVersion = recomputed;
+        return changed;
+    }
+
+    private static void markBuggyVersions(Commit commit, Map<Version, Boolean> buggyVersions) throws TicketRetrievalException {
         List<Ticket> tickets = commit.getLinkedTickets();
         for (Ticket ticket : tickets) {
             List<Version> affectedVersions = ticket.getAffectedVersions();
             if (affectedVersions == null) continue;
-            for (Version affectedVersion : affectedVersions) buggyPerVersion.put(affectedVersion, true);
+            for (Version affectedVersion : affectedVersions) buggyVersions.put(affectedVersion, true);
         }
     }
 
+    private static Set<Version> buggyVersions(Map<Version, Boolean> buggyPerVersion) {
+        Set<Version> buggy = new HashSet<>();
+        buggyPerVersion.forEach((version, isBuggy) -> {
+            if (Boolean.TRUE.equals(isBuggy)) buggy.add(version);
+        });
+        return buggy;
+    }
+
     /**
      * Classe interna per rappresentare le informazioni su un metodo.
      * Contiene le linee di inizio e fine del metodo.
@@ -0,0 +1,338 @@
+package it.isw2.prediction.model;
+
+import it.isw2.prediction.model.metric.MethodMetric;
+import it.isw2.prediction.model.metric.MetricRegistry;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Archivio colonnare delle metriche per commit di un metodo.
+ * Ogni riga corrisponde a un commit: le righe sono ordinate per istante del commit
+ * e ogni metrica è salvata in una colonna di interi primitivi, con una maschera di bit
+ * che indica quali metriche sono presenti nella riga.
+ * Rispetto a una mappa Commit → Integer per metrica non alloca un'entry e un Integer
+ * per ogni commit e metrica, e permette di scorrere le righe di una versione in ordine.
+ * <p>
+ * Le colonne sono indicizzate come le metriche nel {@link MetricRegistry} e vengono allocate
+ * al primo valore salvato, per cui le metriche non calcolate non occupano memoria.
+ */
+public class MethodMetricStore {
+
+    private static final int[][] NO_COLUMNS = new int[0][];
+
+    // Bit della maschera che indica la presenza delle informazioni sulle linee del metodo
+    private static final long METHOD_INFO_BIT = 1L << MetricRegistry.MAX_METRICS;
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int size = 0;
+
+    // Istante del commit in secondi, chiave di ordinamento delle righe
+    private int[] commitTimes = new int[INITIAL_CAPACITY];
+    private Commit[] commits = new Commit[INITIAL_CAPACITY];
+    private long[] presentMasks = new long[INITIAL_CAPACITY];
+    // Colonna per indice di metrica, null finché la metrica non ha valori
+    private int[][] columns = NO_COLUMNS;
+    private int[] beginLines = new int[INITIAL_CAPACITY];
+    private int[] endLines = new int[INITIAL_CAPACITY];
+
+    /* --- ACCESSO PER COMMIT --- */
+
+    public boolean has(Commit commit, MethodMetric metric) {
+        int row = rowOf(commit);
+        return row >= 0 && isPresent(row, indexOf(metric));
+    }
+
+    public int get(Commit commit, MethodMetric metric, int defaultValue) {
+        int index = indexOf(metric);
+        int row = rowOf(commit);
+        return row >= 0 && isPresent(row, index) ? columns[index][row] : defaultValue;
+    }
+
+    public void put(Commit commit, MethodMetric metric, int value) {
+        int index = indexOf(metric);
+        int row = rowOrInsert(commit);
+        column(index)[row] = value;
+        presentMasks[row] |= bit(index);
+    }
+
+    /**
+     * Somma il valore a quello già presente per il commit, considerando 0 se assente.
+     */
+    public void add(Commit commit, MethodMetric metric, int value) {
+        int index = indexOf(metric);
+        int row = rowOrInsert(commit);
+        int[] column = column(index);
+        column[row] = (isPresent(row, index) ? column[row] : 0) + value;
+        presentMasks[row] |= bit(index);
+    }
+
+    public Method.MethodInfo getMethodInfo(Commit commit) {
+        int row = rowOf(commit);
+        if (row < 0 || (presentMasks[row] & METHOD_INFO_BIT) == 0) return null;
+        return new Method.MethodInfo(beginLines[row], endLines[row]);
+    }
+
+    public void putMethodInfo(Commit commit, Method.MethodInfo methodInfo) {
+        int row = rowOrInsert(commit);
+        if (methodInfo == null) {
+            presentMasks[row] &= ~METHOD_INFO_BIT;
+            return;
+        }
+        beginLines[row] = methodInfo.beginLine();
+        endLines[row] = methodInfo.endLine();
+        presentMasks[row] |= METHOD_INFO_BIT;
+    }
+
+    /* --- AGGREGAZIONI PER VERSIONE --- */
+
+    /**
+     * Calcola con una sola passata sulle righe le aggregazioni di tutte le metriche presenti per ciascuna versione.
+     * Somma, massimo e media considerano i commit della versione in cui la metrica è presente;
+     * l'ultimo valore è quello dell'ultimo commit precedente al rilascio della versione o, se nessun
+     * commit precede il rilascio, quello del primo commit della versione.
+     *
+     * @param versions le versioni per cui calcolare le aggregazioni
+     * @return le aggregazioni per versione
+     */
+    public Map<Version, VersionAggregate> aggregateByVersion(Collection<Version> versions) {
+        int metrics = columns.length;
+        Map<Version, VersionAggregate> aggregates = new HashMap<>();
+        for (Version version : versions) aggregates.put(version, new VersionAggregate(metrics));
+
+        // Somma, massimo, conteggio e primo valore dei commit di ciascuna versione
+        for (int row = 0; row < size; row++) {
+            VersionAggregate aggregate = aggregates.get(commits[row].getVersion());
+            if (aggregate == null) continue;
+            for (int index = 0; index < metrics; index++) {
+                if (isPresent(row, index)) aggregate.accumulate(index, columns[index][row]);
+            }
+        }
+
+        // Ultimo valore prima del rilascio: scorro righe e versioni insieme, entrambe in ordine cronologico
+        List<Version> byRelease = versions.stream()
+                .sorted(Comparator.comparing(Version::getReleaseDate))
+                .toList();
+        int[] lastValues = new int[metrics];
+        long lastMask = 0;
+        int row = 0;
+        for (Version version : byRelease) {
+            long releaseTime = version.getReleaseDate().getTime();
+            for (; row < size && commitTimes[row] * 1000L < releaseTime; row++) {
+                for (int index = 0; index < metrics; index++) {
+                    if (isPresent(row, index)) lastValues[index] = columns[index][row];
+                }
+                lastMask |= presentMasks[row];
+            }
+            aggregates.get(version).resolveLast(lastValues, lastMask);
+        }
+
+        return aggregates;
+    }
+
+    /**
+     * Aggregazioni delle metriche di un metodo in una versione.
+     * Le metriche senza valori nell'archivio hanno tutte le aggregazioni pari a 0.
+     */
+    public static class VersionAggregate {
+
+        private final int[] sums;
+        private final int[] maxes;
+        private final int[] counts;
+        private final int[] lasts;
+
+        private VersionAggregate(int metrics) {
+            this.sums = new int[metrics];
+            this.maxes = new int[metrics];
+            this.counts = new int[metrics];
+            this.lasts = new int[metrics];
+        }
+
+        private void accumulate(int index, int value) {
+            // Il primo valore della versione è usato come ultimo se nessun commit precede il rilascio
+            if (counts[index] == 0) lasts[index] = value;
+            sums[index] += value;
+            maxes[index] = Math.max(maxes[index], value);
+            counts[index]++;
+        }
+
+        private void resolveLast(int[] lastValues, long lastMask) {
+            for (int index = 0; index < lasts.length; index++) {
+                if ((lastMask & bit(index)) != 0) lasts[index] = lastValues[index];
+            }
+        }
+
+        // Le aggregazioni sono lette per indice di metrica nel registro
+
+        public int getSum(int index) {
+            return index < sums.length ? sums[index] : 0;
+        }
+
+        public int getMax(int index) {
+            return index < maxes.length ? maxes[index] : 0;
+        }
+
+        public double getAvg(int index) {
+            int count = index < counts.length ? counts[index] : 0;
+            return count > 0 ? (double) sums[index] / count : 0.0;
+        }
+
+        public int getLast(int index) {
+            return index < lasts.length ? lasts[index] : 0;
+        }
+
+    }
+
+    /* --- CONVERSIONE IN MAPPE --- */
+
+    /**
+     * Restituisce una copia della colonna come mappa commit → valore.
+     */
+    public Map<Commit, Integer> toMap(MethodMetric metric) {
+        int index = indexOf(metric);
+        Map<Commit, Integer> map = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            if (isPresent(row, index)) map.put(commits[row], columns[index][row]);
+        }
+        return map;
+    }
+
+    /**
+     * Sostituisce l'intera colonna con i valori della mappa.
+     */
+    public void putAll(MethodMetric metric, Map<Commit, Integer> values) {
+        long clear = ~bit(indexOf(metric));
+        for (int row = 0; row < size; row++) presentMasks[row] &= clear;
+        for (Map.Entry<Commit, Integer> entry : values.entrySet()) put(entry.getKey(), metric, entry.getValue());
+    }
+
+    public Map<Commit, Method.MethodInfo> toMethodInfoMap() {
+        Map<Commit, Method.MethodInfo> map = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            if ((presentMasks[row] & METHOD_INFO_BIT) != 0) map.put(commits[row], new Method.MethodInfo(beginLines[row], endLines[row]));
+        }
+        return map;
+    }
+
+    public void putAllMethodInfo(Map<Commit, Method.MethodInfo> methodInfos) {
+        for (int row = 0; row < size; row++) presentMasks[row] &= ~METHOD_INFO_BIT;
+        for (Map.Entry<Commit, Method.MethodInfo> entry : methodInfos.entrySet()) putMethodInfo(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Restituisce i commit con almeno un valore salvato, in ordine cronologico.
+     */
+    public List<Commit> getCommits() {
+        return List.of(Arrays.copyOf(commits, size));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /* --- RIGHE --- */
+
+    private static int indexOf(MethodMetric metric) {
+        return MetricRegistry.getInstance().indexOf(metric);
+    }
+
+    private static long bit(int index) {
+        return 1L << index;
+    }
+
+    private boolean isPresent(int row, int index) {
+        return (presentMasks[row] & bit(index)) != 0;
+    }
+
+    /**
+     * Restituisce la colonna della metrica, allocandola al primo utilizzo.
+     */
+    private int[] column(int index) {
+        if (index >= columns.length) columns = Arrays.copyOf(columns, index + 1);
+        if (columns[index] == null) columns[index] = new int[commitTimes.length];
+        return columns[index];
+    }
+
+    private static int timeOf(Commit commit) {
+        return commit.getRevCommit().getCommitTime();
+    }
+
+    /**
+     * Restituisce la riga del commit o -1 se assente.
+     * Cerca per bisezione il primo commit con lo stesso istante e scorre i commit con istante uguale.
+     */
+    private int rowOf(Commit commit) {
+        int time = timeOf(commit);
+        for (int row = firstRowNotBefore(time); row < size && commitTimes[row] == time; row++) {
+            if (commits[row].equals(commit)) return row;
+        }
+        return -1;
+    }
+
+    private int rowOrInsert(Commit commit) {
+        int row = rowOf(commit);
+        if (row >= 0) return row;
+
+        // I commit arrivano quasi sempre in ordine cronologico, per cui l'inserimento avviene in coda
+        int time = timeOf(commit);
+        row = size > 0 && commitTimes[size - 1] > time ? firstRowAfter(time) : size;
+        ensureCapacity(size + 1);
+
+        int tail = size - row;
+        System.arraycopy(commitTimes, row, commitTimes, row + 1, tail);
+        System.arraycopy(commits, row, commits, row + 1, tail);
+        System.arraycopy(presentMasks, row, presentMasks, row + 1, tail);
+        System.arraycopy(beginLines, row, beginLines, row + 1, tail);
+        System.arraycopy(endLines, row, endLines, row + 1, tail);
+        for (int[] column : columns) {
+            if (column != null) System.arraycopy(column, row, column, row + 1, tail);
+        }
+
+        commitTimes[row] = time;
+        commits[row] = commit;
+        presentMasks[row] = 0;
+        size++;
+        return row;
+    }
+
+    private int firstRowNotBefore(int time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (commitTimes[mid] < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private int firstRowAfter(int time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (commitTimes[mid] <= time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= commitTimes.length) return;
+        int newCapacity = Math.max(capacity, commitTimes.length * 2);
+        commitTimes = Arrays.copyOf(commitTimes, newCapacity);
+        commits = Arrays.copyOf(commits, newCapacity);
+        presentMasks = Arrays.copyOf(presentMasks, newCapacity);
+        beginLines = Arrays.copyOf(beginLines, newCapacity);
+        endLines = Arrays.copyOf(endLines, newCapacity);
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) columns[i] = Arrays.copyOf(columns[i], newCapacity);
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+package it.isw2.prediction.model;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.BinaryExpr;
+import com.github.javaparser.ast.stmt.*;
+import it.isw2.prediction.model.metric.AstMetric;
+import it.isw2.prediction.model.metric.AstVisit;
+import it.isw2.prediction.model.metric.MetricRegistry;
+
+import java.util.List;
+
+/**
+ * Calcola le metriche strutturali abilitate di un metodo con un'unica visita dell'AST.
+ * <p>
+ * Ogni nodo viene classificato una sola volta (istruzione, punto di decisione, struttura di controllo,
+ * operatore logico) e passato, insieme al livello di annidamento e alla profondità, agli accumulatori
+ * delle metriche che visitano i nodi. Il visitatore stesso fa da {@link AstVisit}, aggiornato nodo per nodo,
+ * così la visita non alloca oggetti. Se nessuna metrica abilitata visita i nodi, l'AST non viene visitato.
+ * <p>
+ * Se le metriche da calcolare sono esattamente quelle predefinite, come nella configurazione predefinita,
+ * la visita è delegata a {@link BuiltinMetricVisitor}, che evita il passaggio di ogni nodo agli accumulatori.
+ */
+final class MethodMetricVisitor implements AstVisit {
+
+    private final AstMetric.Accumulator[] visitors;
+
+    private Node node;
+    private boolean inBody;
+    private int nesting;
+    private int depth;
+    private boolean statement;
+    private boolean decisionPoint;
+    private boolean controlStructure;
+    private boolean logicalOperator;
+
+    private MethodMetricVisitor(AstMetric.Accumulator[] visitors) {
+        this.visitors = visitors;
+    }
+
+    /**
+     * Calcola sulla dichiarazione del metodo le metriche strutturali da calcolare nel registro.
+     *
+     * @param methodDeclaration la dichiarazione del metodo
+     * @return l'istantanea delle metriche del metodo
+     */
+    static MethodSnapshot snapshot(MethodDeclaration methodDeclaration) {
+        MetricRegistry registry = MetricRegistry.getInstance();
+        if (registry.isBuiltinAstVisit()) {
+            return new MethodSnapshot(methodInfo(methodDeclaration), BuiltinMetricVisitor.values(methodDeclaration, registry));
+        }
+
+        List<AstMetric> metrics = registry.getAstMetrics();
+
+        AstMetric.Accumulator[] accumulators = new AstMetric.Accumulator[metrics.size()];
+        int visiting = 0;
+        for (int i = 0; i < accumulators.length; i++) {
+            accumulators[i] = metrics.get(i).newAccumulator(methodDeclaration);
+            if (metrics.get(i).visitsNodes()) visiting++;
+        }
+
+        if (visiting > 0) {
+            AstMetric.Accumulator[] visitors = new AstMetric.Accumulator[visiting];
+            for (int i = 0, v = 0; i < accumulators.length; i++) {
+                if (metrics.get(i).visitsNodes()) visitors[v++] = accumulators[i];
+            }
+            new MethodMetricVisitor(visitors).visitDeclaration(methodDeclaration, methodDeclaration.getBody().orElse(null));
+        }
+
+        int[] values = new int[registry.size()];
+        for (int i = 0; i < accumulators.length; i++) values[registry.indexOf(metrics.get(i))] = accumulators[i].result();
+        return new MethodSnapshot(methodInfo(methodDeclaration), values);
+    }
+
+    /**
+     * Visita la dichiarazione fuori dal corpo (annotazioni, parametri, tipi).
+     */
+    private void visitDeclaration(Node parent, BlockStmt body) {
+        for (Node child : parent.getChildNodes()) {
+            if (child == body) {
+                visitBody(body, 0, 0);
+            } else {
+                accept(child, false, 0, 0);
+                visitDeclaration(child, body);
+            }
+        }
+    }
+
+    /**
+     * Visita un nodo del corpo del metodo.
+     *
+     * @param parent  il nodo da visitare
+     * @param nesting il livello di annidamento delle strutture di controllo
+     * @param depth   il numero di istruzioni che contengono il nodo
+     */
+    private void visitBody(Node parent, int nesting, int depth) {
+        for (Node child : parent.getChildNodes()) {
+            int childDepth = child instanceof Statement ? depth + 1 : depth;
+            accept(child, true, nesting, childDepth);
+            visitBody(child, controlStructure ? nesting + 1 : nesting, childDepth);
+        }
+    }
+
+    /**
+     * Classifica il nodo e lo passa agli accumulatori.
+     */
+    private void accept(Node child, boolean childInBody, int childNesting, int childDepth) {
+        this.node = child;
+        this.inBody = childInBody;
+        this.nesting = childNesting;
+        this.depth = childDepth;
+        this.statement = child instanceof Statement && !(child instanceof BlockStmt);
+        this.logicalOperator = child instanceof BinaryExpr be
+                && (be.getOperator() == BinaryExpr.Operator.AND || be.getOperator() == BinaryExpr.Operator.OR);
+        this.decisionPoint = switch (child) {
+            case IfStmt _, ForStmt _, ForEachStmt _, WhileStmt _, DoStmt _, CatchClause _ -> true;
+            case SwitchEntry entry -> !entry.getLabels().isEmpty();
+            default -> logicalOperator;
+        };
+        this.controlStructure = child instanceof IfStmt || child instanceof ForStmt || child instanceof ForEachStmt
+                || child instanceof WhileStmt || child instanceof DoStmt || child instanceof CatchClause
+                || child instanceof SwitchStmt || child instanceof SwitchEntry;
+
+        for (AstMetric.Accumulator visitor : visitors) visitor.visit(this);
+    }
+
+    private static Method.MethodInfo methodInfo(MethodDeclaration methodDeclaration) {
+        if (methodDeclaration.getBegin().isEmpty() || methodDeclaration.getEnd().isEmpty()) return null; // Non posso calcolare le linee se non ho i dati di inizio e fine
+        return new Method.MethodInfo(methodDeclaration.getBegin().get().line, methodDeclaration.getEnd().get().line);
+    }
+
+    /* --- NODO CORRENTE --- */
+
+    @Override
+    public Node node() {
+        return node;
+    }
+
+    @Override
+    public boolean inBody() {
+        return inBody;
+    }
+
+    @Override
+    public int nesting() {
+        return nesting;
+    }
+
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    @Override
+    public boolean isStatement() {
+        return statement;
+    }
+
+    @Override
+    public boolean isDecisionPoint() {
+        return decisionPoint;
+    }
+
+    @Override
+    public boolean isControlStructure() {
+        return controlStructure;
+    }
+
+    @Override
+    public boolean isLogicalOperator() {
+        return logicalOperator;
+    }
+
+}
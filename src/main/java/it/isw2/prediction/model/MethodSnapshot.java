@@ -0,0 +1,34 @@
+package it.isw2.prediction.model;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+import it.isw2.prediction.model.metric.AstMetric;
+import it.isw2.prediction.model.metric.MetricRegistry;
+
+/**
+ * Istantanea delle metriche strutturali di un metodo in un determinato commit.
+ * Viene calcolata a partire dalla dichiarazione del metodo e non mantiene riferimenti all'AST,
+ * per cui può essere prodotta dai thread di analisi e applicata in seguito al {@link Method}.
+ *
+ * @param methodInfo le linee di inizio e fine del metodo, o null se non disponibili
+ * @param values     i valori delle metriche strutturali, indicizzati come nel {@link MetricRegistry};
+ *                   le metriche non calcolate valgono 0
+ */
+public record MethodSnapshot(Method.MethodInfo methodInfo, int[] values) {
+
+    /**
+     * Calcola le metriche strutturali abilitate della dichiarazione di metodo con un'unica visita dell'AST.
+     *
+     * @param methodDeclaration la dichiarazione del metodo
+     * @return l'istantanea delle metriche del metodo
+     * @see MethodMetricVisitor
+     */
+    public static MethodSnapshot of(MethodDeclaration methodDeclaration) {
+        return MethodMetricVisitor.snapshot(methodDeclaration);
+    }
+
+    public int value(AstMetric metric) {
+        int index = MetricRegistry.getInstance().indexOf(metric);
+        return index < values.length ? values[index] : 0;
+    }
+
+}
@@ -1,15 +1,14 @@
 package it.isw2.prediction.model;
 
-import it.isw2.prediction.factory.CommitRepositoryFactory;
+import it.isw2.prediction.factory.TicketCommitIndexFactory;
 import it.isw2.prediction.factory.VersionRepositoryFactory;
-import it.isw2.prediction.repository.CommitRepository;
+import it.isw2.prediction.repository.TicketCommitIndex;
 import it.isw2.prediction.repository.VersionRepository;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Pattern;
 
 public class Ticket {
 
@@ -133,14 +132,8 @@ public class Ticket {
 
     public void lazyLoadCommits() {
         if (commits != null) return;
-        commits = new ArrayList<>();
-        CommitRepository commitRepository = CommitRepositoryFactory.getInstance().getCommitRepository();
-        List<Commit> allCommits = commitRepository.retrieveCommits();
-        for (Commit commit : allCommits) {
-            if (commit.getShortMessage().matches(".*\\b" + Pattern.quote(getKey()) + "\\b.*")) {
-                this.commits.add(commit);
-            }
-        }
+        TicketCommitIndex ticketCommitIndex = TicketCommitIndexFactory.getInstance().getTicketCommitIndex();
+        commits = new ArrayList<>(ticketCommitIndex.retrieveCommitsByTicketKey(getKey()));
     }
 
     /* --- FORMATTER --- */
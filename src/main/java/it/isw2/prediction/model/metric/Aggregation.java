@@ -0,0 +1,47 @@
+package it.isw2.prediction.model.metric;
+
+/**
+ * Aggregazione dei valori per commit di una metrica nei commit di una versione.
+ * Ogni aggregazione dichiarata da una metrica diventa una colonna del dataset, il cui nome
+ * è il nome della colonna della metrica preceduto dal prefisso dell'aggregazione.
+ * Una metrica non può quindi dichiarare insieme LAST e SUM, che non hanno prefisso.
+ */
+public enum Aggregation {
+
+    /**
+     * Valore dell'ultimo commit precedente al rilascio della versione.
+     */
+    LAST("", 0),
+    /**
+     * Somma dei valori dei commit della versione.
+     */
+    SUM("", 0),
+    /**
+     * Massimo dei valori dei commit della versione.
+     */
+    MAX("Max", 0),
+    /**
+     * Media dei valori dei commit della versione.
+     */
+    AVG("Avg", 2);
+
+    private final String columnPrefix;
+    private final int decimals;
+
+    Aggregation(String columnPrefix, int decimals) {
+        this.columnPrefix = columnPrefix;
+        this.decimals = decimals;
+    }
+
+    public String getColumnPrefix() {
+        return columnPrefix;
+    }
+
+    /**
+     * Numero di cifre decimali con cui il valore aggregato viene scritto nel dataset.
+     */
+    public int getDecimals() {
+        return decimals;
+    }
+
+}
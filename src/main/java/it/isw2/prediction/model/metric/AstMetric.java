@@ -0,0 +1,49 @@
+package it.isw2.prediction.model.metric;
+
+import com.github.javaparser.ast.body.MethodDeclaration;
+
+/**
+ * Metrica strutturale calcolata sulla dichiarazione del metodo.
+ * Per ogni metodo viene creato un accumulatore, che riceve i nodi della visita condivisa
+ * da tutte le metriche abilitate e al termine restituisce il valore della metrica.
+ */
+public interface AstMetric extends MethodMetric {
+
+    @Override
+    default MetricInput input() {
+        return MetricInput.AST;
+    }
+
+    /**
+     * Indica se la metrica ha bisogno di visitare i nodi dell'AST. Se nessuna metrica abilitata
+     * ne ha bisogno, la visita non viene eseguita.
+     */
+    default boolean visitsNodes() {
+        return true;
+    }
+
+    /**
+     * Crea l'accumulatore della metrica per un metodo.
+     *
+     * @param declaration la dichiarazione del metodo
+     * @return l'accumulatore, usato da un solo thread
+     */
+    Accumulator newAccumulator(MethodDeclaration declaration);
+
+    /**
+     * Stato del calcolo della metrica per un singolo metodo.
+     * È una classe astratta e non un'interfaccia perché viene invocata per ogni nodo visitato,
+     * e la chiamata a un metodo di classe costa meno di quella a un metodo di interfaccia.
+     */
+    abstract class Accumulator {
+
+        /**
+         * Riceve un nodo della dichiarazione, in ordine di visita in profondità.
+         */
+        public void visit(AstVisit visit) {}
+
+        public abstract int result();
+
+    }
+
+}
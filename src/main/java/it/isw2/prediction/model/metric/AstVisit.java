@@ -0,0 +1,49 @@
+package it.isw2.prediction.model.metric;
+
+import com.github.javaparser.ast.Node;
+
+/**
+ * Nodo corrente della visita dell'AST di un metodo, con la sua classificazione già calcolata.
+ * L'oggetto viene riutilizzato per tutti i nodi, per cui è valido solo durante la chiamata
+ * di {@link AstMetric.Accumulator#visit(AstVisit)} e non va conservato.
+ */
+public interface AstVisit {
+
+    Node node();
+
+    /**
+     * Indica se il nodo si trova nel corpo del metodo o nel resto della dichiarazione (annotazioni, parametri, tipi).
+     */
+    boolean inBody();
+
+    /**
+     * Livello di annidamento delle strutture di controllo che contengono il nodo.
+     */
+    int nesting();
+
+    /**
+     * Numero di istruzioni che contengono il nodo, incluso il nodo stesso se è un'istruzione.
+     */
+    int depth();
+
+    /**
+     * Indica se il nodo è un'istruzione diversa da un blocco.
+     */
+    boolean isStatement();
+
+    /**
+     * Indica se il nodo è un punto di decisione: if, cicli, catch, case con etichetta e operatori {@code &&} e {@code ||}.
+     */
+    boolean isDecisionPoint();
+
+    /**
+     * Indica se il nodo è una struttura di controllo che aumenta l'annidamento dei nodi figli.
+     */
+    boolean isControlStructure();
+
+    /**
+     * Indica se il nodo è un operatore logico {@code &&} o {@code ||}.
+     */
+    boolean isLogicalOperator();
+
+}
@@ -0,0 +1,229 @@
+package it.isw2.prediction.model.metric;
+
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.Range;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import it.isw2.prediction.model.Method;
+import it.isw2.prediction.model.Version;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntBinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Metriche predefinite, registrate nel {@link MetricRegistry} nell'ordine delle colonne del dataset.
+ * <p>
+ * Le metriche strutturali usano la visita condivisa dell'AST: istruzioni, complessità cognitiva e profondità
+ * di annidamento considerano solo il corpo, mentre i punti di decisione vengono contati su tutta la dichiarazione
+ * e determinano complessità ciclomatica e branch points. Linee di codice e numero di parametri non visitano i nodi.
+ * Le metriche sulle modifiche derivano dalle linee aggiunte ed eliminate nel metodo.
+ */
+public final class BuiltinMetrics {
+
+    private static final List<Aggregation> LAST = List.of(Aggregation.LAST);
+    private static final List<Aggregation> SUM = List.of(Aggregation.SUM);
+    private static final List<Aggregation> SUM_MAX_AVG = List.of(Aggregation.SUM, Aggregation.MAX, Aggregation.AVG);
+
+    private static final int LBRACE = JavaToken.Kind.LBRACE.getKind();
+    private static final int RBRACE = JavaToken.Kind.RBRACE.getKind();
+
+    public static final AstMetric LOC = new DeclarationMetric("loc", "LOC",
+            declaration -> declaration.getBody().map(BuiltinMetrics::countCodeLines).orElse(0));
+
+    public static final AstMetric STATEMENT = new NodeMetric("statement", "Statement", () -> new IntAccumulator() {
+        @Override
+        public void visit(AstVisit visit) {
+            if (visit.inBody() && visit.isStatement()) value++;
+        }
+    });
+
+    public static final AstMetric CYCLOMATIC_COMPLEXITY = new NodeMetric("cyclomaticComplexity", "Cyclomatic", () -> new IntAccumulator(1) {
+        @Override
+        public void visit(AstVisit visit) {
+            if (visit.isDecisionPoint()) value++;
+        }
+    });
+
+    public static final AstMetric COGNITIVE_COMPLEXITY = new NodeMetric("cognitiveComplexity", "Cognitive", () -> new IntAccumulator() {
+        @Override
+        public void visit(AstVisit visit) {
+            if (!visit.inBody()) return;
+            // Ogni struttura di controllo conta 1 più il suo livello di annidamento
+            if (visit.isControlStructure()) value += 1 + visit.nesting();
+            else if (visit.isLogicalOperator()) value++;
+        }
+    });
+
+    public static final VersionMetric METHOD_HISTORIES = new HistoryMetric("methodHistories", "MethodHistories",
+            Method::getMethodHistories);
+
+    public static final DiffMetric ADDED_LINES = new LineChangeMetric("addedLines", "AddedLines", false,
+            (added, _) -> added);
+
+    public static final DiffMetric DELETED_LINES = new LineChangeMetric("deletedLines", "DeletedLines", true,
+            (_, deleted) -> deleted);
+
+    public static final DiffMetric CHURN = new LineChangeMetric("churn", "Churn", true,
+            Integer::sum);
+
+    public static final AstMetric BRANCH_POINTS = new NodeMetric("branchPoints", "BranchPoints", () -> new IntAccumulator() {
+        @Override
+        public void visit(AstVisit visit) {
+            if (visit.isDecisionPoint()) value++;
+        }
+    });
+
+    public static final AstMetric NESTING_DEPTH = new NodeMetric("nestingDepth", "NestingDepth", () -> new IntAccumulator() {
+        @Override
+        public void visit(AstVisit visit) {
+            if (visit.inBody()) value = Math.max(value, visit.depth());
+        }
+    });
+
+    public static final AstMetric PARAMETERS_COUNT = new DeclarationMetric("parametersCount", "ParametersCount",
+            declaration -> declaration.getParameters().size());
+
+    /**
+     * Metriche predefinite nell'ordine delle colonne del dataset.
+     */
+    static final List<MethodMetric> ALL = List.of(
+            LOC, STATEMENT, CYCLOMATIC_COMPLEXITY, COGNITIVE_COMPLEXITY, METHOD_HISTORIES,
+            ADDED_LINES, DELETED_LINES, CHURN, BRANCH_POINTS, NESTING_DEPTH, PARAMETERS_COUNT
+    );
+
+    private BuiltinMetrics() {}
+
+    /**
+     * Conta le linee del corpo che contengono codice, escludendo linee vuote, commenti e linee con sole parentesi graffe.
+     * I token sono in ordine di posizione, per cui basta ricordare l'ultima linea già contata.
+     * Se il parser non ha conservato i token, conta le linee comprese tra le parentesi graffe del corpo.
+     */
+    public static int countCodeLines(BlockStmt body) {
+        Optional<TokenRange> tokens = body.getTokenRange();
+        if (tokens.isEmpty()) {
+            return body.getRange().map(range -> Math.max(0, range.end.line - range.begin.line - 1)).orElse(0);
+        }
+
+        int count = 0;
+        int lastCountedLine = Integer.MIN_VALUE;
+        for (JavaToken token : tokens.get()) {
+            if (token.getCategory().isWhitespaceOrComment()) continue;
+            if (token.getKind() == LBRACE || token.getKind() == RBRACE) continue;
+            Optional<Range> range = token.getRange();
+            if (range.isEmpty()) continue;
+
+            // Un token può occupare più linee, ad esempio un text block
+            int first = Math.max(range.get().begin.line, lastCountedLine + 1);
+            int last = range.get().end.line;
+            if (last >= first) {
+                count += last - first + 1;
+                lastCountedLine = last;
+            }
+        }
+        return count;
+    }
+
+    /* --- IMPLEMENTAZIONI --- */
+
+    /**
+     * Accumulatore di un singolo valore intero, aggiornato dai nodi visitati.
+     */
+    private abstract static class IntAccumulator extends AstMetric.Accumulator {
+
+        protected int value;
+
+        IntAccumulator() {
+            this(0);
+        }
+
+        IntAccumulator(int initialValue) {
+            this.value = initialValue;
+        }
+
+        @Override
+        public int result() {
+            return value;
+        }
+
+    }
+
+    /**
+     * Metrica strutturale calcolata visitando i nodi della dichiarazione.
+     */
+    private record NodeMetric(String name, String column, Supplier<AstMetric.Accumulator> accumulators) implements AstMetric {
+
+        @Override
+        public List<Aggregation> aggregations() {
+            return LAST;
+        }
+
+        @Override
+        public AstMetric.Accumulator newAccumulator(MethodDeclaration declaration) {
+            return accumulators.get();
+        }
+
+    }
+
+    /**
+     * Metrica strutturale calcolata direttamente dalla dichiarazione, senza visitarne i nodi.
+     */
+    private record DeclarationMetric(String name, String column, ToIntFunction<MethodDeclaration> function) implements AstMetric {
+
+        @Override
+        public List<Aggregation> aggregations() {
+            return LAST;
+        }
+
+        @Override
+        public boolean visitsNodes() {
+            return false;
+        }
+
+        @Override
+        public AstMetric.Accumulator newAccumulator(MethodDeclaration declaration) {
+            return new IntAccumulator(function.applyAsInt(declaration)) {};
+        }
+
+    }
+
+    /**
+     * Metrica calcolata dalle linee aggiunte ed eliminate, aggregata come somma, massimo e media per versione.
+     */
+    private record LineChangeMetric(String name, String column, boolean countsDeletion,
+                                    IntBinaryOperator function) implements DiffMetric {
+
+        @Override
+        public List<Aggregation> aggregations() {
+            return SUM_MAX_AVG;
+        }
+
+        @Override
+        public int value(int addedLines, int deletedLines) {
+            return function.applyAsInt(addedLines, deletedLines);
+        }
+
+    }
+
+    /**
+     * Metrica letta dalla storia del metodo per versione.
+     */
+    private record HistoryMetric(String name, String column, ToIntBiFunction<Method, Version> function) implements VersionMetric {
+
+        @Override
+        public List<Aggregation> aggregations() {
+            return SUM;
+        }
+
+        @Override
+        public int value(Method method, Version version) {
+            return function.applyAsInt(method, version);
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package it.isw2.prediction.model.metric;
+
+import java.util.List;
+
+/**
+ * Metrica calcolata dalle linee aggiunte ed eliminate nel metodo dalle modifiche di un commit.
+ * I valori di più modifiche allo stesso metodo nello stesso commit vengono sommati.
+ */
+public interface DiffMetric extends MethodMetric {
+
+    @Override
+    default MetricInput input() {
+        return MetricInput.DIFF;
+    }
+
+    /**
+     * Calcola il valore della metrica per le modifiche di un commit.
+     *
+     * @param addedLines   le linee aggiunte nel metodo
+     * @param deletedLines le linee eliminate dal metodo
+     * @return il valore della metrica
+     */
+    int value(int addedLines, int deletedLines);
+
+    /**
+     * Indica se la metrica viene registrata anche quando il metodo viene eliminato.
+     * In questo caso le linee eliminate sono le linee di codice del metodo, per cui la metrica
+     * richiede il calcolo delle linee di codice.
+     */
+    default boolean countsDeletion() {
+        return true;
+    }
+
+    @Override
+    default List<String> requires() {
+        return countsDeletion() ? List.of(BuiltinMetrics.LOC.name()) : List.of();
+    }
+
+}
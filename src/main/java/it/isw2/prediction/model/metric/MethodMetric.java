@@ -0,0 +1,37 @@
+package it.isw2.prediction.model.metric;
+
+import java.util.List;
+
+/**
+ * Metrica di un metodo, registrata nel {@link MetricRegistry}.
+ * Ogni metrica dichiara da quali dati viene calcolata e come i valori per commit vengono
+ * aggregati per versione; le implementazioni concrete sono {@link AstMetric}, {@link DiffMetric}
+ * e {@link VersionMetric}.
+ */
+public interface MethodMetric {
+
+    /**
+     * Nome della metrica, usato nella configurazione e nei file di cache (ad esempio "cyclomaticComplexity").
+     */
+    String name();
+
+    /**
+     * Nome della colonna del dataset, a cui viene anteposto il prefisso dell'aggregazione (ad esempio "Cyclomatic").
+     */
+    String column();
+
+    MetricInput input();
+
+    /**
+     * Aggregazioni per versione scritte nel dataset, nell'ordine delle colonne.
+     */
+    List<Aggregation> aggregations();
+
+    /**
+     * Nomi delle metriche che devono essere calcolate insieme a questa, anche se non abilitate.
+     */
+    default List<String> requires() {
+        return List.of();
+    }
+
+}
@@ -0,0 +1,56 @@
+package it.isw2.prediction.model.metric;
+
+import it.isw2.prediction.model.Method;
+import it.isw2.prediction.model.Version;
+
+/**
+ * Colonna del dataset, data da una metrica abilitata e da una delle sue aggregazioni.
+ * Le colonne vengono create dal {@link MetricRegistry}, che risolve una sola volta l'indice e il tipo
+ * della metrica: la lettura dei valori, ripetuta per ogni riga del dataset, non cerca la metrica
+ * nel registro e non ne controlla il tipo con instanceof.
+ */
+public final class MetricFeature {
+
+    private final MethodMetric metric;
+    private final Aggregation aggregation;
+    private final int index;
+    // La metrica se è calcolata per versione dalla storia del metodo, altrimenti null
+    private final VersionMetric versionMetric;
+
+    MetricFeature(MethodMetric metric, Aggregation aggregation, int index) {
+        this.metric = metric;
+        this.aggregation = aggregation;
+        this.index = index;
+        this.versionMetric = metric instanceof VersionMetric vm ? vm : null;
+    }
+
+    public MethodMetric getMetric() {
+        return metric;
+    }
+
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    public String getName() {
+        return aggregation.getColumnPrefix() + metric.column();
+    }
+
+    public int getDecimals() {
+        return aggregation.getDecimals();
+    }
+
+    /**
+     * Restituisce il valore della colonna per il metodo nella versione.
+     */
+    public double value(Method method, Version version) {
+        if (versionMetric != null) return versionMetric.value(method, version);
+        return method.getMetric(index, aggregation, version);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+}
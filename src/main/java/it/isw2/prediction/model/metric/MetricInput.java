@@ -0,0 +1,21 @@
+package it.isw2.prediction.model.metric;
+
+/**
+ * Dati da cui una metrica viene calcolata.
+ */
+public enum MetricInput {
+
+    /**
+     * Dichiarazione del metodo, visitata una sola volta per tutte le metriche abilitate.
+     */
+    AST,
+    /**
+     * Linee aggiunte ed eliminate nel metodo dalle modifiche del commit.
+     */
+    DIFF,
+    /**
+     * Storia del metodo nella versione, mantenuta dal metodo stesso e non salvata per commit.
+     */
+    HISTORY
+
+}
@@ -0,0 +1,218 @@
+package it.isw2.prediction.model.metric;
+
+import it.isw2.prediction.config.ApplicationConfig;
+
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registro delle metriche dei metodi.
+ * All'avvio contiene le {@link BuiltinMetrics}; altre metriche possono essere aggiunte con {@link #register(MethodMetric)}
+ * prima dell'analisi dei commit. Le metriche abilitate sono quelle elencate nella proprietà method.metrics:
+ * solo queste, insieme alle metriche da cui dipendono, vengono calcolate durante l'analisi e scritte nel dataset,
+ * per cui le metriche non usate non costano né tempo né memoria.
+ * <p>
+ * Ogni metrica riceve un indice, nell'ordine di registrazione, usato dall'archivio colonnare delle metriche.
+ * Il registro è thread-safe: ogni registrazione sostituisce uno stato immutabile letto senza sincronizzazione.
+ */
+public class MetricRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricRegistry.class.getName());
+
+    // L'archivio delle metriche usa una maschera a 64 bit per riga, di cui uno è riservato alle linee del metodo
+    public static final int MAX_METRICS = 63;
+
+    private final Set<String> configuredNames;
+    private volatile State state = State.EMPTY;
+
+    private MetricRegistry() {
+        this.configuredNames = new LinkedHashSet<>(new ApplicationConfig().getMethodMetrics());
+        for (MethodMetric metric : BuiltinMetrics.ALL) register(metric);
+
+        for (String name : configuredNames) {
+            if (getMetric(name) == null) LOGGER.log(Level.WARNING, "Metrica non riconosciuta in method.metrics, verrà ignorata se non registrata: {0}", name);
+        }
+        LOGGER.log(Level.INFO, "Metriche abilitate: {0}", getEnabledMetrics().stream().map(MethodMetric::name).toList());
+    }
+
+    private static class Holder {
+        private static final MetricRegistry INSTANCE = new MetricRegistry();
+    }
+
+    public static MetricRegistry getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Registra una metrica, abilitandola se il suo nome compare nella configurazione.
+     *
+     * @param metric la metrica da registrare
+     * @throws IllegalArgumentException se esiste già una metrica con lo stesso nome
+     * @throws IllegalStateException    se è stato raggiunto il numero massimo di metriche
+     */
+    public synchronized void register(MethodMetric metric) {
+        State current = state;
+        if (getMetric(metric.name()) != null) throw new IllegalArgumentException("Metrica già registrata: " + metric.name());
+        if (current.metrics.size() >= MAX_METRICS) throw new IllegalStateException("Numero massimo di metriche raggiunto: " + MAX_METRICS);
+
+        List<MethodMetric> metrics = new ArrayList<>(current.metrics);
+        metrics.add(metric);
+        state = State.of(metrics, configuredNames);
+    }
+
+    public List<MethodMetric> getMetrics() {
+        return state.metrics;
+    }
+
+    /**
+     * Restituisce la metrica con il nome indicato, o null se non registrata.
+     */
+    public MethodMetric getMetric(String name) {
+        for (MethodMetric metric : state.metrics) {
+            if (metric.name().equals(name)) return metric;
+        }
+        return null;
+    }
+
+    /**
+     * Restituisce l'indice della metrica nell'archivio colonnare.
+     *
+     * @throws IllegalArgumentException se la metrica non è registrata
+     */
+    public int indexOf(MethodMetric metric) {
+        Integer index = state.indexes.get(metric);
+        if (index == null) throw new IllegalArgumentException("Metrica non registrata: " + metric.name());
+        return index;
+    }
+
+    public int size() {
+        return state.metrics.size();
+    }
+
+    public List<MethodMetric> getEnabledMetrics() {
+        return state.enabled;
+    }
+
+    public boolean isComputed(MethodMetric metric) {
+        return state.computed.contains(metric);
+    }
+
+    /**
+     * Metriche con valori per commit da calcolare e salvare: quelle abilitate e quelle da cui dipendono.
+     */
+    public List<MethodMetric> getStoredMetrics() {
+        return state.stored;
+    }
+
+    /**
+     * Metriche strutturali da calcolare nella visita dell'AST.
+     */
+    public List<AstMetric> getAstMetrics() {
+        return state.astMetrics;
+    }
+
+    /**
+     * Indica se almeno una metrica strutturale da calcolare visita i nodi dell'AST.
+     */
+    public boolean isNodeVisitRequired() {
+        return state.nodeVisitRequired;
+    }
+
+    /**
+     * Indica se le metriche strutturali da calcolare sono esattamente quelle predefinite,
+     * per cui possono essere calcolate dal visitatore con contatori diretti invece che dagli accumulatori.
+     */
+    public boolean isBuiltinAstVisit() {
+        return state.builtinAstVisit;
+    }
+
+    /**
+     * Metriche da calcolare sulle modifiche dei commit. Se è vuota, le modifiche non vanno calcolate.
+     */
+    public List<DiffMetric> getDiffMetrics() {
+        return state.diffMetrics;
+    }
+
+    /**
+     * Colonne del dataset delle metriche abilitate, nell'ordine di registrazione delle metriche.
+     */
+    public List<MetricFeature> getFeatures() {
+        return state.features;
+    }
+
+    /**
+     * Stato immutabile del registro, ricalcolato a ogni registrazione.
+     */
+    private record State(List<MethodMetric> metrics, Map<MethodMetric, Integer> indexes,
+                         List<MethodMetric> enabled, Set<MethodMetric> computed, List<MethodMetric> stored,
+                         List<AstMetric> astMetrics, boolean nodeVisitRequired, boolean builtinAstVisit,
+                         List<DiffMetric> diffMetrics, List<MetricFeature> features) {
+
+        private static final State EMPTY = of(List.of(), Set.of());
+
+        private static State of(List<MethodMetric> metrics, Set<String> configuredNames) {
+            Map<String, MethodMetric> byName = new HashMap<>();
+            Map<MethodMetric, Integer> indexes = new IdentityHashMap<>();
+            for (MethodMetric metric : metrics) {
+                byName.put(metric.name(), metric);
+                indexes.put(metric, indexes.size());
+            }
+
+            List<MethodMetric> enabled = metrics.stream().filter(m -> configuredNames.contains(m.name())).toList();
+
+            // Le metriche calcolate comprendono, in modo transitivo, quelle richieste dalle metriche abilitate
+            Set<MethodMetric> computed = Collections.newSetFromMap(new IdentityHashMap<>());
+            Deque<MethodMetric> pending = new ArrayDeque<>(enabled);
+            while (!pending.isEmpty()) {
+                MethodMetric metric = pending.pop();
+                if (!computed.add(metric)) continue;
+                for (String required : metric.requires()) {
+                    MethodMetric requiredMetric = byName.get(required);
+                    if (requiredMetric != null) pending.push(requiredMetric);
+                }
+            }
+
+            List<MethodMetric> stored = new ArrayList<>();
+            List<AstMetric> astMetrics = new ArrayList<>();
+            List<DiffMetric> diffMetrics = new ArrayList<>();
+            boolean nodeVisitRequired = false;
+            for (MethodMetric metric : metrics) {
+                if (!computed.contains(metric)) continue;
+                switch (metric) {
+                    case AstMetric astMetric -> {
+                        astMetrics.add(astMetric);
+                        nodeVisitRequired |= astMetric.visitsNodes();
+                        stored.add(metric);
+                    }
+                    case DiffMetric diffMetric -> {
+                        diffMetrics.add(diffMetric);
+                        stored.add(metric);
+                    }
+                    default -> {
+                        // Le metriche per versione non hanno valori per commit
+                    }
+                }
+            }
+
+            Set<MethodMetric> builtinAstMetrics = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (MethodMetric metric : BuiltinMetrics.ALL) {
+                if (metric instanceof AstMetric) builtinAstMetrics.add(metric);
+            }
+            Set<MethodMetric> computedAstMetrics = Collections.newSetFromMap(new IdentityHashMap<>());
+            computedAstMetrics.addAll(astMetrics);
+            boolean builtinAstVisit = computedAstMetrics.equals(builtinAstMetrics);
+
+            List<MetricFeature> features = new ArrayList<>();
+            for (MethodMetric metric : enabled) {
+                for (Aggregation aggregation : metric.aggregations()) features.add(new MetricFeature(metric, aggregation, indexes.get(metric)));
+            }
+
+            return new State(List.copyOf(metrics), Collections.unmodifiableMap(indexes), enabled,
+                    Collections.unmodifiableSet(computed), List.copyOf(stored), List.copyOf(astMetrics),
+                    nodeVisitRequired, builtinAstVisit, List.copyOf(diffMetrics), List.copyOf(features));
+        }
+
+    }
+
+}
@@ -0,0 +1,19 @@
+package it.isw2.prediction.model.metric;
+
+import it.isw2.prediction.model.Method;
+import it.isw2.prediction.model.Version;
+
+/**
+ * Metrica calcolata direttamente per versione dalla storia del metodo, senza valori per commit.
+ * Le aggregazioni dichiarate servono solo a dare il nome alle colonne del dataset.
+ */
+public interface VersionMetric extends MethodMetric {
+
+    @Override
+    default MetricInput input() {
+        return MetricInput.HISTORY;
+    }
+
+    int value(Method method, Version version);
+
+}
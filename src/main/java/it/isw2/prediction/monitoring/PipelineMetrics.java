@@ -0,0 +1,270 @@
+package it.isw2.prediction.monitoring;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import it.isw2.prediction.config.ApplicationConfig;
+import it.isw2.prediction.utils.AtomicFiles;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Strumentazione dell'intera pipeline: tempi per fase, contatori e misure della memoria.
+ * Le fasi vengono misurate con {@link #stage(String)} in un blocco try-with-resources: per ogni fase
+ * vengono raccolti numero di esecuzioni, tempo totale e massimo e memoria allocata dal thread che la esegue.
+ * I tempi sono inclusivi, per cui una fase contiene anche quelle annidate al suo interno.
+ * <p>
+ * Al termine di ogni entry point {@link #exportSummary(String)} scrive un riepilogo in JSON e CSV
+ * nella cartella output/metrics, con un file per esecuzione per poter confrontare esecuzioni diverse.
+ * Tutti i metodi sono thread-safe; se la strumentazione è disabilitata non viene registrato nulla.
+ */
+public class PipelineMetrics {
+
+    private static final Logger LOGGER = Logger.getLogger(PipelineMetrics.class.getName());
+
+    private static final String METRICS_DIR = "metrics";
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final String CSV_SEPARATOR = ";";
+
+    private static final Stage NO_STAGE = new Stage(null, 0, 0);
+
+    private final boolean enabled;
+    private final Instant startTime = Instant.now();
+    private final long startNanos = System.nanoTime();
+
+    private final Map<String, StageStats> stages = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongAccumulator> peakGauges = new ConcurrentHashMap<>();
+
+    // Misura della memoria allocata per thread, disponibile solo sulle JVM HotSpot
+    private final com.sun.management.ThreadMXBean allocationBean;
+
+    private PipelineMetrics() {
+        this.enabled = new ApplicationConfig().isMetricsEnabled();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        this.allocationBean = threadBean instanceof com.sun.management.ThreadMXBean bean && bean.isThreadAllocatedMemorySupported()
+                ? bean
+                : null;
+    }
+
+    private static class Holder {
+        private static final PipelineMetrics INSTANCE = new PipelineMetrics();
+    }
+
+    public static PipelineMetrics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Inizia la misura di una fase, che termina con la chiusura dell'oggetto restituito.
+     * La fase va chiusa dallo stesso thread che l'ha iniziata.
+     *
+     * @param name il nome della fase, ad esempio "mining.parse"
+     * @return la misura in corso
+     */
+    public Stage stage(String name) {
+        if (!enabled) return NO_STAGE;
+        StageStats stats = stages.computeIfAbsent(name, _ -> new StageStats());
+        return new Stage(stats, System.nanoTime(), allocatedBytes());
+    }
+
+    /**
+     * Incrementa di uno il contatore.
+     */
+    public void count(String name) {
+        count(name, 1);
+    }
+
+    /**
+     * Incrementa il contatore del valore indicato.
+     */
+    public void count(String name, long delta) {
+        if (!enabled) return;
+        counters.computeIfAbsent(name, _ -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Registra un valore della misura, di cui viene conservato il massimo.
+     */
+    public void peak(String name, long value) {
+        if (!enabled) return;
+        peakGauges.computeIfAbsent(name, _ -> new LongAccumulator(Math::max, Long.MIN_VALUE)).accumulate(value);
+    }
+
+    /**
+     * Registra l'occupazione attuale dello heap come picco osservato.
+     */
+    public void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        peak("heap.used.sampled.bytes", runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    private long allocatedBytes() {
+        return allocationBean != null ? allocationBean.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    /**
+     * Scrive il riepilogo dell'esecuzione in JSON e CSV.
+     *
+     * @param entryPoint il nome dell'entry point, usato nel nome dei file
+     */
+    public void exportSummary(String entryPoint) {
+        if (!enabled) return;
+        sampleHeap();
+
+        ApplicationConfig config = new ApplicationConfig();
+        String baseName = config.getSelectedProject().getKey() + "_" + entryPoint + "_" + LocalDateTime.now().format(FILE_TIMESTAMP);
+        Path outputDir = Paths.get(config.getOutputPath(), METRICS_DIR);
+        Map<String, Long> gauges = jvmGauges();
+
+        try {
+            Files.createDirectories(outputDir);
+            writeJson(outputDir.resolve(baseName + ".json"), entryPoint, config.getSelectedProject().getKey(), gauges);
+            writeCsv(outputDir.resolve(baseName + ".csv"), gauges);
+            LOGGER.log(Level.INFO, "Riepilogo dell''esecuzione scritto in {0}", outputDir.resolve(baseName + ".json"));
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Impossibile scrivere il riepilogo dell'esecuzione: " + baseName);
+        }
+    }
+
+    /**
+     * Misure della JVM al termine dell'esecuzione: picchi dello heap, garbage collection e picchi registrati.
+     */
+    private Map<String, Long> jvmGauges() {
+        Map<String, Long> gauges = new TreeMap<>();
+        long heapPeak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) heapPeak += pool.getPeakUsage().getUsed();
+        }
+        gauges.put("heap.used.peak.bytes", heapPeak);
+        gauges.put("heap.max.bytes", Runtime.getRuntime().maxMemory());
+
+        long gcCount = 0;
+        long gcMillis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcMillis += Math.max(0, gc.getCollectionTime());
+        }
+        gauges.put("gc.count", gcCount);
+        gauges.put("gc.time.ms", gcMillis);
+        if (allocationBean != null) gauges.put("allocated.total.bytes", allocationBean.getTotalThreadAllocatedBytes());
+
+        peakGauges.forEach((name, value) -> gauges.put(name, value.get()));
+        return gauges;
+    }
+
+    private void writeJson(Path path, String entryPoint, String project, Map<String, Long> gauges) throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode root = mapper.createObjectNode();
+        root.put("entryPoint", entryPoint);
+        root.put("project", project);
+        root.put("start", startTime.toString());
+        root.put("end", Instant.now().toString());
+        root.put("wallTimeMs", (System.nanoTime() - startNanos) / NANOS_PER_MILLI);
+
+        ArrayNode stageNodes = root.putArray("stages");
+        new TreeMap<>(stages).forEach((name, stats) -> {
+            ObjectNode node = stageNodes.addObject();
+            node.put("name", name);
+            node.put("count", stats.count.sum());
+            node.put("totalMs", stats.totalNanos.sum() / NANOS_PER_MILLI);
+            node.put("maxMs", stats.maxNanos.get() / NANOS_PER_MILLI);
+            node.put("allocatedBytes", stats.allocatedBytes.sum());
+        });
+
+        ObjectNode counterNodes = root.putObject("counters");
+        new TreeMap<>(counters).forEach((name, value) -> counterNodes.put(name, value.sum()));
+        ObjectNode gaugeNodes = root.putObject("gauges");
+        gauges.forEach(gaugeNodes::put);
+
+        AtomicFiles.writeString(path, mapper.writerWithDefaultPrettyPrinter().writeValueAsString(root));
+    }
+
+    /**
+     * Scrive il riepilogo in CSV con un writer semplice: non usa CsvRowWriter, che registra a sua volta
+     * le righe scritte in queste metriche, per non alterare il riepilogo mentre viene esportato.
+     */
+    private void writeCsv(Path path, Map<String, Long> gauges) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeCsvRow(writer, "Tipo", "Nome", "Conteggio", "Tempo totale (ms)", "Tempo massimo (ms)", "Memoria allocata (byte)", "Valore");
+            for (Map.Entry<String, StageStats> entry : new TreeMap<>(stages).entrySet()) {
+                StageStats stats = entry.getValue();
+                writeCsvRow(writer, "fase", entry.getKey(), String.valueOf(stats.count.sum()),
+                        formatMillis(stats.totalNanos.sum()), formatMillis(stats.maxNanos.get()),
+                        String.valueOf(stats.allocatedBytes.sum()), "");
+            }
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+                writeCsvRow(writer, "contatore", entry.getKey(), "", "", "", "", String.valueOf(entry.getValue().sum()));
+            }
+            for (Map.Entry<String, Long> entry : gauges.entrySet()) {
+                writeCsvRow(writer, "misura", entry.getKey(), "", "", "", "", String.valueOf(entry.getValue()));
+            }
+        }
+    }
+
+    private static void writeCsvRow(BufferedWriter writer, String... fields) throws IOException {
+        writer.write(String.join(CSV_SEPARATOR, fields));
+        writer.write('\n');
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    /**
+     * Misura in corso di una fase.
+     */
+    public static final class Stage implements AutoCloseable {
+
+        private final StageStats stats;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private Stage(StageStats stats, long startNanos, long startAllocatedBytes) {
+            this.stats = stats;
+            this.startNanos = startNanos;
+            this.startAllocatedBytes = startAllocatedBytes;
+        }
+
+        @Override
+        public void close() {
+            if (stats == null) return;
+            long elapsed = System.nanoTime() - startNanos;
+            stats.count.increment();
+            stats.totalNanos.add(elapsed);
+            stats.maxNanos.accumulate(elapsed);
+            stats.allocatedBytes.add(Math.max(0, getInstance().allocatedBytes() - startAllocatedBytes));
+        }
+
+    }
+
+    private static final class StageStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder allocatedBytes = new LongAdder();
+    }
+
+}
@@ -49,6 +49,18 @@ public class CachedCommitRepository implements CommitRepository {
         return commitCache.get(commitId);
     }
 
+    /**
+     * Sovrascrive il metodo originale aggiungendo la funzionalità di cache.
+     * I commit già presenti in cache vengono restituiti come istanze della cache.
+     */
+    @Override
+    public List<Commit> retrieveCommitsBetween(String fromCommitId, String toCommitId) {
+        loadCommitsCache();
+        return repository.retrieveCommitsBetween(fromCommitId, toCommitId).stream()
+                .map(commit -> commitCache.getOrDefault(commit.getId(), commit))
+                .toList();
+    }
+
     /**
      * Sovrascrive il metodo originale aggiungendo la funzionalità di cache.
      */
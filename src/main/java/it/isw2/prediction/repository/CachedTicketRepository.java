@@ -22,6 +22,7 @@ public class CachedTicketRepository implements TicketRepository {
 
     // Cache per i ticket
     private Map<Integer, Ticket> ticketCache = null;
+    private Map<String, Ticket> ticketKeyIndex = null;
 
     /**
      * Costruttore del decorator.
@@ -56,10 +57,7 @@ public class CachedTicketRepository implements TicketRepository {
     @Override
     public Ticket retrieveTicketByKey(String key) throws TicketRetrievalException {
         loadTicketsCache();
-        return ticketCache.values().stream()
-                .filter(ticket -> ticket.getKey().equals(key))
-                .findFirst()
-                .orElse(null);
+        return ticketKeyIndex.get(key);
     }
 
     /**
@@ -70,6 +68,7 @@ public class CachedTicketRepository implements TicketRepository {
         if (ticketCache == null) {
             LOGGER.info("Cache dei ticket non inizializzata, creazione della cache");
             ticketCache = new HashMap<>();
+            ticketKeyIndex = new HashMap<>();
 
             LOGGER.info("Caricamento della cache dei ticket");
             List<Ticket> tickets = repository.retrieveTickets();
@@ -77,6 +76,7 @@ public class CachedTicketRepository implements TicketRepository {
             for (Ticket ticket : tickets) {
                 try {
                     ticketCache.put(ticket.getId(), ticket);
+                    ticketKeyIndex.putIfAbsent(ticket.getKey(), ticket);
                 } catch (NullPointerException _) {
                     LOGGER.warning("Errore durante il caricamento del ticket");
                 }
@@ -93,5 +93,6 @@ public class CachedTicketRepository implements TicketRepository {
     public void invalidateCache() {
         LOGGER.info("Invalidazione della cache dei ticket");
         ticketCache = null;
+        ticketKeyIndex = null;
     }
 }
@@ -20,6 +20,14 @@ public class CachedVersionRepository implements VersionRepository {
     // Cache per le versioni - mappa tra ID versione e versione stessa
     private Map<Integer, Version> versionCache = null;
 
+    // Versioni ordinate per data di rilascio, quelle senza data sono in fondo
+    private Version[] versionsByDate = null;
+    // Date di rilascio (in millisecondi) delle prime versioni di versionsByDate che hanno una data
+    private long[] releaseTimes = null;
+    // Indici per nome e per posizione nell'ordinamento per data
+    private Map<String, Version> versionsByName = null;
+    private Map<Version, Integer> versionOrdinals = null;
+
     /**
      * Costruttore del decorator.
      *
@@ -35,9 +43,7 @@ public class CachedVersionRepository implements VersionRepository {
     @Override
     public List<Version> retrieveVersions() {
         loadVersionsCache();
-        return new ArrayList<>(versionCache.values().stream()
-                .sorted(Comparator.comparing(Version::getReleaseDate))
-                .toList());
+        return new ArrayList<>(Arrays.asList(versionsByDate));
     }
 
     /**
@@ -55,54 +61,58 @@ public class CachedVersionRepository implements VersionRepository {
     @Override
     public Version retrieveVersionByName(String versionName) {
         loadVersionsCache();
-        return versionCache.values().stream()
-                .filter(version -> version.getName().equals(versionName))
-                .findFirst()
-                .orElse(null);
+        return versionsByName.get(versionName);
     }
 
     /**
      * Sovrascrive il metodo originale aggiungendo la funzionalità di cache.
+     * La versione viene cercata per bisezione sulle date di rilascio.
      */
     @Override
     public Version retrieveNextVersionByDate(Date date) {
         loadVersionsCache();
 
-        return versionCache.values().stream()
-                .filter(version -> version.getReleaseDate() != null && version.getReleaseDate().after(date))
-                .min(Comparator.comparing(Version::getReleaseDate))
-                .orElse(null);
+        int index = firstIndexAfter(date.getTime());
+        return index < releaseTimes.length ? versionsByDate[index] : null;
     }
 
     /**
      * Sovrascrive il metodo originale aggiungendo la funzionalità di cache.
+     * La versione viene cercata per bisezione sulle date di rilascio.
      */
     @Override
     public Version retrievePreviousVersionByDate(Date date) {
         loadVersionsCache();
+        if (releaseTimes.length == 0) return null;
+
+        int index = firstIndexNotBefore(date.getTime()) - 1;
+        if (index < 0) return versionsByDate[0];
 
-        return versionCache.values().stream()
-                .filter(version -> version.getReleaseDate() != null && version.getReleaseDate().before(date))
-                .max(Comparator.comparing(Version::getReleaseDate))
-                .orElseGet(() -> versionCache.values().stream()
-                        .filter(version -> version.getReleaseDate() != null)
-                        .min(Comparator.comparing(Version::getReleaseDate))
-                        .orElse(null));
+        // A parità di data restituisco la prima versione, come la ricerca lineare
+        return versionsByDate[firstIndexNotBefore(releaseTimes[index])];
     }
 
     /**
      * Sovrascrive il metodo originale aggiungendo la funzionalità di cache.
+     * L'intervallo viene individuato per bisezione sulle date di rilascio.
      */
     @Override
     public List<Version> retrieveVersionsBetweenDates(Date startDate, Date endDate) {
         loadVersionsCache();
 
-        return versionCache.values().stream()
-                .filter(version -> version.getReleaseDate() != null &&
-                        !version.getReleaseDate().before(startDate) &&
-                        !version.getReleaseDate().after(endDate))
-                .sorted(Comparator.comparing(Version::getReleaseDate))
-                .toList();
+        int from = firstIndexNotBefore(startDate.getTime());
+        int to = firstIndexAfter(endDate.getTime());
+        if (from >= to) return List.of();
+        return List.of(Arrays.copyOfRange(versionsByDate, from, to));
+    }
+
+    /**
+     * Sovrascrive il metodo originale aggiungendo la funzionalità di cache.
+     */
+    @Override
+    public int retrieveVersionOrdinal(Version version) {
+        loadVersionsCache();
+        return versionOrdinals.getOrDefault(version, -1);
     }
 
     /**
@@ -118,6 +128,7 @@ public class CachedVersionRepository implements VersionRepository {
     /**
      * Carica la cache delle versioni se non è già stata caricata.
      * Se la cache è già presente, non fa nulla.
+     * Oltre alla mappa per ID, costruisce l'ordinamento per data e gli indici per nome e per posizione.
      */
     private void loadVersionsCache() {
         if (versionCache == null) {
@@ -135,10 +146,58 @@ public class CachedVersionRepository implements VersionRepository {
                 }
             }
 
+            buildIndexes();
+
             LOGGER.info(() -> "Cache delle versioni caricata con " + versionCache.size() + " versioni");
         }
     }
 
+    private void buildIndexes() {
+        versionsByDate = versionCache.values().stream()
+                .sorted(Comparator.comparing(Version::getReleaseDate, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toArray(Version[]::new);
+
+        int dated = 0;
+        while (dated < versionsByDate.length && versionsByDate[dated].getReleaseDate() != null) dated++;
+        releaseTimes = new long[dated];
+        for (int i = 0; i < dated; i++) releaseTimes[i] = versionsByDate[i].getReleaseDate().getTime();
+
+        versionsByName = new HashMap<>();
+        versionOrdinals = new HashMap<>();
+        for (int i = 0; i < versionsByDate.length; i++) {
+            versionsByName.putIfAbsent(versionsByDate[i].getName(), versionsByDate[i]);
+            versionOrdinals.put(versionsByDate[i], i);
+        }
+    }
+
+    /**
+     * Restituisce l'indice della prima versione rilasciata non prima dell'istante fornito.
+     */
+    private int firstIndexNotBefore(long time) {
+        int low = 0;
+        int high = releaseTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (releaseTimes[mid] < time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Restituisce l'indice della prima versione rilasciata dopo l'istante fornito.
+     */
+    private int firstIndexAfter(long time) {
+        int low = 0;
+        int high = releaseTimes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (releaseTimes[mid] <= time) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
     /**
      * Metodo aggiuntivo specifico del decorator.
      * Invalida la cache, forzando il repository a ricaricare i dati alla prossima richiesta.
@@ -146,5 +205,9 @@ public class CachedVersionRepository implements VersionRepository {
     public void invalidateCache() {
         LOGGER.info("Invalidazione della cache delle versioni");
         versionCache = null;
+        versionsByDate = null;
+        releaseTimes = null;
+        versionsByName = null;
+        versionOrdinals = null;
     }
 }
@@ -25,6 +25,16 @@ public interface CommitRepository {
      */
     Commit retrieveCommitById(String commitId);
 
+    /**
+     * Recupera i commit raggiungibili da un commit ma non da un altro (intervallo from..to),
+     * compresi quelli senza versione associata.
+     *
+     * @param fromCommitId l'ID del commit da escludere insieme ai suoi antenati, o null per partire dalla radice
+     * @param toCommitId   l'ID del commit (o il nome del riferimento) da cui iniziare la visita
+     * @return lista dei commit nell'intervallo
+     */
+    List<Commit> retrieveCommitsBetween(String fromCommitId, String toCommitId);
+
     /**
      * Ritorna l'ultimo commit di un particolare branch.
      *
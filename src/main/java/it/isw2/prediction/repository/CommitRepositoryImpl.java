@@ -47,6 +47,12 @@ public class CommitRepositoryImpl implements CommitRepository {
                 .orElse(null);
     }
 
+    @Override
+    public List<Commit> retrieveCommitsBetween(String fromCommitId, String toCommitId) {
+        LOGGER.info(() -> "Recupero dei commit nell'intervallo " + fromCommitId + ".." + toCommitId);
+        return commitDao.retrieveCommitsBetween(fromCommitId, toCommitId);
+    }
+
     @Override
     public Commit retriveLastCommitOfBranch(String branchName) {
         LOGGER.info(() -> "Recupero dell'ultimo commit del branch: " + branchName);
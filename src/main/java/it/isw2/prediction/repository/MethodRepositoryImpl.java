@@ -9,9 +9,13 @@ import it.isw2.prediction.factory.MethodDaoFactory;
 import it.isw2.prediction.model.Method;
 
 import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class MethodRepositoryImpl implements MethodRepository {
 
+    private static final Logger LOGGER = Logger.getLogger(MethodRepositoryImpl.class.getName());
+
     private final MethodDao methodDao;
     private final MethodDaoFile fileMethodDao;
 
@@ -36,11 +40,16 @@ public class MethodRepositoryImpl implements MethodRepository {
 
     @Override
     public List<Method> retrieveMethods() throws MethodRetrievalException, MethodSaveException {
+        ApplicationConfig applicationConfig = new ApplicationConfig();
+
+        // In modalità incrementale il DAO riparte autonomamente dallo stato salvato, la cache renderebbe i dati obsoleti
+        if (applicationConfig.isMethodIncrementalEnabled()) return methodDao.retrieveMethods();
+
         try {
             return fileMethodDao.retrieveMethods();
-        } catch(MethodRetrievalException _) {
+        } catch(MethodRetrievalException e) {
+            LOGGER.log(Level.INFO, "Cache dei metodi non utilizzabile, ricalcolo i metodi: {0}", e.getMessage());
             List<Method> result = methodDao.retrieveMethods();
-            ApplicationConfig applicationConfig = new ApplicationConfig();
             if(applicationConfig.isMethodCacheEnabled()) fileMethodDao.saveMethods(result);
             return result;
         }
@@ -0,0 +1,114 @@
+package it.isw2.prediction.repository;
+
+import it.isw2.prediction.exception.ticket.TicketRetrievalException;
+import it.isw2.prediction.model.Commit;
+import it.isw2.prediction.model.Ticket;
+import it.isw2.prediction.monitoring.PipelineMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Indice condiviso del collegamento tra commit e ticket.
+ * Il messaggio di ogni commit viene analizzato una sola volta per estrarre le chiavi
+ * dei ticket citati (nel formato PROGETTO-NNN), che vengono poi risolte tramite
+ * l'indice per chiave dei ticket, evitando di confrontare ogni commit con ogni ticket.
+ */
+public class TicketCommitIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(TicketCommitIndex.class.getName());
+
+    // Chiave di un ticket Jira delimitata da confini di parola, ad esempio BOOKKEEPER-123
+    private static final Pattern TICKET_KEY_PATTERN = Pattern.compile("\\b[A-Z][A-Z0-9_]*-\\d+\\b");
+
+    private final CommitRepository commitRepository;
+    private final TicketRepository ticketRepository;
+
+    // Commit per chiave di ticket citata nel titolo del commit
+    private Map<String, List<Commit>> commitsByTicketKey = null;
+
+    // Chiavi di ticket citate nel messaggio completo di ogni commit
+    private final Map<String, List<String>> ticketKeysByCommit = new ConcurrentHashMap<>();
+
+    public TicketCommitIndex(CommitRepository commitRepository, TicketRepository ticketRepository) {
+        this.commitRepository = commitRepository;
+        this.ticketRepository = ticketRepository;
+    }
+
+    /**
+     * Recupera i ticket citati nel messaggio del commit.
+     *
+     * @param commit il commit
+     * @return i ticket citati, nell'ordine in cui compaiono nel messaggio
+     * @throws TicketRetrievalException se si verifica un errore durante il recupero dei ticket
+     */
+    public List<Ticket> retrieveTicketsByCommit(Commit commit) throws TicketRetrievalException {
+        PipelineMetrics.getInstance().count("ticket.lookups-by-commit");
+        List<String> keys = ticketKeysByCommit.computeIfAbsent(commit.getId(), _ -> extractTicketKeys(commit.getMessage()));
+        List<Ticket> tickets = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Ticket ticket = ticketRepository.retrieveTicketByKey(key);
+            if (ticket != null) tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    /**
+     * Recupera i commit che citano la chiave del ticket nel titolo.
+     * Non richiede il caricamento dei ticket, per cui può essere usato durante la loro costruzione.
+     *
+     * @param ticketKey la chiave del ticket
+     * @return i commit collegati al ticket
+     */
+    public List<Commit> retrieveCommitsByTicketKey(String ticketKey) {
+        loadIndex();
+        return commitsByTicketKey.getOrDefault(ticketKey, List.of());
+    }
+
+    /**
+     * Costruisce l'indice con una sola passata sui commit, se non è già stato costruito.
+     */
+    private synchronized void loadIndex() {
+        if (commitsByTicketKey != null) return;
+
+        LOGGER.info("Costruzione dell'indice dei ticket citati nei commit");
+        Map<String, List<Commit>> index = new HashMap<>();
+        List<Commit> commits;
+        try (var _ = PipelineMetrics.getInstance().stage("ticket.index")) {
+            commits = commitRepository.retrieveCommits();
+            for (Commit commit : commits) {
+                ticketKeysByCommit.computeIfAbsent(commit.getId(), _ -> extractTicketKeys(commit.getMessage()));
+                for (String key : extractTicketKeys(commit.getShortMessage())) {
+                    index.computeIfAbsent(key, _ -> new ArrayList<>()).add(commit);
+                }
+            }
+        }
+        commitsByTicketKey = index;
+
+        LOGGER.info(() -> "Indice dei ticket costruito: " + commitsByTicketKey.size() + " ticket citati in " + commits.size() + " commit");
+    }
+
+    /**
+     * Estrae le chiavi di ticket distinte citate in un messaggio.
+     *
+     * @param message il messaggio da analizzare
+     * @return le chiavi trovate, nell'ordine in cui compaiono
+     */
+    static List<String> extractTicketKeys(String message) {
+        if (message == null || message.isEmpty()) return List.of();
+        List<String> keys = new ArrayList<>(1);
+        Matcher matcher = TICKET_KEY_PATTERN.matcher(message);
+        while (matcher.find()) {
+            String key = matcher.group();
+            if (!keys.contains(key)) keys.add(key);
+        }
+        return keys;
+    }
+
+}
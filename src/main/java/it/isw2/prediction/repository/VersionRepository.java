@@ -59,6 +59,15 @@ public interface VersionRepository {
      */
     List<Version> retrieveVersionsBetweenDates(Date startDate, Date endDate);
 
+    /**
+     * Recupera la posizione della versione nell'ordinamento per data di rilascio,
+     * cioè il suo indice nella lista restituita da {@link #retrieveVersions()}.
+     *
+     * @param version la versione
+     * @return la posizione della versione o -1 se non esiste
+     */
+    int retrieveVersionOrdinal(Version version);
+
     /**
      * Recupera l'ultima versione rilasciata.
      *
@@ -114,6 +114,11 @@ public class VersionRepositoryImpl implements VersionRepository {
         }
     }
 
+    @Override
+    public int retrieveVersionOrdinal(Version version) {
+        return retrieveVersions().indexOf(version);
+    }
+
     @Override
     public Version retrieveLastReleasedVersion() {
         try {
@@ -0,0 +1,60 @@
+package it.isw2.prediction.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Scrittura atomica dei file di cache e di output.
+ * Il contenuto viene scritto su un file temporaneo nella stessa cartella e poi spostato sul file di destinazione,
+ * così un'esecuzione interrotta non lascia file incompleti; se la scrittura fallisce il file temporaneo viene eliminato.
+ */
+public class AtomicFiles {
+
+    private AtomicFiles() {}
+
+    /**
+     * Scrive il contenuto di un file temporaneo.
+     */
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(Path tmpFile) throws IOException;
+    }
+
+    /**
+     * Scrive il file in modo atomico, creando le cartelle mancanti e sostituendo il file esistente.
+     *
+     * @param path   il file di destinazione
+     * @param writer la funzione che scrive il contenuto nel file temporaneo
+     * @throws IOException se la scrittura o lo spostamento falliscono
+     */
+    public static void write(Path path, ContentWriter writer) throws IOException {
+        Path parentDir = path.toAbsolutePath().getParent();
+        Files.createDirectories(parentDir);
+        Path tmpFile = Files.createTempFile(parentDir, path.getFileName().toString(), ".tmp");
+        try {
+            writer.write(tmpFile);
+            Files.move(tmpFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                Files.deleteIfExists(tmpFile);
+            } catch (IOException deleteError) {
+                e.addSuppressed(deleteError);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Scrive il testo nel file in modo atomico, con codifica UTF-8.
+     *
+     * @param path    il file di destinazione
+     * @param content il testo da scrivere
+     * @throws IOException se la scrittura o lo spostamento falliscono
+     */
+    public static void writeString(Path path, String content) throws IOException {
+        write(path, tmpFile -> Files.writeString(tmpFile, content));
+    }
+
+}
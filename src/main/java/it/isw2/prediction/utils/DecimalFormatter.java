@@ -0,0 +1,59 @@
+package it.isw2.prediction.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+
+/**
+ * Formattazione dei numeri decimali dei file di output, con il punto come separatore indipendentemente
+ * dal locale e arrotondamento half-up come String.format, cioè sulla rappresentazione decimale più breve
+ * del double e non sul suo valore binario.
+ */
+public class DecimalFormatter {
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L};
+    // Oltre questo valore il numero scalato non sta in un long, per cui uso la formattazione standard
+    private static final double MAX_FAST_FORMAT = 1e12;
+    // Distanza da mezza unità, in ulp del numero scalato, entro cui l'arrotondamento veloce può sbagliare
+    private static final int HALF_UP_TOLERANCE_ULPS = 4;
+
+    private DecimalFormatter() {}
+
+    /**
+     * Formatta il numero con il punto decimale senza allocare stringhe intermedie.
+     * Il prodotto per la potenza di dieci ha un errore di qualche ulp: quando la parte frazionaria cade
+     * così vicino a mezza unità da poter finire dalla parte sbagliata (ad esempio 201.0 / 200 = 1.005,
+     * il cui prodotto vale 100.49999999999999), il numero viene arrotondato con BigDecimal, che
+     * come String.format parte dalla rappresentazione decimale più breve.
+     */
+    public static void append(StringBuilder sb, double value, int decimals) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FAST_FORMAT || decimals >= POWERS_OF_TEN.length) {
+            sb.append(String.format(Locale.ROOT, "%." + decimals + "f", value));
+            return;
+        }
+
+        // Come String.format, il segno è quello del double anche se il numero arrotondato è zero
+        boolean negative = Double.doubleToRawLongBits(value) < 0;
+        long scale = POWERS_OF_TEN[decimals];
+        double scaledValue = Math.abs(value) * scale;
+        if (Math.abs(scaledValue - Math.floor(scaledValue) - 0.5) <= HALF_UP_TOLERANCE_ULPS * Math.ulp(scaledValue)) {
+            BigDecimal rounded = BigDecimal.valueOf(value).setScale(decimals, RoundingMode.HALF_UP);
+            // BigDecimal non ha lo zero negativo
+            if (negative && rounded.signum() == 0) sb.append('-');
+            sb.append(rounded.toPlainString());
+            return;
+        }
+
+        long scaled = Math.round(scaledValue);
+        if (negative) sb.append('-');
+        sb.append(scaled / scale);
+        if (decimals == 0) return;
+
+        sb.append('.');
+        long fraction = scaled % scale;
+        for (long digit = scale / 10; digit > 0; digit /= 10) {
+            sb.append((char) ('0' + fraction / digit % 10));
+        }
+    }
+
+}
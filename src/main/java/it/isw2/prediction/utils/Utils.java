@@ -1,23 +0,0 @@
-package it.isw2.prediction.utils;
-
-import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.ObjectLoader;
-import org.eclipse.jgit.lib.ObjectReader;
-import org.eclipse.jgit.lib.Repository;
-
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-
-public class Utils {
-
-    private Utils () {}
-
-    public static String readBlobAsString(Repository repo, ObjectId blobId) throws IOException {
-        if (blobId == null || blobId.equals(ObjectId.zeroId())) return "";
-        try (ObjectReader reader = repo.newObjectReader()) {
-            ObjectLoader loader = reader.open(blobId);
-            return new String(loader.getBytes(), StandardCharsets.UTF_8);
-        }
-    }
-
-}